@@ -0,0 +1,172 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017. Diorite (by Bartłomiej Mazur (aka GotoFinal))
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package org.diorite.config;
+
+import javax.annotation.Nullable;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+
+/**
+ * Reader that decodes whole byte buffer directly into char arrays passed to {@link #read(char[], int, int)}, without any intermediate buffers. <br>
+ * Used to read memory mapped config files, and in-memory data that isn't strict UTF-8, see {@link Utf8ByteBufferReader}.
+ */
+final class ByteBufferReader extends Reader
+{
+    private final ByteBuffer          buffer;
+    private final CharsetDecoder      decoder;
+    @Nullable private final Closeable resource;
+
+    // used only when caller buffer is too small to fit whole decoded code point.
+    @Nullable private CharBuffer spill;
+
+    private boolean decoded;
+    private boolean flushed;
+    private boolean closed;
+
+    /**
+     * Create new reader of given buffer.
+     *
+     * @param buffer
+     *         buffer to read, remaining bytes of buffer are decoded.
+     * @param decoder
+     *         decoder to use, it must not be used by any other reader.
+     * @param resource
+     *         optional resource to close together with this reader, buffer is not accessed after it is closed, so resource can release it.
+     */
+    ByteBufferReader(ByteBuffer buffer, CharsetDecoder decoder, @Nullable Closeable resource)
+    {
+        this.buffer = buffer;
+        this.decoder = decoder;
+        this.resource = resource;
+        decoder.reset();
+    }
+
+    @Override
+    public int read(char[] cbuf, int off, int len) throws IOException
+    {
+        if ((off < 0) || (len < 0) || (len > (cbuf.length - off)))
+        {
+            throw new IndexOutOfBoundsException();
+        }
+        if (this.closed)
+        {
+            throw new IOException("Stream closed");
+        }
+        if (len == 0)
+        {
+            return 0;
+        }
+        CharBuffer spill = this.spill;
+        if ((spill != null) && spill.hasRemaining())
+        {
+            int read = Math.min(len, spill.remaining());
+            spill.get(cbuf, off, read);
+            return read;
+        }
+        CharBuffer out = CharBuffer.wrap(cbuf, off, len);
+        this.decodeInto(out);
+        int read = out.position() - off;
+        if (read > 0)
+        {
+            return read;
+        }
+        if (this.flushed)
+        {
+            return - 1;
+        }
+        // caller buffer is smaller than single decoded code point, decode it into spill buffer first.
+        if (spill == null)
+        {
+            spill = CharBuffer.allocate(2);
+            this.spill = spill;
+        }
+        spill.clear();
+        this.decodeInto(spill);
+        spill.flip();
+        if (! spill.hasRemaining())
+        {
+            return - 1;
+        }
+        return this.read(cbuf, off, len);
+    }
+
+    private void decodeInto(CharBuffer out) throws IOException
+    {
+        if (! this.decoded)
+        {
+            // whole input is already available, so it is always end of input.
+            CoderResult result = this.decoder.decode(this.buffer, out, true);
+            if (result.isError())
+            {
+                result.throwException();
+            }
+            if (result.isOverflow())
+            {
+                return;
+            }
+            this.decoded = true;
+        }
+        if (! this.flushed)
+        {
+            CoderResult result = this.decoder.flush(out);
+            if (result.isOverflow())
+            {
+                return;
+            }
+            this.flushed = true;
+        }
+    }
+
+    @Override
+    public boolean ready() throws IOException
+    {
+        if (this.closed)
+        {
+            throw new IOException("Stream closed");
+        }
+        return ! this.flushed || ((this.spill != null) && this.spill.hasRemaining());
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        if (this.closed)
+        {
+            return;
+        }
+        this.closed = true;
+        if (this.resource != null)
+        {
+            this.resource.close();
+        }
+    }
+}
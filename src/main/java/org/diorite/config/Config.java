@@ -34,19 +34,29 @@ import java.io.InputStreamReader;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.Reader;
+import java.io.StringWriter;
 import java.io.Writer;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 import java.nio.charset.CharsetDecoder;
 import java.nio.charset.CharsetEncoder;
 import java.nio.charset.CodingErrorAction;
 import java.util.Collection;
 import java.util.ConcurrentModificationException;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.function.BiConsumer;
 import java.util.function.Supplier;
 
+import org.yaml.snakeyaml.nodes.Node;
+
 import org.diorite.config.exceptions.ConfigLoadException;
 import org.diorite.config.exceptions.ConfigSaveException;
 
@@ -396,13 +406,21 @@ public interface Config
     void save();
 
     /**
-     * Save config to selected file.
+     * Save config to selected file. <br>
+     * If given file is source of {@link StreamedSequence streamed} properties of this config, config is written to temporary file first and then
+     * moved in place of given file.
      *
      * @param file
      *         file to use.
      */
     default void save(File file)
     {
+        if (ConfigHelperMethods.isStreamedFrom(this, file))
+        {
+            ConfigHelperMethods.saveReplacing(this, file);
+            return;
+        }
+        ConfigReloadService.beforeSave(file);
         try (OutputStreamWriter outputStreamWriter = ConfigHelperMethods.createOutputStreamWriter(this, file))
         {
             this.save(outputStreamWriter);
@@ -411,6 +429,77 @@ public interface Config
         {
             throw new ConfigSaveException(this.template(), file, e.getMessage(), e);
         }
+        finally
+        {
+            ConfigReloadService.afterSave(this, file);
+        }
+    }
+
+    /**
+     * Save config to bound file asynchronously, using {@link ConfigFileExecutor#getDefault() default file executor}. <br>
+     * Data of config is captured before this method returns, so later changes of config are not saved by this call.
+     *
+     * @return future completed when config is saved.
+     *
+     * @see #saveAsync(File)
+     */
+    default CompletableFuture<Void> saveAsync()
+    {
+        File file = this.bindFile();
+        if (file == null)
+        {
+            return ConfigFileExecutor.failed(new ConfigSaveException(this.template(), null, "Config isn't bound to file!"));
+        }
+        return this.saveAsync(file);
+    }
+
+    /**
+     * Save config to selected file asynchronously, using {@link ConfigFileExecutor#getDefault() default file executor}. <br>
+     * Data of config is serialized before this method returns, so later changes of config are not saved by this call, and only writing to
+     * file is done on executor, after all previous operations on that file. <br>
+     * If given file is source of {@link StreamedSequence streamed} properties of this config, config is written to temporary file before this
+     * method returns, as streamed values are read from that file while saving, and only moving it in place of given file is done on executor.
+     *
+     * @param file
+     *         file to use.
+     *
+     * @return future completed when config is saved.
+     */
+    default CompletableFuture<Void> saveAsync(File file)
+    {
+        ConfigFileExecutor executor = ConfigFileExecutor.getDefault();
+        if (ConfigHelperMethods.isStreamedFrom(this, file))
+        {
+            File tempFile;
+            try
+            {
+                tempFile = ConfigHelperMethods.saveToTempFile(this, file);
+            }
+            catch (RuntimeException e)
+            {
+                return ConfigFileExecutor.failed(e);
+            }
+            return executor.run(file, () -> ConfigHelperMethods.replaceWith(this, file, tempFile)).whenComplete((result, throwable) ->
+            {
+                // operation might be never run, like if executor was shut down.
+                if (throwable != null)
+                {
+                    tempFile.delete();
+                }
+            });
+        }
+        String data;
+        try
+        {
+            StringWriter writer = new StringWriter(4096);
+            this.save(writer);
+            data = writer.toString();
+        }
+        catch (RuntimeException e)
+        {
+            return ConfigFileExecutor.failed(e);
+        }
+        return executor.run(file, () -> ConfigHelperMethods.save(this, file, data));
     }
 
     /**
@@ -425,6 +514,33 @@ public interface Config
         this.save(new OutputStreamWriter(outputStream, this.encoder()));
     }
 
+    /**
+     * Save config to new byte buffer, using encoder of this config. <br>
+     * UTF-8 data is encoded directly into buffer without intermediate char buffers.
+     *
+     * @return buffer with saved config, ready to be read.
+     */
+    default ByteBuffer saveToBuffer()
+    {
+        return ConfigHelperMethods.saveToBuffer(this);
+    }
+
+    /**
+     * Save config to given byte buffer, using encoder of this config. Bytes are written at position of buffer, that is advanced by amount of
+     * written bytes. <br>
+     * UTF-8 data is encoded directly into buffer without intermediate char buffers.
+     *
+     * @param buffer
+     *         buffer to use.
+     *
+     * @throws BufferOverflowException
+     *         if there isn't enough space in buffer, position of buffer is then undefined.
+     */
+    default void save(ByteBuffer buffer)
+    {
+        ConfigHelperMethods.save(this, buffer);
+    }
+
     /**
      * Save config to selected writer. <br>
      * Writer isn't automatically closed here!
@@ -440,16 +556,22 @@ public interface Config
     void load();
 
     /**
-     * Reloads config from given file.
+     * Reloads config from given file. <br>
+     * If template of this config uses {@link ConfigSnapshotCache}, valid snapshot of file is used instead of parsing it again.
      *
      * @param file
      *         file to use.
      */
     default void load(File file)
     {
-        try (InputStreamReader inputStreamReader = ConfigHelperMethods.createInputStreamReader(this, file))
+        ConfigSnapshotCache snapshotCache = this.template().getSnapshotCache();
+        if ((snapshotCache != null) && snapshotCache.load(this, file))
         {
-            this.load(inputStreamReader);
+            return;
+        }
+        try (Reader reader = ConfigHelperMethods.createReader(this, file))
+        {
+            this.load(reader);
         }
         catch (IOException e)
         {
@@ -469,6 +591,37 @@ public interface Config
         this.load(new InputStreamReader(inputStream, this.decoder()));
     }
 
+    /**
+     * Reloads config from given bytes, using decoder of this config. <br>
+     * UTF-8 data is decoded directly without intermediate byte or char buffers.
+     *
+     * @param bytes
+     *         data to use.
+     */
+    default void load(byte[] bytes)
+    {
+        this.load(ByteBuffer.wrap(bytes));
+    }
+
+    /**
+     * Reloads config from remaining bytes of given buffer, using decoder of this config. Position of buffer is advanced to its limit. <br>
+     * UTF-8 data is decoded directly without intermediate byte or char buffers.
+     *
+     * @param buffer
+     *         data to use.
+     */
+    default void load(ByteBuffer buffer)
+    {
+        try (Reader reader = ConfigHelperMethods.createReader(this, buffer))
+        {
+            this.load(reader);
+        }
+        catch (IOException e)
+        {
+            throw new ConfigLoadException(this.template(), null, e.getMessage(), e);
+        }
+    }
+
     /**
      * Reloads config from selected reader. <br>
      * Reader isn't automatically closed here!
@@ -478,6 +631,199 @@ public interface Config
      */
     void load(@WillNotClose Reader reader);
 
+    /**
+     * Reloads config from given yaml node, like root node of already parsed document. <br>
+     * Default implementation throws {@link UnsupportedOperationException}, so implementations not supporting it can't be used with
+     * {@link ConfigSnapshotCache}.
+     *
+     * @param node
+     *         node to use.
+     *
+     * @throws UnsupportedOperationException
+     *         if this config can't be loaded from yaml node.
+     */
+    default void load(Node node)
+    {
+        throw new UnsupportedOperationException("Loading from yaml node isn't supported by: " + this.getClass().getName());
+    }
+
+    /**
+     * Reloads config from bound file asynchronously, using {@link ConfigFileExecutor#getDefault() default file executor}.
+     *
+     * @return future completed when config is loaded.
+     *
+     * @see #loadAsync(File)
+     */
+    default CompletableFuture<Void> loadAsync()
+    {
+        File file = this.bindFile();
+        if (file == null)
+        {
+            return ConfigFileExecutor.failed(new ConfigLoadException(this.template(), null, "Config isn't bound to file!"));
+        }
+        return this.loadAsync(file);
+    }
+
+    /**
+     * Reloads config from given file asynchronously, using {@link ConfigFileExecutor#getDefault() default file executor}. <br>
+     * Load is started after all previous operations on that file are done, and values are changed on executor thread, use
+     * {@link ConfigHandle#reloadAsync()} if readers must never see partially loaded config.
+     *
+     * @param file
+     *         file to use.
+     *
+     * @return future completed when config is loaded.
+     */
+    default CompletableFuture<Void> loadAsync(File file)
+    {
+        return ConfigFileExecutor.getDefault().run(file, () -> this.load(file));
+    }
+
+    /**
+     * Reloads config from given file, reading and deserializing top-level keys one by one, so representation of whole file is never kept in
+     * memory.
+     *
+     * @param file
+     *         file to use.
+     *
+     * @see #loadStreaming(Reader)
+     */
+    default void loadStreaming(File file)
+    {
+        try (Reader reader = ConfigHelperMethods.createReader(this, file))
+        {
+            this.loadStreaming(reader);
+        }
+        catch (IOException e)
+        {
+            throw new ConfigLoadException(this.template(), file, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Reloads config from selected reader, reading and deserializing top-level keys one by one, so representation of whole document is never
+     * kept in memory, useful for large data configs. <br>
+     * Like on {@link #load(Reader)}, properties missing in document are reset to their default values. <br>
+     * Implementations that does not support streaming fall back to {@link #load(Reader)}. <br>
+     * Reader isn't automatically closed here!
+     *
+     * @param reader
+     *         reader to use.
+     */
+    default void loadStreaming(@WillNotClose Reader reader)
+    {
+        this.load(reader);
+    }
+
+    /**
+     * Reloads config from given file, applying only values that differ from current ones.
+     *
+     * @param file
+     *         file to use.
+     *
+     * @return set of changed top-level keys.
+     *
+     * @see #loadChanges(Reader)
+     */
+    default Set<String> loadChanges(File file)
+    {
+        try (Reader reader = ConfigHelperMethods.createReader(this, file))
+        {
+            return this.loadChanges(reader);
+        }
+        catch (IOException e)
+        {
+            throw new ConfigLoadException(this.template(), file, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Reloads config from selected reader, but setters and validators are invoked only for keys whose values differ from values currently
+     * held by this config, so hot reloads of big configs stay cheap. <br>
+     * Reader isn't automatically closed here!
+     *
+     * @param reader
+     *         reader to use.
+     *
+     * @return set of changed top-level keys.
+     */
+    default Set<String> loadChanges(@WillNotClose Reader reader)
+    {
+        Map<String, Object> oldValues = new LinkedHashMap<>(this.asMap());
+        this.load(reader);
+        Set<String> changedKeys = new LinkedHashSet<>(16);
+        for (Map.Entry<String, Object> entry : this.entries())
+        {
+            if (! Objects.deepEquals(oldValues.remove(entry.getKey()), entry.getValue()))
+            {
+                changedKeys.add(entry.getKey());
+            }
+        }
+        changedKeys.addAll(oldValues.keySet());
+        return changedKeys;
+    }
+
+    /**
+     * Register listener notified about all changes of this config. <br>
+     * Default implementation throws {@link UnsupportedOperationException}.
+     *
+     * @param listener
+     *         listener to register.
+     *
+     * @throws UnsupportedOperationException
+     *         if this config doesn't support change listeners.
+     * @see ConfigChangeListener
+     */
+    default void addChangeListener(ConfigChangeListener listener)
+    {
+        throw new UnsupportedOperationException("Change listeners aren't supported by: " + this.getClass().getName());
+    }
+
+    /**
+     * Register listener notified about changes of given path, so changes of this exact key, any of its nested keys or of its parent sections. <br>
+     *
+     * Default implementation throws {@link UnsupportedOperationException}.
+     *
+     * @param path
+     *         path to listen on, nested keys are separated by {@link ConfigTemplate#SEPARATOR}.
+     * @param listener
+     *         listener to register.
+     *
+     * @throws UnsupportedOperationException
+     *         if this config doesn't support change listeners.
+     * @see ConfigChangeListener
+     */
+    default void addChangeListener(String path, ConfigChangeListener listener)
+    {
+        throw new UnsupportedOperationException("Change listeners aren't supported by: " + this.getClass().getName());
+    }
+
+    /**
+     * Unregister all registrations of given listener. <br>
+     * Default implementation does nothing, as listeners can't be registered without support for them.
+     *
+     * @param listener
+     *         listener to remove.
+     */
+    default void removeChangeListener(ConfigChangeListener listener)
+    {
+    }
+
+    /**
+     * Set executor used to notify change listeners, if null (default) listeners are notified directly by thread that changed value. <br>
+     * Default implementation throws {@link UnsupportedOperationException}.
+     *
+     * @param executor
+     *         executor to use.
+     *
+     * @throws UnsupportedOperationException
+     *         if this config doesn't support change listeners.
+     */
+    default void changeListenerExecutor(@Nullable Executor executor)
+    {
+        throw new UnsupportedOperationException("Change listeners aren't supported by: " + this.getClass().getName());
+    }
+
     /**
      * Returns clone of this config object.
      *
@@ -485,6 +831,36 @@ public interface Config
      */
     Config clone();
 
+    /**
+     * Returns read-only copy of this config object, all collections and maps are pre-wrapped as unmodifiable and nested configs are frozen too. <br>
+     * Every method that would change frozen config throws {@link UnsupportedOperationException}. <br>
+     * If this config is already frozen this same instance is returned. <br>
+     * Fields of frozen config aren't final, so it should be shared with other threads in safe way, like by final or volatile field. <br>
+     * Default implementation throws {@link UnsupportedOperationException}.
+     *
+     * @return read-only copy of this config object.
+     *
+     * @throws UnsupportedOperationException
+     *         if this config can't be frozen.
+     */
+    default Config freeze()
+    {
+        throw new UnsupportedOperationException("Freezing isn't supported by: " + this.getClass().getName());
+    }
+
+    /**
+     * Returns true if this config was frozen and can't be changed. <br>
+     * Default implementation always returns false.
+     *
+     * @return true if this config is frozen.
+     *
+     * @see #freeze()
+     */
+    default boolean isFrozen()
+    {
+        return false;
+    }
+
     /**
      * Perform operation for each config entry.
      *
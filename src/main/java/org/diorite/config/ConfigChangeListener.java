@@ -0,0 +1,52 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017. Diorite (by Bartłomiej Mazur (aka GotoFinal))
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package org.diorite.config;
+
+import javax.annotation.Nullable;
+
+/**
+ * Listener notified about changed values of config, registered using {@link Config#addChangeListener(ConfigChangeListener)} or {@link
+ * Config#addChangeListener(String, ConfigChangeListener)}. <br>
+ * Listeners are notified after new value passed validation, multiple changes of this same key done in short time (or during loading of config) are
+ * coalesced into single call with first old value and last new value.
+ */
+@FunctionalInterface
+public interface ConfigChangeListener
+{
+    /**
+     * Invoked after value of given key changed.
+     *
+     * @param config
+     *         changed config.
+     * @param key
+     *         changed key, nested keys are separated by {@link ConfigTemplate#SEPARATOR}.
+     * @param oldValue
+     *         value before change.
+     * @param newValue
+     *         value after change, null if value was removed.
+     */
+    void onChange(Config config, String key, @Nullable Object oldValue, @Nullable Object newValue);
+}
@@ -0,0 +1,187 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017. Diorite (by Bartłomiej Mazur (aka GotoFinal))
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package org.diorite.config;
+
+import javax.annotation.Nullable;
+
+import java.io.File;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.apache.commons.lang3.builder.ToStringBuilder;
+
+/**
+ * Executor of asynchronous config file operations, like {@link Config#loadAsync(File)} or {@link Config#saveAsync(File)}. <br>
+ * Operations on the same file are run one by one in order of submission, operations on different files run in parallel on underlying
+ * executor.
+ */
+public final class ConfigFileExecutor
+{
+    @Nullable private static volatile ConfigFileExecutor defaultExecutor;
+
+    private final Executor                        executor;
+    private final Map<File, CompletableFuture<?>> pending = new ConcurrentHashMap<>(16);
+
+    /**
+     * Create new file executor that runs operations on given executor.
+     *
+     * @param executor
+     *         executor used to run operations.
+     */
+    public ConfigFileExecutor(Executor executor)
+    {
+        this.executor = executor;
+    }
+
+    /**
+     * Returns file executor used by asynchronous config operations, by default it uses fixed pool of daemon threads.
+     *
+     * @return default file executor.
+     */
+    public static ConfigFileExecutor getDefault()
+    {
+        ConfigFileExecutor executor = defaultExecutor;
+        if (executor == null)
+        {
+            synchronized (ConfigFileExecutor.class)
+            {
+                executor = defaultExecutor;
+                if (executor == null)
+                {
+                    executor = new ConfigFileExecutor(createDefaultPool());
+                    defaultExecutor = executor;
+                }
+            }
+        }
+        return executor;
+    }
+
+    /**
+     * Set file executor used by asynchronous config operations. <br>
+     * Operations submitted to previous executor are not moved, so operations on the same file should not be submitted while executor is
+     * changed.
+     *
+     * @param executor
+     *         new default file executor.
+     */
+    public static void setDefault(ConfigFileExecutor executor)
+    {
+        defaultExecutor = executor;
+    }
+
+    private static ExecutorService createDefaultPool()
+    {
+        AtomicInteger counter = new AtomicInteger();
+        return Executors.newFixedThreadPool(Math.max(2, Runtime.getRuntime().availableProcessors()), runnable ->
+        {
+            Thread thread = new Thread(runnable, "config-io-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Returns executor used to run operations.
+     *
+     * @return executor used to run operations.
+     */
+    public Executor getExecutor()
+    {
+        return this.executor;
+    }
+
+    /**
+     * Run given operation on given file after all previously submitted operations on that file are done.
+     *
+     * @param file
+     *         file used by operation, or null if operation doesn't need to wait for other operations.
+     * @param operation
+     *         operation to run.
+     *
+     * @return future completed when operation is done.
+     */
+    public CompletableFuture<Void> run(@Nullable File file, Runnable operation)
+    {
+        return this.supply(file, () ->
+        {
+            operation.run();
+            return null;
+        });
+    }
+
+    /**
+     * Run given operation on given file after all previously submitted operations on that file are done.
+     *
+     * @param file
+     *         file used by operation, or null if operation doesn't need to wait for other operations.
+     * @param operation
+     *         operation to run.
+     * @param <T>
+     *         type of result.
+     *
+     * @return future completed with result of operation.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> CompletableFuture<T> supply(@Nullable File file, Supplier<T> operation)
+    {
+        if (file == null)
+        {
+            return CompletableFuture.supplyAsync(operation, this.executor);
+        }
+        File key = file.getAbsoluteFile();
+        CompletableFuture<?>[] created = new CompletableFuture<?>[1];
+        this.pending.compute(key, (k, previous) ->
+        {
+            // failures of previous operations don't stop next ones, they are reported by their own futures.
+            created[0] = (previous == null) ? CompletableFuture.supplyAsync(operation, this.executor)
+                                            : previous.handleAsync((result, throwable) -> operation.get(), this.executor);
+            return created[0];
+        });
+        CompletableFuture<T> future = (CompletableFuture<T>) created[0];
+        future.whenComplete((result, throwable) -> this.pending.remove(key, future));
+        return future;
+    }
+
+    static <T> CompletableFuture<T> failed(Throwable throwable)
+    {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        future.completeExceptionally(throwable);
+        return future;
+    }
+
+    @Override
+    public String toString()
+    {
+        return new ToStringBuilder(this).appendSuper(super.toString()).append("executor", this.executor).append("pending", this.pending.keySet())
+                                        .toString();
+    }
+}
@@ -0,0 +1,306 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017. Diorite (by Bartłomiej Mazur (aka GotoFinal))
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package org.diorite.config;
+
+import javax.annotation.WillNotClose;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.commons.lang3.builder.ToStringBuilder;
+
+import org.diorite.config.exceptions.ConfigLoadException;
+
+/**
+ * Handle that owns current instance of config, and allows to replace it atomically. <br>
+ * Reload never changes current instance, new one is fully loaded and validated first and then swapped in using single compare-and-set, so readers always
+ * see consistent config and invalid file is never applied partially. <br>
+ * Each swap increments version of handle, {@link #getSnapshot()} can be used to read instance and its version together.
+ *
+ * @param <T>
+ *         type of config.
+ */
+public final class ConfigHandle<T extends Config>
+{
+    private final ConfigTemplate<T>            template;
+    private final AtomicReference<Snapshot<T>> current;
+
+    /**
+     * Create new handle for given config instance.
+     *
+     * @param template
+     *         template of config.
+     * @param config
+     *         initial config instance.
+     */
+    public ConfigHandle(ConfigTemplate<T> template, T config)
+    {
+        this.template = template;
+        this.current = new AtomicReference<>(new Snapshot<>(config, 0));
+    }
+
+    /**
+     * Load config from given file and create handle for it, loaded config is bound to this file.
+     *
+     * @param template
+     *         template of config.
+     * @param file
+     *         file to load.
+     * @param <T>
+     *         type of config.
+     *
+     * @return handle for loaded config.
+     */
+    public static <T extends Config> ConfigHandle<T> load(ConfigTemplate<T> template, File file)
+    {
+        ConfigHandle<T> handle = new ConfigHandle<>(template, template.create());
+        handle.get().bindFile(file);
+        handle.reload();
+        return handle;
+    }
+
+    /**
+     * Returns template of handled config.
+     *
+     * @return template of handled config.
+     */
+    public ConfigTemplate<T> getTemplate()
+    {
+        return this.template;
+    }
+
+    /**
+     * Returns current config instance.
+     *
+     * @return current config instance.
+     */
+    public T get()
+    {
+        return this.current.get().config;
+    }
+
+    /**
+     * Returns current version, incremented on each swap.
+     *
+     * @return current version.
+     */
+    public long getVersion()
+    {
+        return this.current.get().version;
+    }
+
+    /**
+     * Returns current config instance together with its version.
+     *
+     * @return current snapshot.
+     */
+    public Snapshot<T> getSnapshot()
+    {
+        return this.current.get();
+    }
+
+    /**
+     * Replace current instance with given one.
+     *
+     * @param config
+     *         new config instance.
+     *
+     * @return previous config instance.
+     */
+    public T swap(T config)
+    {
+        while (true)
+        {
+            Snapshot<T> snapshot = this.current.get();
+            if (this.current.compareAndSet(snapshot, new Snapshot<>(config, snapshot.version + 1)))
+            {
+                return snapshot.config;
+            }
+        }
+    }
+
+    /**
+     * Replace current instance with given one, but only if current version is equal to expected one.
+     *
+     * @param expectedVersion
+     *         expected current version.
+     * @param config
+     *         new config instance.
+     *
+     * @return true if instance was replaced.
+     */
+    public boolean compareAndSwap(long expectedVersion, T config)
+    {
+        Snapshot<T> snapshot = this.current.get();
+        return (snapshot.version == expectedVersion) && this.current.compareAndSet(snapshot, new Snapshot<>(config, expectedVersion + 1));
+    }
+
+    /**
+     * Load new instance from file bound to current config and swap it in. <br>
+     * If loading or validation fails exception is thrown and current instance stays unchanged. <br>
+     * If other instance is swapped in while file is loaded, file is loaded again, so instance loaded from older content never replaces newer one.
+     *
+     * @return new config instance.
+     *
+     * @throws ConfigLoadException
+     *         if config can't be loaded.
+     */
+    public T reload() throws ConfigLoadException
+    {
+        while (true)
+        {
+            Snapshot<T> snapshot = this.current.get();
+            File file = snapshot.config.bindFile();
+            if (file == null)
+            {
+                throw new ConfigLoadException(this.template, null, "Config isn't bound to file!");
+            }
+            T config;
+            try (Reader reader = ConfigHelperMethods.createReader(snapshot.config, file))
+            {
+                config = this.load(snapshot.config, reader);
+            }
+            catch (IOException e)
+            {
+                throw new ConfigLoadException(this.template, file, e.getMessage(), e);
+            }
+            if (this.compareAndSwap(snapshot.version, config))
+            {
+                return config;
+            }
+        }
+    }
+
+    /**
+     * Load new instance from given reader and swap it in. <br>
+     * If loading or validation fails exception is thrown and current instance stays unchanged. <br>
+     * Reader isn't automatically closed here!
+     *
+     * @param reader
+     *         reader to use.
+     *
+     * @return new config instance.
+     *
+     * @throws ConfigLoadException
+     *         if config can't be loaded, or other instance was swapped in while this one was loading, then loaded instance is discarded.
+     */
+    public T reload(@WillNotClose Reader reader) throws ConfigLoadException
+    {
+        Snapshot<T> snapshot = this.current.get();
+        T config = this.load(snapshot.config, reader);
+        if (! this.compareAndSwap(snapshot.version, config))
+        {
+            throw new ConfigLoadException(this.template, config.bindFile(), "Other instance was swapped in while loading (version " + snapshot.version +
+                                                                            " -> " + this.getVersion() + "), loaded instance was discarded.");
+        }
+        return config;
+    }
+
+    private T load(T old, @WillNotClose Reader reader)
+    {
+        T config = this.template.create();
+        config.bindFile(old.bindFile());
+        config.contextClassLoader(old.contextClassLoader());
+        config.load(reader);
+        return config;
+    }
+
+    /**
+     * Load new instance from file bound to current config using {@link ConfigFileExecutor#getDefault() default file executor} and swap it in,
+     * after all previous operations on that file are done. <br>
+     * If loading or validation fails returned future completes exceptionally and current instance stays unchanged.
+     *
+     * @return future completed with new config instance.
+     */
+    public CompletableFuture<T> reloadAsync()
+    {
+        return ConfigFileExecutor.getDefault().supply(this.get().bindFile(), this::reload);
+    }
+
+    /**
+     * Load new instance from file bound to current config using given executor and swap it in. <br>
+     * If loading or validation fails returned future completes exceptionally and current instance stays unchanged.
+     *
+     * @param executor
+     *         executor used to load config.
+     *
+     * @return future completed with new config instance.
+     */
+    public CompletableFuture<T> reloadAsync(Executor executor)
+    {
+        return CompletableFuture.supplyAsync(this::reload, executor);
+    }
+
+    @Override
+    public String toString()
+    {
+        Snapshot<T> snapshot = this.current.get();
+        return new ToStringBuilder(this).appendSuper(super.toString()).append("template", this.template.getName()).append("version", snapshot.version)
+                                        .toString();
+    }
+
+    /**
+     * Immutable pair of config instance and its version.
+     *
+     * @param <T>
+     *         type of config.
+     */
+    public static final class Snapshot<T extends Config>
+    {
+        private final T    config;
+        private final long version;
+
+        private Snapshot(T config, long version)
+        {
+            this.config = config;
+            this.version = version;
+        }
+
+        /**
+         * Returns config instance.
+         *
+         * @return config instance.
+         */
+        public T getConfig()
+        {
+            return this.config;
+        }
+
+        /**
+         * Returns version of config instance.
+         *
+         * @return version of config instance.
+         */
+        public long getVersion()
+        {
+            return this.version;
+        }
+    }
+}
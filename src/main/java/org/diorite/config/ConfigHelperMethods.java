@@ -1,17 +1,41 @@
 package org.diorite.config;
 
+import javax.annotation.Nullable;
+
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
+import java.io.FilterReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 
 import org.diorite.config.exceptions.ConfigLoadException;
 import org.diorite.config.exceptions.ConfigSaveException;
 
 final class ConfigHelperMethods
 {
+    private static final int SAVE_BUFFER_SIZE = 4096;
+
     private ConfigHelperMethods() {}
 
     static OutputStreamWriter createOutputStreamWriter(Config config, File file)
@@ -40,33 +64,202 @@ final class ConfigHelperMethods
         }
     }
 
-    static InputStreamReader createInputStreamReader(Config config, File file)
+    // writes data captured by Config#saveAsync, so it is written exactly like Config#save(File) would do it.
+    static void save(Config config, File file, String data)
+    {
+        ConfigReloadService.beforeSave(file);
+        try (OutputStreamWriter outputStreamWriter = createOutputStreamWriter(config, file))
+        {
+            outputStreamWriter.write(data);
+        }
+        catch (IOException e)
+        {
+            throw new ConfigSaveException(config.template(), file, e.getMessage(), e);
+        }
+        finally
+        {
+            ConfigReloadService.afterSave(config, file);
+        }
+    }
+
+    static Reader createReader(Config config, ByteBuffer buffer)
     {
+        CharsetDecoder decoder = config.decoder();
+        if (isStrictUtf8(decoder.charset(), decoder.malformedInputAction()))
+        {
+            return new Utf8ByteBufferReader(buffer);
+        }
+        return new ByteBufferReader(buffer, decoder, null);
+    }
+
+    static ByteBuffer saveToBuffer(Config config)
+    {
+        CharsetEncoder encoder = config.encoder();
+        if (isStrictUtf8(encoder.charset(), encoder.malformedInputAction()))
+        {
+            Utf8ByteBufferWriter writer = new Utf8ByteBufferWriter(ByteBuffer.allocate(SAVE_BUFFER_SIZE), true);
+            saveUtf8(config, writer);
+            ByteBuffer buffer = writer.getBuffer();
+            buffer.flip();
+            return buffer;
+        }
+        StringWriter writer = new StringWriter(SAVE_BUFFER_SIZE);
+        config.save(writer);
         try
         {
-            if (! file.exists())
+            return encoder.encode(CharBuffer.wrap(writer.getBuffer()));
+        }
+        catch (CharacterCodingException e)
+        {
+            throw new ConfigSaveException(config.template(), null, e.getMessage(), e);
+        }
+    }
+
+    static void save(Config config, ByteBuffer buffer)
+    {
+        CharsetEncoder encoder = config.encoder();
+        if (isStrictUtf8(encoder.charset(), encoder.malformedInputAction()))
+        {
+            saveUtf8(config, new Utf8ByteBufferWriter(buffer, false));
+            return;
+        }
+        StringWriter writer = new StringWriter(SAVE_BUFFER_SIZE);
+        config.save(writer);
+        encoder.reset();
+        checkEncoded(config, encoder.encode(CharBuffer.wrap(writer.getBuffer()), buffer, true));
+        checkEncoded(config, encoder.flush(buffer));
+    }
+
+    private static void saveUtf8(Config config, Utf8ByteBufferWriter writer)
+    {
+        config.save(writer);
+        try
+        {
+            writer.close(); // reports unpaired surrogate at the end of data.
+        }
+        catch (IOException e)
+        {
+            throw new ConfigSaveException(config.template(), null, e.getMessage(), e);
+        }
+    }
+
+    private static void checkEncoded(Config config, CoderResult result)
+    {
+        if (result.isOverflow())
+        {
+            throw new BufferOverflowException();
+        }
+        if (result.isError())
+        {
+            try
             {
-                File absoluteFile = file.getAbsoluteFile();
-                absoluteFile.getParentFile().mkdirs();
-                absoluteFile.createNewFile();
+                result.throwException();
+            }
+            catch (CharacterCodingException e)
+            {
+                throw new ConfigSaveException(config.template(), null, e.getMessage(), e);
             }
         }
+    }
+
+    // decoding and encoding of UTF-8 that reports errors is done without charset coders, other coders might replace or ignore malformed input.
+    private static boolean isStrictUtf8(Charset charset, CodingErrorAction malformedInputAction)
+    {
+        return StandardCharsets.UTF_8.equals(charset) && (malformedInputAction == CodingErrorAction.REPORT);
+    }
+
+    static Reader createReader(Config config, File file)
+    {
+        return new LoadedFileReader(createReader(config.template(), file, config.decoder()), config, file);
+    }
+
+    static Reader createSequenceReader(ConfigTemplate<?> template, File file)
+    {
+        return createReader(template, file, copyDecoder(template.getDefaultDecoder()));
+    }
+
+    static boolean isStreamedFrom(Config config, File file)
+    {
+        File absoluteFile = file.getAbsoluteFile();
+        for (ConfigPropertyTemplate<?> property : config.template().getProperties().values())
+        {
+            if (! property.isStreamed())
+            {
+                continue;
+            }
+            Object value = config.get(property.getName());
+            if ((value instanceof StreamedSequence) && ((StreamedSequence<?>) value).getFile().equals(absoluteFile))
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // streamed values are read from target file while config is serialized, so it must be written to other file and moved in place of target.
+    static void saveReplacing(Config config, File file)
+    {
+        replaceWith(config, file, saveToTempFile(config, file));
+    }
+
+    // writes config to temporary file in directory of given file, so it can be later moved in place of it by replaceWith.
+    static File saveToTempFile(Config config, File file)
+    {
+        File absoluteFile = file.getAbsoluteFile();
+        File tempFile = null;
+        try
+        {
+            absoluteFile.getParentFile().mkdirs();
+            tempFile = File.createTempFile(absoluteFile.getName(), ".tmp", absoluteFile.getParentFile());
+            try (OutputStreamWriter outputStreamWriter = createOutputStreamWriter(config, tempFile))
+            {
+                config.save(outputStreamWriter);
+            }
+            File savedFile = tempFile;
+            tempFile = null;
+            return savedFile;
+        }
         catch (IOException e)
         {
-            throw new ConfigLoadException(config.template(), file, "can't create a file.", e);
+            throw new ConfigSaveException(config.template(), file, e.getMessage(), e);
+        }
+        finally
+        {
+            if (tempFile != null)
+            {
+                tempFile.delete();
+            }
         }
+    }
+
+    static void replaceWith(Config config, File file, File tempFile)
+    {
+        File absoluteFile = file.getAbsoluteFile();
+        ConfigReloadService.beforeSave(absoluteFile);
         try
         {
-            FileInputStream fileInputStream = new FileInputStream(file);
-            return new InputStreamReader(fileInputStream, config.decoder());
+            try
+            {
+                Files.move(tempFile.toPath(), absoluteFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            }
+            catch (AtomicMoveNotSupportedException e)
+            {
+                Files.move(tempFile.toPath(), absoluteFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
         }
         catch (IOException e)
         {
-            throw new ConfigLoadException(config.template(), file, e.getMessage(), e);
+            throw new ConfigSaveException(config.template(), file, e.getMessage(), e);
+        }
+        finally
+        {
+            // exists only if it wasn't moved.
+            tempFile.delete();
+            ConfigReloadService.afterSave(config, absoluteFile);
         }
     }
 
-    static InputStreamReader createInputStreamReader(ConfigTemplate<?> template, File file)
+    private static Reader createReader(ConfigTemplate<?> template, File file, CharsetDecoder decoder)
     {
         try
         {
@@ -83,12 +276,79 @@ final class ConfigHelperMethods
         }
         try
         {
+            if (template.getFileLoadMode() == FileLoadMode.MAPPED)
+            {
+                return createMappedReader(file, decoder);
+            }
             FileInputStream fileInputStream = new FileInputStream(file);
-            return new InputStreamReader(fileInputStream, template.getDefaultDecoder());
+            return new InputStreamReader(fileInputStream, decoder);
         }
         catch (IOException e)
         {
             throw new ConfigLoadException(template, file, e.getMessage(), e);
         }
     }
+
+    private static Reader createMappedReader(File file, CharsetDecoder decoder) throws IOException
+    {
+        FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        try
+        {
+            MappedByteBuffer buffer = channel.map(MapMode.READ_ONLY, 0, channel.size());
+            // mapping is released on close, as closing channel doesn't release it and mapped file can't be replaced on some systems.
+            return new ByteBufferReader(buffer, decoder, () ->
+            {
+                try
+                {
+                    channel.close();
+                }
+                finally
+                {
+                    MappedBuffers.unmap(buffer);
+                }
+            });
+        }
+        catch (IOException | RuntimeException e)
+        {
+            channel.close();
+            throw e;
+        }
+    }
+
+    // decoders are stateful, so decoder of template can't be shared by concurrent loads.
+    private static CharsetDecoder copyDecoder(CharsetDecoder decoder)
+    {
+        return decoder.charset().newDecoder().onMalformedInput(decoder.malformedInputAction()).onUnmappableCharacter(decoder.unmappableCharacterAction());
+    }
+
+    // marks file as loaded into given config by current thread until closed, so streamed properties of that config can be bound to it.
+    private static final class LoadedFileReader extends FilterReader
+    {
+        @Nullable private final Object  previous;
+        private                 boolean closed;
+
+        private LoadedFileReader(Reader in, Config config, File file)
+        {
+            super(in);
+            this.previous = StreamedSequence.enterLoad(config, file);
+        }
+
+        @Override
+        public void close() throws IOException
+        {
+            if (this.closed)
+            {
+                return;
+            }
+            this.closed = true;
+            try
+            {
+                super.close();
+            }
+            finally
+            {
+                StreamedSequence.exitLoad(this.previous);
+            }
+        }
+    }
 }
@@ -27,10 +27,13 @@ package org.diorite.config;
 import javax.annotation.Nullable;
 import javax.script.ScriptEngine;
 
+import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
 
 import org.codehaus.groovy.control.CompilerConfiguration;
 import org.codehaus.groovy.control.customizers.ImportCustomizer;
@@ -38,6 +41,8 @@ import org.codehaus.groovy.jsr223.GroovyScriptEngineImpl;
 
 import org.diorite.commons.arrays.DioriteArrayUtils;
 import org.diorite.commons.classes.DynamicClassLoader;
+import org.diorite.config.exceptions.ConfigLoadException;
+import org.diorite.config.impl.ConfigDirectoryLoader;
 import org.diorite.config.impl.ConfigImplementationProvider;
 import org.diorite.config.impl.ConfigTemplateImpl;
 import org.diorite.config.impl.actions.ActionsRegistry;
@@ -50,6 +55,11 @@ import groovy.lang.GroovyClassLoader;
  */
 public final class ConfigManager
 {
+    /**
+     * Glob pattern of yaml files used by default when loading whole directory.
+     */
+    public static final String DEFAULT_FILES_GLOB = "*.{yml,yaml}";
+
     private ConfigManager()
     {
         CompilerConfiguration compilerConfiguration = new CompilerConfiguration();
@@ -170,6 +180,99 @@ public final class ConfigManager
         return configTemplate;
     }
 
+    /**
+     * Load all yaml files ({@code *.yml} and {@code *.yaml}) from given directory in parallel, using one worker thread per available processor. <br>
+     * Loaded configs are bound to their files.
+     *
+     * @param directory
+     *         directory to search for files, subdirectories are not visited.
+     * @param type
+     *         type of config class.
+     * @param <T>
+     *         type of config class.
+     *
+     * @return map of loaded configs by file path.
+     *
+     * @throws ConfigLoadException
+     *         if any file failed to load, after all other files are processed, other failures are added as suppressed exceptions.
+     */
+    public <T extends Config> Map<Path, T> loadAll(Path directory, Class<T> type)
+    {
+        AtomicReference<ConfigLoadException> failure = new AtomicReference<>();
+        Map<Path, T> result = this.loadAll(directory, type, DEFAULT_FILES_GLOB, Runtime.getRuntime().availableProcessors(), (path, exception) ->
+        {
+            if (! failure.compareAndSet(null, exception))
+            {
+                synchronized (failure)
+                {
+                    failure.get().addSuppressed(exception);
+                }
+            }
+        });
+        ConfigLoadException exception = failure.get();
+        if (exception != null)
+        {
+            throw exception;
+        }
+        return result;
+    }
+
+    /**
+     * Load all files matching given glob pattern from given directory in parallel. <br>
+     * Loaded configs are bound to their files, files that failed to load are skipped and reported to error handler.
+     *
+     * @param directory
+     *         directory to search for files, subdirectories are not visited.
+     * @param type
+     *         type of config class.
+     * @param glob
+     *         glob pattern of file names, like {@code *.yml}.
+     * @param parallelism
+     *         number of worker threads.
+     * @param errorHandler
+     *         handler of files that failed to load, invoked from worker threads.
+     * @param <T>
+     *         type of config class.
+     *
+     * @return map of loaded configs by file path.
+     */
+    public <T extends Config> Map<Path, T> loadAll(Path directory, Class<T> type, String glob, int parallelism,
+                                                   BiConsumer<Path, ConfigLoadException> errorHandler)
+    {
+        Map<Path, T> result = new ConcurrentHashMap<>(64);
+        this.loadAll(directory, type, glob, parallelism, result::put, errorHandler);
+        return result;
+    }
+
+    /**
+     * Load all files matching given glob pattern from given directory in parallel, and pass each loaded config to given consumer. <br>
+     * Loaded configs are bound to their files, files that failed to load are skipped and reported to error handler. <br>
+     * Consumer and error handler are invoked from worker threads, possibly concurrently. At most {@code 2 * parallelism} files are loaded and not
+     * yet consumed at any time, so if consumer does not store configs memory usage stays bounded. <br>
+     * Exceptions thrown by consumer or error handler are not reported as failures of files, first of them is rethrown after all files are
+     * processed.
+     *
+     * @param directory
+     *         directory to search for files, subdirectories are not visited.
+     * @param type
+     *         type of config class.
+     * @param glob
+     *         glob pattern of file names, like {@code *.yml}.
+     * @param parallelism
+     *         number of worker threads.
+     * @param consumer
+     *         consumer of loaded configs.
+     * @param errorHandler
+     *         handler of files that failed to load.
+     * @param <T>
+     *         type of config class.
+     */
+    public <T extends Config> void loadAll(Path directory, Class<T> type, String glob, int parallelism, BiConsumer<Path, ? super T> consumer,
+                                           BiConsumer<Path, ConfigLoadException> errorHandler)
+    {
+        new ConfigDirectoryLoader<>(this.getConfigFile(type), parallelism, parallelism * 2).loadAll(directory, glob, consumer, errorHandler);
+    }
+
     /**
      * Create instance of given config type.
      *
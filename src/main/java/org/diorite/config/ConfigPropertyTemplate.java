@@ -98,6 +98,30 @@ public interface ConfigPropertyTemplate<T>
     @Nullable
     T getDefault(Config config);
 
+    /**
+     * Returns true if value of this property is deserialized lazily, on first access instead of on load.
+     *
+     * @return true if value of this property is deserialized lazily.
+     *
+     * @see org.diorite.config.annotations.Lazy
+     */
+    default boolean isLazy()
+    {
+        return false;
+    }
+
+    /**
+     * Returns true if elements of this property are streamed from config file on each iteration instead of being loaded into memory.
+     *
+     * @return true if elements of this property are streamed from config file.
+     *
+     * @see org.diorite.config.annotations.Streamed
+     */
+    default boolean isStreamed()
+    {
+        return false;
+    }
+
     /**
      * Set given value to given property value, template might edit given value according to template settings.
      *
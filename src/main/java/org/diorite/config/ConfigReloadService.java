@@ -0,0 +1,572 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017. Diorite (by Bartłomiej Mazur (aka GotoFinal))
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package org.diorite.config;
+
+import javax.annotation.Nullable;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+
+import org.apache.commons.lang3.builder.ToStringBuilder;
+
+import org.diorite.config.exceptions.ConfigLoadException;
+
+/**
+ * Service that reloads configs when their bound files are changed on disk. <br>
+ * Single watcher thread is used for all watched directories, bursts of events for the same file are coalesced into one reload executed after
+ * debounce delay on worker pool, and changes written by {@link Config#save(File)} or {@link Config#saveAsync(File)} are ignored. <br>
+ * Own saves are recognized by hash of file content, so external change is always reloaded, even if it doesn't change size or modification time
+ * of file. Hashes are remembered per config, so save of one config still reloads other configs bound to the same file. <br>
+ * Configs are reloaded using {@link Config#loadChanges(File)}, so only changed properties are applied.
+ */
+public final class ConfigReloadService implements Closeable
+{
+    private static final Collection<ConfigReloadService> services         = new CopyOnWriteArrayList<>();
+    private static final AtomicInteger                   serviceCounter   = new AtomicInteger();
+    private static final int                             HASH_BUFFER_SIZE = 8192;
+
+    private final long                     debounceNanos;
+    private final WatchService             watchService;
+    private final Thread                   watcherThread;
+    private final ScheduledExecutorService scheduler;
+    private final ExecutorService          workers;
+
+    private final Map<Path, WatchedFile> files       = new ConcurrentHashMap<>(16);
+    // guarded by this.directories
+    private final Map<Path, WatchKey>    directories = new HashMap<>(16);
+
+    private final LongAdder       reloads          = new LongAdder();
+    private final LongAdder       failedReloads    = new LongAdder();
+    private final LongAdder       ignoredSelfSaves = new LongAdder();
+    private final LongAdder       totalLatency     = new LongAdder();
+    private final LongAccumulator maxLatency       = new LongAccumulator(Math::max, 0);
+
+    @Nullable private volatile BiConsumer<Config, ? super RuntimeException> errorHandler;
+    private volatile           boolean                                       closed;
+
+    /**
+     * Create and start new reload service.
+     *
+     * @param debounce
+     *         time to wait after last event of file before it is reloaded.
+     * @param unit
+     *         unit of debounce time.
+     * @param workerThreads
+     *         number of threads used to reload configs.
+     *
+     * @throws IOException
+     *         if watch service can't be created.
+     */
+    public ConfigReloadService(long debounce, TimeUnit unit, int workerThreads) throws IOException
+    {
+        if (workerThreads < 1)
+        {
+            throw new IllegalArgumentException("Worker threads count must be positive: " + workerThreads);
+        }
+        int id = serviceCounter.incrementAndGet();
+        this.debounceNanos = unit.toNanos(debounce);
+        this.watchService = FileSystems.getDefault().newWatchService();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(threadFactory("config-reload-" + id + "-debounce"));
+        this.workers = Executors.newFixedThreadPool(workerThreads, threadFactory("config-reload-" + id + "-worker"));
+        this.watcherThread = threadFactory("config-reload-" + id + "-watcher").newThread(this::watchLoop);
+        this.watcherThread.start();
+        services.add(this);
+    }
+
+    private static ThreadFactory threadFactory(String name)
+    {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable ->
+        {
+            Thread thread = new Thread(runnable, name + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Set handler of reload failures, by default failures are printed to standard error stream.
+     *
+     * @param errorHandler
+     *         handler of reload failures, or null.
+     */
+    public void setErrorHandler(@Nullable BiConsumer<Config, ? super RuntimeException> errorHandler)
+    {
+        this.errorHandler = errorHandler;
+    }
+
+    /**
+     * Start watching bound file of given config, config is reloaded each time that file is changed by something other than this library.
+     *
+     * @param config
+     *         config to watch, it must be bound to file.
+     *
+     * @throws IllegalArgumentException
+     *         if config isn't bound to file.
+     * @throws ConfigLoadException
+     *         if directory of file can't be watched.
+     */
+    public void watch(Config config)
+    {
+        if (this.closed)
+        {
+            throw new IllegalStateException("Reload service is closed.");
+        }
+        File bindFile = config.bindFile();
+        if (bindFile == null)
+        {
+            throw new IllegalArgumentException("Config isn't bound to file: " + config);
+        }
+        Path path = bindFile.toPath().toAbsolutePath().normalize();
+        Path directory = path.getParent();
+        synchronized (this.directories)
+        {
+            if (! this.directories.containsKey(directory))
+            {
+                try
+                {
+                    WatchKey key = directory.register(this.watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+                    this.directories.put(directory, key);
+                }
+                catch (IOException e)
+                {
+                    throw new ConfigLoadException(config.template(), bindFile, "can't watch directory of file.", e);
+                }
+            }
+            WatchedFile watchedFile = this.files.computeIfAbsent(path, WatchedFile::new);
+            WatchedConfig watchedConfig = watchedFile.getConfig(config);
+            if (watchedConfig == null)
+            {
+                watchedConfig = new WatchedConfig(config);
+                watchedFile.configs.add(watchedConfig);
+            }
+            watchedConfig.contentHash = contentHash(path);
+        }
+    }
+
+    /**
+     * Stop watching given config.
+     *
+     * @param config
+     *         config to stop watching.
+     */
+    public void unwatch(Config config)
+    {
+        synchronized (this.directories)
+        {
+            for (WatchedFile watchedFile : this.files.values())
+            {
+                if (watchedFile.configs.removeIf(watchedConfig -> watchedConfig.config == config) && watchedFile.configs.isEmpty())
+                {
+                    this.files.remove(watchedFile.path);
+                    Path directory = watchedFile.path.getParent();
+                    if (this.files.keySet().stream().noneMatch(path -> path.getParent().equals(directory)))
+                    {
+                        WatchKey key = this.directories.remove(directory);
+                        if (key != null)
+                        {
+                            key.cancel();
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Called before config is saved to given file, reloads of that file are postponed until {@link #afterSave(Config, File)} is called.
+     *
+     * @param file
+     *         file that will be saved.
+     */
+    static void beforeSave(File file)
+    {
+        if (services.isEmpty())
+        {
+            return;
+        }
+        Path path = file.toPath().toAbsolutePath().normalize();
+        for (ConfigReloadService service : services)
+        {
+            WatchedFile watchedFile = service.files.get(path);
+            if (watchedFile != null)
+            {
+                watchedFile.saving.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Called after config was saved to given file, hash of saved content is remembered for that config, so resulting file change isn't treated
+     * as external change of it. Other configs bound to the same file are still reloaded.
+     *
+     * @param config
+     *         saved config.
+     * @param file
+     *         saved file.
+     */
+    static void afterSave(Config config, File file)
+    {
+        if (services.isEmpty())
+        {
+            return;
+        }
+        Path path = file.toPath().toAbsolutePath().normalize();
+        for (ConfigReloadService service : services)
+        {
+            WatchedFile watchedFile = service.files.get(path);
+            if ((watchedFile != null) && (watchedFile.saving.get() > 0))
+            {
+                WatchedConfig watchedConfig = watchedFile.getConfig(config);
+                if (watchedConfig != null)
+                {
+                    watchedConfig.contentHash = contentHash(path);
+                }
+                watchedFile.saving.decrementAndGet();
+            }
+        }
+    }
+
+    private void watchLoop()
+    {
+        while (! this.closed)
+        {
+            WatchKey key;
+            try
+            {
+                key = this.watchService.take();
+            }
+            catch (InterruptedException | ClosedWatchServiceException e)
+            {
+                return;
+            }
+            Path directory = (Path) key.watchable();
+            for (WatchEvent<?> event : key.pollEvents())
+            {
+                if (event.kind() == StandardWatchEventKinds.OVERFLOW)
+                {
+                    // events were lost, check all files of this directory.
+                    for (WatchedFile watchedFile : this.files.values())
+                    {
+                        if (watchedFile.path.getParent().equals(directory))
+                        {
+                            this.schedule(watchedFile);
+                        }
+                    }
+                    continue;
+                }
+                WatchedFile watchedFile = this.files.get(directory.resolve((Path) event.context()));
+                if (watchedFile != null)
+                {
+                    this.schedule(watchedFile);
+                }
+            }
+            key.reset();
+        }
+    }
+
+    private void schedule(WatchedFile watchedFile)
+    {
+        synchronized (watchedFile)
+        {
+            if (watchedFile.firstEventTime == 0)
+            {
+                watchedFile.firstEventTime = System.nanoTime();
+            }
+            ScheduledFuture<?> pending = watchedFile.pending;
+            if (pending != null)
+            {
+                pending.cancel(false);
+            }
+            watchedFile.pending = this.scheduler.schedule(() -> this.workers.execute(() -> this.reload(watchedFile)), this.debounceNanos,
+                                                          TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void reload(WatchedFile watchedFile)
+    {
+        long firstEventTime;
+        synchronized (watchedFile)
+        {
+            firstEventTime = watchedFile.firstEventTime;
+            watchedFile.firstEventTime = 0;
+            watchedFile.pending = null;
+        }
+        // serialize reloads of the same file, next burst will wait for current reload.
+        synchronized (watchedFile.reloadLock)
+        {
+            if (watchedFile.saving.get() > 0)
+            {
+                // file is being saved right now, check it again when save is done.
+                this.schedule(watchedFile);
+                return;
+            }
+            byte[] contentHash = contentHash(watchedFile.path);
+            boolean reloaded = false;
+            for (WatchedConfig watchedConfig : watchedFile.configs)
+            {
+                if (Arrays.equals(contentHash, watchedConfig.contentHash))
+                {
+                    continue;
+                }
+                watchedConfig.contentHash = contentHash;
+                reloaded = true;
+                Config config = watchedConfig.config;
+                try
+                {
+                    config.loadChanges(watchedFile.path.toFile());
+                }
+                catch (RuntimeException e)
+                {
+                    this.failedReloads.increment();
+                    BiConsumer<Config, ? super RuntimeException> errorHandler = this.errorHandler;
+                    if (errorHandler != null)
+                    {
+                        errorHandler.accept(config, e);
+                    }
+                    else
+                    {
+                        e.printStackTrace();
+                    }
+                }
+            }
+            if (! reloaded)
+            {
+                this.ignoredSelfSaves.increment();
+                return;
+            }
+            if (firstEventTime != 0)
+            {
+                long latency = System.nanoTime() - firstEventTime;
+                this.totalLatency.add(latency);
+                this.maxLatency.accumulate(latency);
+            }
+            this.reloads.increment();
+        }
+    }
+
+    @Nullable
+    private static byte[] contentHash(Path path)
+    {
+        MessageDigest digest;
+        try
+        {
+            digest = MessageDigest.getInstance("SHA-256");
+        }
+        catch (NoSuchAlgorithmException e)
+        {
+            throw new InternalError("SHA-256 is required to be supported by every java platform.", e);
+        }
+        try (InputStream inputStream = Files.newInputStream(path))
+        {
+            byte[] buffer = new byte[HASH_BUFFER_SIZE];
+            int read;
+            while ((read = inputStream.read(buffer)) != - 1)
+            {
+                digest.update(buffer, 0, read);
+            }
+            return digest.digest();
+        }
+        catch (IOException e)
+        {
+            return null;
+        }
+    }
+
+    /**
+     * Returns number of watched files.
+     *
+     * @return number of watched files.
+     */
+    public int getWatchedFilesCount()
+    {
+        return this.files.size();
+    }
+
+    /**
+     * Returns number of watched directories.
+     *
+     * @return number of watched directories.
+     */
+    public int getWatchedDirectoriesCount()
+    {
+        synchronized (this.directories)
+        {
+            return this.directories.size();
+        }
+    }
+
+    /**
+     * Returns number of executed reloads of files.
+     *
+     * @return number of executed reloads.
+     */
+    public long getReloadCount()
+    {
+        return this.reloads.sum();
+    }
+
+    /**
+     * Returns number of config reloads that failed.
+     *
+     * @return number of failed config reloads.
+     */
+    public long getFailedReloadCount()
+    {
+        return this.failedReloads.sum();
+    }
+
+    /**
+     * Returns number of file changes ignored because they were made by this library.
+     *
+     * @return number of ignored self saves.
+     */
+    public long getIgnoredSelfSaveCount()
+    {
+        return this.ignoredSelfSaves.sum();
+    }
+
+    /**
+     * Returns average time between first change event of file and end of its reload, in nanoseconds.
+     *
+     * @return average reload latency in nanoseconds.
+     */
+    public long getAverageReloadLatency()
+    {
+        long reloads = this.reloads.sum();
+        return (reloads == 0) ? 0 : (this.totalLatency.sum() / reloads);
+    }
+
+    /**
+     * Returns max time between first change event of file and end of its reload, in nanoseconds.
+     *
+     * @return max reload latency in nanoseconds.
+     */
+    public long getMaxReloadLatency()
+    {
+        return this.maxLatency.get();
+    }
+
+    /**
+     * Stop watching all files and shutdown threads of this service.
+     */
+    @Override
+    public void close() throws IOException
+    {
+        if (this.closed)
+        {
+            return;
+        }
+        this.closed = true;
+        services.remove(this);
+        this.watchService.close();
+        this.watcherThread.interrupt();
+        this.scheduler.shutdownNow();
+        this.workers.shutdown();
+        this.files.clear();
+        synchronized (this.directories)
+        {
+            this.directories.clear();
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return new ToStringBuilder(this).appendSuper(super.toString()).append("watchedFiles", this.files.size())
+                                        .append("reloads", this.reloads.sum()).append("closed", this.closed).toString();
+    }
+
+    private static final class WatchedFile
+    {
+        private final     Path                                path;
+        private final     CopyOnWriteArrayList<WatchedConfig> configs    = new CopyOnWriteArrayList<>();
+        private final     Object                              reloadLock = new Object();
+        private final     AtomicInteger                       saving     = new AtomicInteger();
+        // guarded by this
+        @Nullable private ScheduledFuture<?>                  pending;
+        private           long                                firstEventTime;
+
+        private WatchedFile(Path path)
+        {
+            this.path = path;
+        }
+
+        // configs are matched by identity, as equal configs are still separate instances that need separate reloads.
+        @Nullable
+        private WatchedConfig getConfig(Config config)
+        {
+            for (WatchedConfig watchedConfig : this.configs)
+            {
+                if (watchedConfig.config == config)
+                {
+                    return watchedConfig;
+                }
+            }
+            return null;
+        }
+    }
+
+    private static final class WatchedConfig
+    {
+        private final              Config config;
+        // hash of file content this config is in sync with.
+        @Nullable private volatile byte[] contentHash;
+
+        private WatchedConfig(Config config)
+        {
+            this.config = config;
+        }
+    }
+}
@@ -0,0 +1,346 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017. Diorite (by Bartłomiej Mazur (aka GotoFinal))
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package org.diorite.config;
+
+import javax.annotation.Nullable;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.yaml.snakeyaml.nodes.Node;
+import org.yaml.snakeyaml.nodes.Tag;
+
+import org.diorite.config.exceptions.ConfigLoadException;
+import org.diorite.config.serialization.Serialization;
+import org.diorite.config.serialization.snakeyaml.YamlNodeCodec;
+
+/**
+ * Optional cache of parsed config files, selected per template by {@link ConfigTemplate#setSnapshotCache(ConfigSnapshotCache)}. <br>
+ * Each loaded file gets a snapshot with compact binary form of its parsed yaml representation, so next loads of unchanged file skip scanning
+ * and parsing of yaml and only construct values from stored representation. <br>
+ * Snapshot is used only when size and modification time of file and fingerprint of config template match, otherwise file is parsed again
+ * (using {@link ConfigTemplate#getFileLoadMode() load mode} of template) and snapshot is replaced. Content hash of file is computed only when
+ * snapshot is written, or when file was modified so close to writing of snapshot that change might not be visible in modification time. <br>
+ * Values are still deserialized on each load, so changes of registered serializers are always respected. <br>
+ * Templates with {@link org.diorite.config.annotations.Streamed} properties don't use snapshots, as their files are never read as a whole.
+ */
+public final class ConfigSnapshotCache
+{
+    private static final int    MAGIC            = 0x44435331;
+    private static final int    VERSION          = 2;
+    private static final String EXTENSION        = ".snapshot";
+    private static final int    HASH_BUFFER_SIZE = 8192;
+    // covers coarse timestamps of file systems like FAT, edits made in this window after file was read could keep its modification time.
+    private static final long   RACY_WINDOW      = 2000;
+
+    @Nullable private final File directory;
+
+    private ConfigSnapshotCache(@Nullable File directory)
+    {
+        this.directory = directory;
+    }
+
+    /**
+     * Returns cache that stores snapshot of each config file in hidden file next to it.
+     *
+     * @return cache that stores snapshots next to config files.
+     */
+    public static ConfigSnapshotCache nextToFile()
+    {
+        return new ConfigSnapshotCache(null);
+    }
+
+    /**
+     * Returns cache that stores snapshots of all config files in given directory, named by hash of config file path.
+     *
+     * @param directory
+     *         directory for snapshot files.
+     *
+     * @return cache that stores snapshots in given directory.
+     */
+    public static ConfigSnapshotCache inDirectory(File directory)
+    {
+        return new ConfigSnapshotCache(directory.getAbsoluteFile());
+    }
+
+    /**
+     * Returns snapshot file used for given config file.
+     *
+     * @param file
+     *         config file.
+     *
+     * @return snapshot file of given config file.
+     */
+    public File getSnapshotFile(File file)
+    {
+        File absoluteFile = file.getAbsoluteFile();
+        if (this.directory == null)
+        {
+            return new File(absoluteFile.getParentFile(), "." + absoluteFile.getName() + EXTENSION);
+        }
+        byte[] pathHash = sha256(absoluteFile.getPath().getBytes(StandardCharsets.UTF_8));
+        StringBuilder name = new StringBuilder(40 + EXTENSION.length());
+        for (int i = 0; i < 20; i++)
+        {
+            name.append(Character.forDigit((pathHash[i] >> 4) & 0xF, 16)).append(Character.forDigit(pathHash[i] & 0xF, 16));
+        }
+        return new File(this.directory, name.append(EXTENSION).toString());
+    }
+
+    /**
+     * Remove snapshot of given config file if exists.
+     *
+     * @param file
+     *         config file.
+     */
+    public void invalidate(File file)
+    {
+        this.getSnapshotFile(file).delete();
+    }
+
+    /**
+     * Load given config from file using its snapshot if still valid, or parse file and refresh snapshot otherwise.
+     *
+     * @param config
+     *         config to load.
+     * @param file
+     *         file to load from.
+     *
+     * @return false if snapshots can't be used for this config or file, and it should be loaded normally.
+     */
+    boolean load(Config config, File file)
+    {
+        ConfigTemplate<?> template = config.template();
+        File absoluteFile = file.getAbsoluteFile();
+        if (! absoluteFile.isFile() || hasStreamedProperties(template))
+        {
+            return false;
+        }
+        long size = absoluteFile.length();
+        long lastModified = absoluteFile.lastModified();
+        if (size == 0)
+        {
+            return false;
+        }
+        long templateFingerprint = fingerprint(template);
+        File snapshotFile = this.getSnapshotFile(absoluteFile);
+
+        Node node = readSnapshot(snapshotFile, absoluteFile, size, lastModified, templateFingerprint);
+        if (node == null)
+        {
+            byte[] contentHash;
+            try
+            {
+                contentHash = contentHash(absoluteFile);
+            }
+            catch (IOException e)
+            {
+                throw new ConfigLoadException(template, file, e.getMessage(), e);
+            }
+            try (Reader reader = ConfigHelperMethods.createReader(config, absoluteFile))
+            {
+                // composed like on normal load, so scalars of top-level properties get the same tags as without snapshots.
+                node = Serialization.getInstance().composeYaml(template, reader);
+            }
+            catch (IOException e)
+            {
+                throw new ConfigLoadException(template, file, e.getMessage(), e);
+            }
+            if ((node == null) || Tag.NULL.equals(node.getTag()))
+            {
+                return true;
+            }
+            // file changed while it was read, so hash and parsed content could belong to different versions of it.
+            if ((absoluteFile.length() == size) && (absoluteFile.lastModified() == lastModified))
+            {
+                // must be written before loading, as construction can modify nodes, e.g. by flattening merge keys.
+                writeSnapshot(snapshotFile, node, size, lastModified, templateFingerprint, contentHash);
+            }
+        }
+        config.load(node);
+        return true;
+    }
+
+    @Nullable
+    private static Node readSnapshot(File snapshotFile, File file, long size, long lastModified, long templateFingerprint)
+    {
+        if (! snapshotFile.isFile())
+        {
+            return null;
+        }
+        long snapshotModified = snapshotFile.lastModified();
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(snapshotFile))))
+        {
+            if ((input.readInt() != MAGIC) || (input.readInt() != VERSION) || (input.readLong() != size) || (input.readLong() != lastModified) ||
+                (input.readLong() != templateFingerprint))
+            {
+                return null;
+            }
+            byte[] storedHash = new byte[32];
+            input.readFully(storedHash);
+            if (((snapshotModified - lastModified) <= RACY_WINDOW) && ! Arrays.equals(storedHash, contentHash(file)))
+            {
+                return null;
+            }
+            return YamlNodeCodec.read(input);
+        }
+        catch (IOException | RuntimeException e)
+        {
+            // corrupted or unreadable snapshot is ignored and replaced.
+            return null;
+        }
+    }
+
+    private static void writeSnapshot(File snapshotFile, Node node, long size, long lastModified, long templateFingerprint, byte[] contentHash)
+    {
+        File tempFile = null;
+        try
+        {
+            File directory = snapshotFile.getParentFile();
+            directory.mkdirs();
+            tempFile = File.createTempFile(snapshotFile.getName(), ".tmp", directory);
+            try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile))))
+            {
+                output.writeInt(MAGIC);
+                output.writeInt(VERSION);
+                output.writeLong(size);
+                output.writeLong(lastModified);
+                output.writeLong(templateFingerprint);
+                output.write(contentHash);
+                YamlNodeCodec.write(node, output);
+            }
+            try
+            {
+                Files.move(tempFile.toPath(), snapshotFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            }
+            catch (AtomicMoveNotSupportedException e)
+            {
+                Files.move(tempFile.toPath(), snapshotFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+            tempFile = null;
+        }
+        catch (IOException e)
+        {
+            // snapshots are only a cache, config is still loaded from parsed file.
+            snapshotFile.delete();
+        }
+        finally
+        {
+            if (tempFile != null)
+            {
+                tempFile.delete();
+            }
+        }
+    }
+
+    private static boolean hasStreamedProperties(ConfigTemplate<?> template)
+    {
+        for (ConfigPropertyTemplate<?> property : template.getProperties().values())
+        {
+            if (property.isStreamed())
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // changes of config type, its properties or their types invalidate snapshots.
+    private static long fingerprint(ConfigTemplate<?> template)
+    {
+        StringBuilder builder = new StringBuilder(256);
+        builder.append(template.getConfigType().getName());
+        for (ConfigPropertyTemplate<?> property : template.getOrderedProperties().values())
+        {
+            builder.append('\n').append(property.getName()).append(':').append(property.getGenericType().getTypeName());
+            if (property.isLazy())
+            {
+                builder.append(":lazy");
+            }
+        }
+        byte[] hash = sha256(builder.toString().getBytes(StandardCharsets.UTF_8));
+        long result = 0;
+        for (int i = 0; i < 8; i++)
+        {
+            result = (result << 8) | (hash[i] & 0xFF);
+        }
+        return result;
+    }
+
+    private static byte[] contentHash(File file) throws IOException
+    {
+        MessageDigest digest = sha256();
+        try (InputStream inputStream = new FileInputStream(file))
+        {
+            byte[] buffer = new byte[HASH_BUFFER_SIZE];
+            int read;
+            while ((read = inputStream.read(buffer)) != - 1)
+            {
+                digest.update(buffer, 0, read);
+            }
+        }
+        return digest.digest();
+    }
+
+    private static byte[] sha256(byte[] bytes)
+    {
+        return sha256().digest(bytes);
+    }
+
+    private static MessageDigest sha256()
+    {
+        try
+        {
+            return MessageDigest.getInstance("SHA-256");
+        }
+        catch (NoSuchAlgorithmException e)
+        {
+            throw new InternalError("SHA-256 is not supported", e);
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return new ToStringBuilder(this).appendSuper(super.toString()).append("directory", this.directory).toString();
+    }
+}
@@ -28,7 +28,6 @@ import javax.annotation.Nullable;
 import javax.annotation.WillNotClose;
 
 import java.io.File;
-import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
@@ -37,8 +36,10 @@ import java.nio.charset.CharsetDecoder;
 import java.nio.charset.CharsetEncoder;
 import java.nio.charset.CodingErrorAction;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import org.yaml.snakeyaml.nodes.Node;
 
-import org.diorite.config.exceptions.ConfigLoadException;
 import org.diorite.config.serialization.comments.DocumentComments;
 
 /**
@@ -174,6 +175,60 @@ public interface ConfigTemplate<T extends Config>
      */
     void setDefaultDecoder(CharsetDecoder decoder);
 
+    /**
+     * Returns mode used to read files of this config. <br>
+     * Default implementation always returns {@link FileLoadMode#STREAM}.
+     *
+     * @return mode used to read files of this config.
+     */
+    default FileLoadMode getFileLoadMode()
+    {
+        return FileLoadMode.STREAM;
+    }
+
+    /**
+     * Set mode used to read files of this config, {@link FileLoadMode#STREAM} is used by default. <br>
+     * Default implementation throws {@link UnsupportedOperationException}.
+     *
+     * @param fileLoadMode
+     *         new file load mode.
+     *
+     * @throws UnsupportedOperationException
+     *         if this template only supports {@link FileLoadMode#STREAM} mode.
+     */
+    default void setFileLoadMode(FileLoadMode fileLoadMode)
+    {
+        throw new UnsupportedOperationException("File load modes aren't supported by: " + this.getClass().getName());
+    }
+
+    /**
+     * Returns cache of parsed config files used by this template, or null if files are always parsed. <br>
+     * Default implementation always returns null.
+     *
+     * @return cache of parsed config files.
+     */
+    @Nullable
+    default ConfigSnapshotCache getSnapshotCache()
+    {
+        return null;
+    }
+
+    /**
+     * Set cache of parsed config files used by this template, null disables snapshots, they are disabled by default. <br>
+     * Default implementation throws {@link UnsupportedOperationException}.
+     *
+     * @param snapshotCache
+     *         new snapshot cache.
+     *
+     * @throws UnsupportedOperationException
+     *         if this template doesn't support snapshots.
+     * @see ConfigSnapshotCache
+     */
+    default void setSnapshotCache(@Nullable ConfigSnapshotCache snapshotCache)
+    {
+        throw new UnsupportedOperationException("Snapshot cache isn't supported by: " + this.getClass().getName());
+    }
+
     /**
      * Select charset for loading this config file.
      *
@@ -203,14 +258,23 @@ public interface ConfigTemplate<T extends Config>
      */
     default T load(File file)
     {
-        try (InputStreamReader inputStreamReader = ConfigHelperMethods.createInputStreamReader(this, file))
-        {
-            return this.load(inputStreamReader);
-        }
-        catch (IOException e)
-        {
-            throw new ConfigLoadException(this, file, e);
-        }
+        T implementation = this.create();
+        implementation.load(file);
+        return implementation;
+    }
+
+    /**
+     * Load config from given file asynchronously, using {@link ConfigFileExecutor#getDefault() default file executor}. <br>
+     * Load is started after all previous operations on that file are done.
+     *
+     * @param file
+     *         file to use.
+     *
+     * @return future completed with loaded config file.
+     */
+    default CompletableFuture<T> loadAsync(File file)
+    {
+        return ConfigFileExecutor.getDefault().supply(file, () -> this.load(file));
     }
 
     /**
@@ -227,20 +291,20 @@ public interface ConfigTemplate<T extends Config>
         return this.load(new InputStreamReader(inputStream, this.getDefaultDecoder()));
     }
 
-//    /**
-//     * Load config from yaml node.
-//     *
-//     * @param node
-//     *         node to load.
-//     *
-//     * @return loaded config file.
-//     */
-//    default T load(Node node)
-//    {
-//        T implementation = this.create();
-//        implementation.load(node);
-//        return implementation;
-//    }
+    /**
+     * Load config from yaml node.
+     *
+     * @param node
+     *         node to load.
+     *
+     * @return loaded config file.
+     */
+    default T load(Node node)
+    {
+        T implementation = this.create();
+        implementation.load(node);
+        return implementation;
+    }
 
     /**
      * Load config from reader.
@@ -257,4 +321,39 @@ public interface ConfigTemplate<T extends Config>
         implementation.load(reader);
         return implementation;
     }
+
+    /**
+     * Load config from given file, reading and deserializing top-level keys one by one.
+     *
+     * @param file
+     *         file to use.
+     *
+     * @return loaded config file.
+     *
+     * @see Config#loadStreaming(Reader)
+     */
+    default T loadStreaming(File file)
+    {
+        T implementation = this.create();
+        implementation.loadStreaming(file);
+        return implementation;
+    }
+
+    /**
+     * Load config from reader, reading and deserializing top-level keys one by one.
+     * Reader isn't automatically closed here!
+     *
+     * @param reader
+     *         reader to use.
+     *
+     * @return loaded config file.
+     *
+     * @see Config#loadStreaming(Reader)
+     */
+    default T loadStreaming(@WillNotClose Reader reader)
+    {
+        T implementation = this.create();
+        implementation.loadStreaming(reader);
+        return implementation;
+    }
 }
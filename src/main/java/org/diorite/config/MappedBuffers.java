@@ -0,0 +1,115 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017. Diorite (by Bartłomiej Mazur (aka GotoFinal))
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package org.diorite.config;
+
+import javax.annotation.Nullable;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+
+/**
+ * Releases memory mappings of files without waiting for garbage collector, so file can be saved or replaced right after it was read, on some
+ * systems (like Windows) mapped files can't be changed. <br>
+ * If mapping can't be released explicitly on current JVM, it is released by garbage collector as usual.
+ */
+final class MappedBuffers
+{
+    @Nullable private static final Unmapper unmapper = createUnmapper();
+
+    private MappedBuffers()
+    {
+    }
+
+    /**
+     * Release mapping of given buffer, buffer must not be used after this method is invoked.
+     *
+     * @param buffer
+     *         buffer to release.
+     *
+     * @return true if mapping was released, false if it is left for garbage collector.
+     */
+    static boolean unmap(MappedByteBuffer buffer)
+    {
+        Unmapper unmapper = MappedBuffers.unmapper;
+        if ((unmapper == null) || ! buffer.isDirect())
+        {
+            return false;
+        }
+        try
+        {
+            unmapper.unmap(buffer);
+            return true;
+        }
+        catch (ReflectiveOperationException | RuntimeException e)
+        {
+            return false;
+        }
+    }
+
+    @Nullable
+    private static Unmapper createUnmapper()
+    {
+        try
+        {
+            // java 9 and newer
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+            Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            Object unsafe = theUnsafe.get(null);
+            return buffer -> invokeCleaner.invoke(unsafe, buffer);
+        }
+        catch (ReflectiveOperationException | RuntimeException e)
+        {
+            // not available, try java 8 way.
+        }
+        try
+        {
+            Method cleanerMethod = Class.forName("sun.nio.ch.DirectBuffer").getMethod("cleaner");
+            Method cleanMethod = Class.forName("sun.misc.Cleaner").getMethod("clean");
+            return buffer ->
+            {
+                Object cleaner = cleanerMethod.invoke(buffer);
+                if (cleaner != null)
+                {
+                    cleanMethod.invoke(cleaner);
+                }
+            };
+        }
+        catch (ReflectiveOperationException | RuntimeException e)
+        {
+            return null;
+        }
+    }
+
+    @FunctionalInterface
+    private interface Unmapper
+    {
+        void unmap(ByteBuffer buffer) throws ReflectiveOperationException;
+    }
+}
@@ -0,0 +1,449 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017. Diorite (by Bartłomiej Mazur (aka GotoFinal))
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.diorite.config;
+
+import javax.annotation.Nullable;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.lang.ref.PhantomReference;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import org.apache.commons.lang3.builder.ToStringBuilder;
+
+import org.diorite.config.exceptions.ConfigLoadException;
+import org.diorite.config.serialization.DeserializationData;
+import org.diorite.config.serialization.Serialization;
+import org.diorite.config.serialization.YamlDeserializationData;
+
+/**
+ * Read-only sequence of config property elements that are parsed and deserialized on each iteration straight from config file, so whole sequence
+ * is never kept in memory. <br>
+ * Each iteration opens file again and reads current content of it, iterators are closed automatically when exhausted, iterator that is
+ * abandoned earlier must be {@link CloseableIterator#close() closed}, so partial iteration should be done using {@link #iterator()} or
+ * {@link #stream()} in try-with-resources block. As last resort, file of iterator that was abandoned without closing is released after that
+ * iterator is garbage collected, when next iterator of any streamed sequence is created. <br>
+ * Each iterator owns yaml engine taken from pool until it is exhausted or closed, so single iterator should not be shared between threads.
+ *
+ * @param <T>
+ *         type of elements.
+ *
+ * @see org.diorite.config.annotations.Streamed
+ */
+public final class StreamedSequence<T> implements Iterable<T>
+{
+    private static final ThreadLocal<LoadedFile> loadedFile         = new ThreadLocal<>();
+    private static final ReferenceQueue<Object>  abandonedIterators = new ReferenceQueue<>();
+    private static final Set<IteratorReference>  openIterators      = ConcurrentHashMap.newKeySet();
+
+    private final ConfigTemplate<?> template;
+    private final File              file;
+    private final String            key;
+    private final Class<T>          type;
+
+    public StreamedSequence(ConfigTemplate<?> template, File file, String key, Class<T> type)
+    {
+        this.template = template;
+        this.file = file.getAbsoluteFile();
+        this.key = key;
+        this.type = type;
+    }
+
+    /**
+     * Returns file elements are read from.
+     *
+     * @return file elements are read from.
+     */
+    public File getFile()
+    {
+        return this.file;
+    }
+
+    /**
+     * Returns top-level key of sequence in file.
+     *
+     * @return top-level key of sequence.
+     */
+    public String getKey()
+    {
+        return this.key;
+    }
+
+    /**
+     * Returns type of elements.
+     *
+     * @return type of elements.
+     */
+    public Class<T> getType()
+    {
+        return this.type;
+    }
+
+    /**
+     * Returns new iterator over elements, iterator must be closed if it isn't iterated to the end.
+     *
+     * @return new iterator over elements.
+     */
+    @Override
+    public CloseableIterator<T> iterator()
+    {
+        return new SequenceIterator();
+    }
+
+    @Override
+    public void forEach(Consumer<? super T> action)
+    {
+        try (SequenceIterator iterator = new SequenceIterator())
+        {
+            while (iterator.hasNext())
+            {
+                action.accept(iterator.next());
+            }
+        }
+    }
+
+    /**
+     * Returns sequential stream of elements, stream should be closed after use to release file.
+     *
+     * @return stream of elements.
+     */
+    public Stream<T> stream()
+    {
+        SequenceIterator iterator = new SequenceIterator();
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED), false).onClose(iterator::close);
+    }
+
+    /**
+     * Read all elements into new list.
+     *
+     * @return new list of all elements.
+     */
+    public List<T> toList()
+    {
+        List<T> list = new ArrayList<>(16);
+        this.forEach(list::add);
+        return list;
+    }
+
+    /**
+     * Returns given iterable as collection, streamed sequences and other iterables are read into new list.
+     *
+     * @param iterable
+     *         iterable to convert.
+     * @param <T>
+     *         type of elements.
+     *
+     * @return given iterable as collection.
+     */
+    @Nullable
+    @SuppressWarnings("unchecked")
+    public static <T> Collection<T> toCollection(@Nullable Iterable<T> iterable)
+    {
+        if ((iterable == null) || (iterable instanceof Collection))
+        {
+            return (Collection<T>) iterable;
+        }
+        if (iterable instanceof StreamedSequence)
+        {
+            return ((StreamedSequence<T>) iterable).toList();
+        }
+        List<T> list = new ArrayList<>(16);
+        iterable.forEach(list::add);
+        return list;
+    }
+
+    /**
+     * Deserialize sequence under given top-level key of given config, if that config instance is loaded from file by current thread, streamed
+     * sequence backed by that file is returned, otherwise (including values of nested configs, even of the same type) elements are deserialized
+     * into new list.
+     *
+     * @param config
+     *         config that owns deserialized property.
+     * @param data
+     *         deserialization data.
+     * @param key
+     *         top-level key of sequence.
+     * @param type
+     *         type of elements.
+     * @param <T>
+     *         type of elements.
+     *
+     * @return streamed sequence or list of elements.
+     */
+    public static <T> Iterable<T> deserialize(Config config, DeserializationData data, String key, Class<T> type)
+    {
+        LoadedFile loaded = loadedFile.get();
+        if ((loaded == null) || (loaded.config != config) || ! (data instanceof YamlDeserializationData))
+        {
+            List<T> list = new ArrayList<>(10);
+            data.getAsCollection(key, type, list);
+            return list;
+        }
+        return new StreamedSequence<>(config.template(), loaded.file, key, type);
+    }
+
+    /**
+     * Mark given file as loaded into given config by this thread, until {@link #exitLoad(Object)} is invoked.
+     *
+     * @param config
+     *         config instance that is loaded.
+     * @param file
+     *         loaded file.
+     *
+     * @return state to restore on exit.
+     */
+    @Nullable
+    static Object enterLoad(Config config, File file)
+    {
+        LoadedFile previous = loadedFile.get();
+        loadedFile.set(new LoadedFile(config, file));
+        return previous;
+    }
+
+    /**
+     * Restore state of loaded file from before last {@link #enterLoad(Config, File)}.
+     *
+     * @param previous
+     *         state returned by enter method.
+     */
+    static void exitLoad(@Nullable Object previous)
+    {
+        if (previous == null)
+        {
+            loadedFile.remove();
+        }
+        else
+        {
+            loadedFile.set((LoadedFile) previous);
+        }
+    }
+
+    @Override
+    public boolean equals(Object o)
+    {
+        if (this == o)
+        {
+            return true;
+        }
+        if (! (o instanceof StreamedSequence))
+        {
+            return false;
+        }
+        StreamedSequence<?> that = (StreamedSequence<?>) o;
+        return this.template.equals(that.template) && this.file.equals(that.file) && this.key.equals(that.key) && this.type.equals(that.type);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return Objects.hash(this.template, this.file, this.key, this.type);
+    }
+
+    @Override
+    public String toString()
+    {
+        return new ToStringBuilder(this).appendSuper(super.toString()).append("file", this.file).append("key", this.key)
+                                        .append("type", this.type.getName()).toString();
+    }
+
+    // closes readers and yaml engines of iterators that were garbage collected without being closed.
+    private static void closeAbandonedIterators()
+    {
+        Reference<?> reference;
+        while ((reference = abandonedIterators.poll()) != null)
+        {
+            IteratorReference iteratorReference = (IteratorReference) reference;
+            if (openIterators.remove(iteratorReference))
+            {
+                CloseableIterator<?> elements = iteratorReference.elements;
+                if (elements != null)
+                {
+                    elements.close();
+                }
+                try
+                {
+                    iteratorReference.reader.close();
+                }
+                catch (IOException ignored)
+                {
+                }
+            }
+        }
+    }
+
+    /**
+     * Iterator that keeps its resources, like file or yaml engine, until it is exhausted or closed.
+     *
+     * @param <T>
+     *         type of elements.
+     */
+    public interface CloseableIterator<T> extends Iterator<T>, Closeable
+    {
+        /**
+         * Release resources used by this iterator, closed iterator has no more elements.
+         */
+        @Override
+        void close();
+    }
+
+    private final class SequenceIterator implements CloseableIterator<T>
+    {
+        private final Reader               reader;
+        private final CloseableIterator<T> iterator;
+        private final IteratorReference    reference;
+        private       boolean              closed;
+
+        SequenceIterator()
+        {
+            closeAbandonedIterators();
+            File file = StreamedSequence.this.file;
+            if (! file.exists())
+            {
+                throw new ConfigLoadException(StreamedSequence.this.template, file, "file of streamed sequence '" + StreamedSequence.this.key +
+                                                                                    "' doesn't exist.");
+            }
+            this.reader = ConfigHelperMethods.createSequenceReader(StreamedSequence.this.template, file);
+            this.reference = new IteratorReference(this, this.reader);
+            openIterators.add(this.reference);
+            try
+            {
+                this.iterator = Serialization.getInstance().fromYamlSequence(this.reader, StreamedSequence.this.key, StreamedSequence.this.type);
+                this.reference.elements = this.iterator;
+            }
+            catch (RuntimeException e)
+            {
+                this.close();
+                throw e;
+            }
+        }
+
+        @Override
+        public boolean hasNext()
+        {
+            if (this.closed)
+            {
+                return false;
+            }
+            try
+            {
+                if (this.iterator.hasNext())
+                {
+                    return true;
+                }
+            }
+            catch (RuntimeException e)
+            {
+                this.close();
+                throw new ConfigLoadException(StreamedSequence.this.template, StreamedSequence.this.file, e.getMessage(), e);
+            }
+            this.close();
+            return false;
+        }
+
+        @Override
+        public T next()
+        {
+            if (! this.hasNext())
+            {
+                throw new NoSuchElementException();
+            }
+            try
+            {
+                return this.iterator.next();
+            }
+            catch (RuntimeException e)
+            {
+                this.close();
+                throw new ConfigLoadException(StreamedSequence.this.template, StreamedSequence.this.file, e.getMessage(), e);
+            }
+        }
+
+        @Override
+        public void close()
+        {
+            if (this.closed)
+            {
+                return;
+            }
+            this.closed = true;
+            openIterators.remove(this.reference);
+            this.reference.clear();
+            // iterator is null if creating it failed.
+            if (this.iterator != null)
+            {
+                this.iterator.close();
+            }
+            try
+            {
+                this.reader.close();
+            }
+            catch (IOException e)
+            {
+                throw new ConfigLoadException(StreamedSequence.this.template, StreamedSequence.this.file, e.getMessage(), e);
+            }
+        }
+    }
+
+    private static final class LoadedFile
+    {
+        private final Config config;
+        private final File   file;
+
+        private LoadedFile(Config config, File file)
+        {
+            this.config = config;
+            this.file = file;
+        }
+    }
+
+    // reader and elements of iterator are kept here, so they can be closed after iterator itself is collected.
+    private static final class IteratorReference extends PhantomReference<Object>
+    {
+        private final              Reader               reader;
+        @Nullable private volatile CloseableIterator<?> elements;
+
+        private IteratorReference(Object iterator, Reader reader)
+        {
+            super(iterator, abandonedIterators);
+            this.reader = reader;
+        }
+    }
+}
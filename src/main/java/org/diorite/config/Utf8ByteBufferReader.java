@@ -0,0 +1,182 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017. Diorite (by Bartłomiej Mazur (aka GotoFinal))
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.diorite.config;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.charset.MalformedInputException;
+
+/**
+ * Reader that decodes UTF-8 bytes of buffer directly into char arrays passed to {@link #read(char[], int, int)}, without charset decoder and
+ * without any intermediate buffers. <br>
+ * Malformed input is always reported, like by decoder created by {@link Config#encoding(java.nio.charset.Charset)}.
+ *
+ * @see ByteBufferReader
+ */
+final class Utf8ByteBufferReader extends Reader
+{
+    private final ByteBuffer buffer;
+
+    // low surrogate of supplementary code point that didn't fit into caller buffer.
+    private char    pendingLowSurrogate;
+    private boolean hasPending;
+
+    /**
+     * Create new reader of given buffer.
+     *
+     * @param buffer
+     *         buffer to read, remaining bytes of buffer are decoded.
+     */
+    Utf8ByteBufferReader(ByteBuffer buffer)
+    {
+        this.buffer = buffer;
+    }
+
+    @Override
+    public int read(char[] cbuf, int off, int len) throws IOException
+    {
+        if ((off < 0) || (len < 0) || (len > (cbuf.length - off)))
+        {
+            throw new IndexOutOfBoundsException();
+        }
+        if (len == 0)
+        {
+            return 0;
+        }
+        int out = off;
+        int end = off + len;
+        if (this.hasPending)
+        {
+            this.hasPending = false;
+            cbuf[out++] = this.pendingLowSurrogate;
+        }
+        ByteBuffer buffer = this.buffer;
+        int pos = buffer.position();
+        int limit = buffer.limit();
+        try
+        {
+            while ((out < end) && (pos < limit))
+            {
+                int b1 = buffer.get(pos);
+                if (b1 >= 0)
+                {
+                    cbuf[out++] = (char) b1;
+                    pos++;
+                }
+                else if ((b1 & 0xE0) == 0xC0)
+                {
+                    if ((limit - pos) < 2)
+                    {
+                        throw new MalformedInputException(limit - pos);
+                    }
+                    int b2 = buffer.get(pos + 1);
+                    if (((b1 & 0x1E) == 0) || ! isContinuation(b2))
+                    {
+                        throw new MalformedInputException(1);
+                    }
+                    cbuf[out++] = (char) (((b1 & 0x1F) << 6) | (b2 & 0x3F));
+                    pos += 2;
+                }
+                else if ((b1 & 0xF0) == 0xE0)
+                {
+                    if ((limit - pos) < 3)
+                    {
+                        throw new MalformedInputException(limit - pos);
+                    }
+                    int b2 = buffer.get(pos + 1);
+                    int b3 = buffer.get(pos + 2);
+                    if (! isContinuation(b2) || ! isContinuation(b3))
+                    {
+                        throw new MalformedInputException(1);
+                    }
+                    char c = (char) (((b1 & 0x0F) << 12) | ((b2 & 0x3F) << 6) | (b3 & 0x3F));
+                    if ((c < 0x800) || Character.isSurrogate(c))
+                    {
+                        throw new MalformedInputException(3);
+                    }
+                    cbuf[out++] = c;
+                    pos += 3;
+                }
+                else if ((b1 & 0xF8) == 0xF0)
+                {
+                    if ((limit - pos) < 4)
+                    {
+                        throw new MalformedInputException(limit - pos);
+                    }
+                    int b2 = buffer.get(pos + 1);
+                    int b3 = buffer.get(pos + 2);
+                    int b4 = buffer.get(pos + 3);
+                    if (! isContinuation(b2) || ! isContinuation(b3) || ! isContinuation(b4))
+                    {
+                        throw new MalformedInputException(1);
+                    }
+                    int codePoint = ((b1 & 0x07) << 18) | ((b2 & 0x3F) << 12) | ((b3 & 0x3F) << 6) | (b4 & 0x3F);
+                    if ((codePoint < Character.MIN_SUPPLEMENTARY_CODE_POINT) || (codePoint > Character.MAX_CODE_POINT))
+                    {
+                        throw new MalformedInputException(4);
+                    }
+                    cbuf[out++] = Character.highSurrogate(codePoint);
+                    if (out < end)
+                    {
+                        cbuf[out++] = Character.lowSurrogate(codePoint);
+                    }
+                    else
+                    {
+                        this.pendingLowSurrogate = Character.lowSurrogate(codePoint);
+                        this.hasPending = true;
+                    }
+                    pos += 4;
+                }
+                else
+                {
+                    throw new MalformedInputException(1);
+                }
+            }
+        }
+        finally
+        {
+            buffer.position(pos);
+        }
+        int read = out - off;
+        return (read == 0) ? - 1 : read;
+    }
+
+    private static boolean isContinuation(int b)
+    {
+        return (b & 0xC0) == 0x80;
+    }
+
+    @Override
+    public boolean ready()
+    {
+        return this.hasPending || this.buffer.hasRemaining();
+    }
+
+    @Override
+    public void close()
+    {
+    }
+}
@@ -0,0 +1,210 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017. Diorite (by Bartłomiej Mazur (aka GotoFinal))
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.diorite.config;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.MalformedInputException;
+
+/**
+ * Writer that encodes chars as UTF-8 directly into byte buffer, without charset encoder and without any intermediate buffers. <br>
+ * Unpaired surrogates are always reported, like by encoder created by {@link Config#encoding(java.nio.charset.Charset)}.
+ */
+final class Utf8ByteBufferWriter extends Writer
+{
+    private final boolean    growable;
+    private       ByteBuffer buffer;
+
+    // high surrogate waiting for its low surrogate from next write.
+    private char highSurrogate;
+
+    /**
+     * Create new writer of given buffer.
+     *
+     * @param buffer
+     *         buffer to write to, bytes are written at its position.
+     * @param growable
+     *         if buffer can be replaced by bigger one when it is full, otherwise {@link BufferOverflowException} is thrown.
+     */
+    Utf8ByteBufferWriter(ByteBuffer buffer, boolean growable)
+    {
+        this.buffer = buffer;
+        this.growable = growable;
+    }
+
+    /**
+     * Returns buffer with written bytes, it might be other buffer than one passed to constructor if writer is growable.
+     *
+     * @return buffer with written bytes.
+     */
+    ByteBuffer getBuffer()
+    {
+        return this.buffer;
+    }
+
+    @Override
+    public void write(int c) throws IOException
+    {
+        this.put((char) c);
+    }
+
+    @Override
+    public void write(char[] cbuf, int off, int len) throws IOException
+    {
+        if ((off < 0) || (len < 0) || (len > (cbuf.length - off)))
+        {
+            throw new IndexOutOfBoundsException();
+        }
+        this.ensureRemaining(len);
+        int i = off;
+        int end = off + len;
+        if (this.highSurrogate == 0)
+        {
+            // ascii prefix, space for it was already ensured.
+            ByteBuffer buffer = this.buffer;
+            for (char c; (i < end) && ((c = cbuf[i]) < 0x80); i++)
+            {
+                buffer.put((byte) c);
+            }
+        }
+        for (; i < end; i++)
+        {
+            this.put(cbuf[i]);
+        }
+    }
+
+    @Override
+    public void write(String str, int off, int len) throws IOException
+    {
+        if ((off < 0) || (len < 0) || (len > (str.length() - off)))
+        {
+            throw new IndexOutOfBoundsException();
+        }
+        this.ensureRemaining(len);
+        int i = off;
+        int end = off + len;
+        if (this.highSurrogate == 0)
+        {
+            // ascii prefix, space for it was already ensured.
+            ByteBuffer buffer = this.buffer;
+            for (char c; (i < end) && ((c = str.charAt(i)) < 0x80); i++)
+            {
+                buffer.put((byte) c);
+            }
+        }
+        for (; i < end; i++)
+        {
+            this.put(str.charAt(i));
+        }
+    }
+
+    private void put(char c) throws IOException
+    {
+        if (c < 0x80)
+        {
+            if (this.highSurrogate != 0)
+            {
+                throw new MalformedInputException(1);
+            }
+            this.ensureRemaining(1);
+            this.buffer.put((byte) c);
+            return;
+        }
+        if (this.highSurrogate != 0)
+        {
+            char high = this.highSurrogate;
+            this.highSurrogate = 0;
+            if (! Character.isLowSurrogate(c))
+            {
+                throw new MalformedInputException(1);
+            }
+            int codePoint = Character.toCodePoint(high, c);
+            this.ensureRemaining(4);
+            ByteBuffer buffer = this.buffer;
+            buffer.put((byte) (0xF0 | (codePoint >> 18)));
+            buffer.put((byte) (0x80 | ((codePoint >> 12) & 0x3F)));
+            buffer.put((byte) (0x80 | ((codePoint >> 6) & 0x3F)));
+            buffer.put((byte) (0x80 | (codePoint & 0x3F)));
+            return;
+        }
+        if (c < 0x800)
+        {
+            this.ensureRemaining(2);
+            ByteBuffer buffer = this.buffer;
+            buffer.put((byte) (0xC0 | (c >> 6)));
+            buffer.put((byte) (0x80 | (c & 0x3F)));
+            return;
+        }
+        if (Character.isHighSurrogate(c))
+        {
+            this.highSurrogate = c;
+            return;
+        }
+        if (Character.isLowSurrogate(c))
+        {
+            throw new MalformedInputException(1);
+        }
+        this.ensureRemaining(3);
+        ByteBuffer buffer = this.buffer;
+        buffer.put((byte) (0xE0 | (c >> 12)));
+        buffer.put((byte) (0x80 | ((c >> 6) & 0x3F)));
+        buffer.put((byte) (0x80 | (c & 0x3F)));
+    }
+
+    private void ensureRemaining(int bytes)
+    {
+        ByteBuffer buffer = this.buffer;
+        if (buffer.remaining() >= bytes)
+        {
+            return;
+        }
+        if (! this.growable)
+        {
+            throw new BufferOverflowException();
+        }
+        int capacity = Math.max(buffer.capacity() << 1, buffer.position() + bytes);
+        ByteBuffer newBuffer = ByteBuffer.allocate(capacity);
+        buffer.flip();
+        newBuffer.put(buffer);
+        this.buffer = newBuffer;
+    }
+
+    @Override
+    public void flush()
+    {
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        if (this.highSurrogate != 0)
+        {
+            this.highSurrogate = 0;
+            throw new MalformedInputException(1);
+        }
+    }
+}
@@ -0,0 +1,892 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017. Diorite (by Bartłomiej Mazur (aka GotoFinal))
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package org.diorite.config.impl;
+
+import javax.annotation.Nullable;
+import javax.annotation.WillNotClose;
+
+import java.io.File;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractMap.SimpleEntry;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.yaml.snakeyaml.nodes.Node;
+
+import org.diorite.config.Config;
+import org.diorite.config.ConfigChangeListener;
+import org.diorite.config.ConfigManager;
+import org.diorite.config.ConfigTemplate;
+import org.diorite.config.SimpleConfig;
+import org.diorite.config.exceptions.ConfigLoadException;
+import org.diorite.config.exceptions.ConfigSaveException;
+import org.diorite.config.impl.groovy.ConfigDeserializer;
+import org.diorite.config.serialization.Serialization;
+import org.diorite.config.serialization.snakeyaml.YamlCollectionCreator;
+
+/**
+ * Memory efficient implementation of {@link SimpleConfig} designed for huge dynamic trees with a lot of leaf keys. <br>
+ * Whole tree is stored as single trie of {@link CompactTrieNode} objects with interned path segments and packed key/value arrays, so nested sections
+ * don't need own maps, metadata, charsets and template references. <br>
+ * Nested sections returned by this config are lightweight views over the same trie, created on demand, they share lock and change listeners with
+ * root config, but their metadata and file binding are not retained.
+ */
+public final class CompactSimpleConfig implements SimpleConfig
+{
+    private static final Supplier<CharsetEncoder> UTF_8_ENCODER =
+            () -> StandardCharsets.UTF_8.newEncoder().onMalformedInput(CodingErrorAction.REPORT).onUnmappableCharacter(CodingErrorAction.REPORT);
+    private static final Supplier<CharsetDecoder> UTF_8_DECODER =
+            () -> StandardCharsets.UTF_8.newDecoder().onMalformedInput(CodingErrorAction.REPORT).onUnmappableCharacter(CodingErrorAction.REPORT);
+
+    static
+    {
+        if (! Serialization.getInstance().isSerializable(SimpleConfig.class))
+        {
+            Serialization.getInstance().registerSerializer(new ConfigDeserializer<>(SimpleConfig.class));
+        }
+    }
+
+    private final Shared          shared;
+    private final CompactTrieNode node;
+    private final boolean         frozen;
+    @Nullable private final String prefix;
+
+    private volatile Supplier<CharsetEncoder> charsetEncoder = UTF_8_ENCODER;
+    private volatile Supplier<CharsetDecoder> charsetDecoder = UTF_8_DECODER;
+    @Nullable private volatile Map<String, Object> metadata;
+    @Nullable private volatile File                bindFile;
+    @Nullable private volatile ClassLoader         contextClassLoader;
+
+    /**
+     * Create new empty compact config.
+     */
+    public CompactSimpleConfig()
+    {
+        this(new CompactTrieNode(), false);
+    }
+
+    private CompactSimpleConfig(CompactTrieNode node, boolean frozen)
+    {
+        this.shared = new Shared(this);
+        this.node = node;
+        this.frozen = frozen;
+        this.prefix = null;
+    }
+
+    private CompactSimpleConfig(Shared shared, CompactTrieNode node, boolean frozen, String prefix)
+    {
+        this.shared = shared;
+        this.node = node;
+        this.frozen = frozen;
+        this.prefix = prefix;
+    }
+
+    @Override
+    public ConfigTemplate<SimpleConfig> template()
+    {
+        return ConfigManager.get().getConfigFile(SimpleConfig.class);
+    }
+
+    @Override
+    public void fillWithDefaults()
+    {
+    }
+
+    @Override
+    public void clear()
+    {
+        this.checkFrozen();
+        ConfigChangeDispatcher changeDispatcher = this.shared.changeDispatcher;
+        if ((changeDispatcher == null) || ! changeDispatcher.hasListeners())
+        {
+            synchronized (this.shared)
+            {
+                this.node.clear();
+            }
+            return;
+        }
+        Map<String, Object> removed;
+        synchronized (this.shared)
+        {
+            removed = this.asMap();
+            this.node.clear();
+        }
+        changeDispatcher.beginBatch();
+        try
+        {
+            for (Entry<String, Object> entry : removed.entrySet())
+            {
+                changeDispatcher.fireChange(this.fullKey(entry.getKey()), entry.getValue(), null);
+            }
+        }
+        finally
+        {
+            changeDispatcher.endBatch();
+        }
+    }
+
+    @Override
+    public boolean contains(String key)
+    {
+        return this.contains(StringUtils.splitPreserveAllTokens(key, ConfigTemplate.SEPARATOR));
+    }
+
+    @Override
+    public boolean contains(String... keys)
+    {
+        if (keys.length == 0)
+        {
+            throw new IllegalStateException("Empty key given");
+        }
+        synchronized (this.shared)
+        {
+            CompactTrieNode current = this.node;
+            int last = keys.length - 1;
+            for (int i = 0; i < last; i++)
+            {
+                Object value = current.get(keys[i]);
+                if (value instanceof CompactTrieNode)
+                {
+                    current = (CompactTrieNode) value;
+                    continue;
+                }
+                if (value == null)
+                {
+                    return false;
+                }
+                try
+                {
+                    NestedNodesHelper.get(value, Arrays.copyOfRange(keys, i + 1, keys.length));
+                    return true;
+                }
+                catch (Exception ignored)
+                {
+                    return false;
+                }
+            }
+            return current.indexOf(keys[last]) != - 1;
+        }
+    }
+
+    @Override
+    public Set<String> keys()
+    {
+        synchronized (this.shared)
+        {
+            CompactTrieNode node = this.node;
+            Set<String> keys = new LinkedHashSet<>(Math.max(4, (node.size() * 4) / 3 + 1));
+            for (int i = 0, size = node.size(); i < size; i++)
+            {
+                keys.add(node.keyAt(i));
+            }
+            return Collections.unmodifiableSet(keys);
+        }
+    }
+
+    @Override
+    public Collection<Object> values()
+    {
+        synchronized (this.shared)
+        {
+            CompactTrieNode node = this.node;
+            Collection<Object> values = new ArrayList<>(node.size());
+            for (int i = 0, size = node.size(); i < size; i++)
+            {
+                values.add(this.wrap(node.keyAt(i), node.valueAt(i)));
+            }
+            return Collections.unmodifiableCollection(values);
+        }
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entries()
+    {
+        synchronized (this.shared)
+        {
+            CompactTrieNode node = this.node;
+            Set<Entry<String, Object>> entries = new LinkedHashSet<>(Math.max(4, (node.size() * 4) / 3 + 1));
+            for (int i = 0, size = node.size(); i < size; i++)
+            {
+                entries.add(new SimpleEntry<>(node.keyAt(i), this.wrap(node.keyAt(i), node.valueAt(i))));
+            }
+            return Collections.unmodifiableSet(entries);
+        }
+    }
+
+    @Override
+    public Map<String, Object> asMap()
+    {
+        synchronized (this.shared)
+        {
+            CompactTrieNode node = this.node;
+            Map<String, Object> map = new LinkedHashMap<>(Math.max(4, (node.size() * 4) / 3 + 1));
+            for (int i = 0, size = node.size(); i < size; i++)
+            {
+                map.put(node.keyAt(i), this.wrap(node.keyAt(i), node.valueAt(i)));
+            }
+            return Collections.unmodifiableMap(map);
+        }
+    }
+
+    @Override
+    public boolean isEmpty()
+    {
+        synchronized (this.shared)
+        {
+            return this.node.isEmpty();
+        }
+    }
+
+    @Override
+    public int size()
+    {
+        synchronized (this.shared)
+        {
+            return this.node.size();
+        }
+    }
+
+    @Override
+    public Map<String, Object> metadata()
+    {
+        Map<String, Object> metadata = this.metadata;
+        if (metadata == null)
+        {
+            synchronized (this.shared)
+            {
+                metadata = this.metadata;
+                if (metadata == null)
+                {
+                    metadata = Collections.synchronizedMap(new HashMap<>(3));
+                    this.metadata = metadata;
+                }
+            }
+        }
+        return metadata;
+    }
+
+    @Nullable
+    @Override
+    public <T> T get(String key)
+    {
+        return this.get(StringUtils.splitPreserveAllTokens(key, ConfigTemplate.SEPARATOR), null, null);
+    }
+
+    @Nullable
+    @Override
+    public <T> T get(String[] key)
+    {
+        return this.get(key, null, null);
+    }
+
+    @Nullable
+    @Override
+    public <T> T get(String key, @Nullable T defValue)
+    {
+        return this.get(StringUtils.splitPreserveAllTokens(key, ConfigTemplate.SEPARATOR), defValue, null);
+    }
+
+    @Nullable
+    @Override
+    public <T> T get(String[] key, @Nullable T defValue)
+    {
+        return this.get(key, defValue, null);
+    }
+
+    @Nullable
+    @Override
+    public <T> T get(String key, Class<T> type)
+    {
+        return this.get(StringUtils.splitPreserveAllTokens(key, ConfigTemplate.SEPARATOR), null, type);
+    }
+
+    @Nullable
+    @Override
+    public <T> T get(String[] key, Class<T> type)
+    {
+        return this.get(key, null, type);
+    }
+
+    @Nullable
+    @Override
+    public <T> T get(String key, @Nullable T defValue, Class<T> type)
+    {
+        return this.get(StringUtils.splitPreserveAllTokens(key, ConfigTemplate.SEPARATOR), defValue, type);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Nullable
+    @Override
+    public <T> T get(String[] keys, @Nullable T defValue, @Nullable Class<T> type)
+    {
+        if (keys.length == 0)
+        {
+            throw new IllegalStateException("Empty key given");
+        }
+        synchronized (this.shared)
+        {
+            CompactTrieNode current = this.node;
+            int last = keys.length - 1;
+            for (int i = 0; i < last; i++)
+            {
+                int index = current.indexOf(keys[i]);
+                if (index == - 1)
+                {
+                    return defValue;
+                }
+                Object value = current.valueAt(index);
+                if (value instanceof CompactTrieNode)
+                {
+                    current = (CompactTrieNode) value;
+                    continue;
+                }
+                if (value == null)
+                {
+                    // null value can't contain nested keys, so requested key is missing.
+                    return defValue;
+                }
+                return (T) NestedNodesHelper.get(value, Arrays.copyOfRange(keys, i + 1, keys.length));
+            }
+            int index = current.indexOf(keys[last]);
+            if (index == - 1)
+            {
+                return defValue;
+            }
+            return (T) this.wrap(keys, current.valueAt(index));
+        }
+    }
+
+    @Override
+    public void set(String key, @Nullable Object value)
+    {
+        this.set(StringUtils.splitPreserveAllTokens(key, ConfigTemplate.SEPARATOR), value);
+    }
+
+    @Override
+    public void set(String[] keys, @Nullable Object value)
+    {
+        this.checkFrozen();
+        if (keys.length == 0)
+        {
+            throw new IllegalStateException("Empty key given");
+        }
+        ConfigChangeDispatcher changeDispatcher = this.shared.changeDispatcher;
+        if ((changeDispatcher == null) || ! changeDispatcher.hasListeners())
+        {
+            this.set0(keys, value);
+            return;
+        }
+        Object oldValue = this.get(keys, null, null);
+        this.set0(keys, value);
+        changeDispatcher.fireChange(this.fullKey(keys), oldValue, value);
+    }
+
+    private void set0(String[] keys, @Nullable Object value)
+    {
+        Object toStore = unwrap(value);
+        synchronized (this.shared)
+        {
+            CompactTrieNode current = this.node;
+            int last = keys.length - 1;
+            for (int i = 0; i < last; i++)
+            {
+                CompactTrieNode child = current.getOrCreateNode(keys[i]);
+                if (child == null)
+                {
+                    NestedNodesHelper.set(current.get(keys[i]), Arrays.copyOfRange(keys, i + 1, keys.length), toStore);
+                    return;
+                }
+                current = child;
+            }
+            current.put(keys[last], toStore);
+        }
+    }
+
+    @Nullable
+    @Override
+    public Object remove(String key)
+    {
+        return this.remove(StringUtils.splitPreserveAllTokens(key, ConfigTemplate.SEPARATOR));
+    }
+
+    @Nullable
+    @Override
+    public Object remove(String... keys)
+    {
+        this.checkFrozen();
+        if (keys.length == 0)
+        {
+            throw new IllegalStateException("Empty key given");
+        }
+        Object removed = this.remove0(keys);
+        ConfigChangeDispatcher changeDispatcher = this.shared.changeDispatcher;
+        if ((changeDispatcher != null) && (removed != null))
+        {
+            changeDispatcher.fireChange(this.fullKey(keys), removed, null);
+        }
+        return removed;
+    }
+
+    @Nullable
+    private Object remove0(String[] keys)
+    {
+        synchronized (this.shared)
+        {
+            CompactTrieNode current = this.node;
+            int last = keys.length - 1;
+            for (int i = 0; i < last; i++)
+            {
+                Object value = current.get(keys[i]);
+                if (value instanceof CompactTrieNode)
+                {
+                    current = (CompactTrieNode) value;
+                    continue;
+                }
+                if (value == null)
+                {
+                    return null;
+                }
+                return NestedNodesHelper.remove(value, Arrays.copyOfRange(keys, i + 1, keys.length));
+            }
+            return this.wrap(keys, current.remove(keys[last]));
+        }
+    }
+
+    @Override
+    public CharsetEncoder encoder()
+    {
+        return this.charsetEncoder.get();
+    }
+
+    @Override
+    public void encoder(Supplier<CharsetEncoder> encoder)
+    {
+        this.charsetEncoder = encoder;
+    }
+
+    @Override
+    public CharsetDecoder decoder()
+    {
+        return this.charsetDecoder.get();
+    }
+
+    @Override
+    public void decoder(Supplier<CharsetDecoder> decoder)
+    {
+        this.charsetDecoder = decoder;
+    }
+
+    @Nullable
+    @Override
+    public ClassLoader contextClassLoader()
+    {
+        return this.contextClassLoader;
+    }
+
+    @Override
+    public void contextClassLoader(@Nullable ClassLoader classLoader)
+    {
+        this.contextClassLoader = classLoader;
+    }
+
+    @Nullable
+    @Override
+    public File bindFile()
+    {
+        return this.bindFile;
+    }
+
+    @Override
+    public void bindFile(@Nullable File file)
+    {
+        this.bindFile = file;
+    }
+
+    @Override
+    public void save()
+    {
+        File bindFile = this.bindFile;
+        if (bindFile == null)
+        {
+            throw new ConfigSaveException(this.template(), null, "Config isn't bound to file!");
+        }
+        this.save(bindFile);
+    }
+
+    @Override
+    public void save(@WillNotClose Writer writer)
+    {
+        Thread current = Thread.currentThread();
+        ClassLoader oldContext = current.getContextClassLoader();
+        ClassLoader contextClassLoader = this.contextClassLoader;
+        if (contextClassLoader != null)
+        {
+            current.setContextClassLoader(contextClassLoader);
+        }
+        try
+        {
+            Serialization.getInstance().toYamlWithComments(this, writer, this.template().getComments());
+        }
+        finally
+        {
+            if (contextClassLoader != null)
+            {
+                current.setContextClassLoader(oldContext);
+            }
+        }
+    }
+
+    @Override
+    public void load()
+    {
+        File bindFile = this.bindFile;
+        if (bindFile == null)
+        {
+            throw new ConfigLoadException(this.template(), null, "Config isn't bound to file!");
+        }
+        this.load(bindFile);
+    }
+
+    @Override
+    public void load(@WillNotClose Reader reader)
+    {
+        this.loadValues(() -> Serialization.getInstance().fromYaml(reader));
+    }
+
+    @Override
+    public void load(Node node)
+    {
+        this.loadValues(() -> Serialization.getInstance().fromYamlNode(node));
+    }
+
+    private void loadValues(Supplier<Object> loader)
+    {
+        this.checkFrozen();
+        Thread current = Thread.currentThread();
+        ClassLoader oldContext = current.getContextClassLoader();
+        ClassLoader contextClassLoader = this.contextClassLoader;
+        if (contextClassLoader != null)
+        {
+            current.setContextClassLoader(contextClassLoader);
+        }
+        try
+        {
+            Object loaded = loader.get();
+            if (! (loaded instanceof Map))
+            {
+                return;
+            }
+            Map<?, ?> map = (Map<?, ?>) loaded;
+            ConfigChangeDispatcher changeDispatcher = this.shared.changeDispatcher;
+            if ((changeDispatcher == null) || ! changeDispatcher.hasListeners())
+            {
+                synchronized (this.shared)
+                {
+                    for (Entry<?, ?> entry : map.entrySet())
+                    {
+                        this.node.put(String.valueOf(entry.getKey()), unwrapLoaded(entry.getValue()));
+                    }
+                    this.node.trim();
+                }
+                return;
+            }
+            changeDispatcher.beginBatch();
+            try
+            {
+                for (Entry<?, ?> entry : map.entrySet())
+                {
+                    String key = String.valueOf(entry.getKey());
+                    Object oldValue;
+                    Object newValue;
+                    synchronized (this.shared)
+                    {
+                        Object value = unwrapLoaded(entry.getValue());
+                        oldValue = this.wrap(key, this.node.put(key, value));
+                        newValue = this.wrap(key, value);
+                    }
+                    changeDispatcher.fireChange(this.fullKey(key), oldValue, newValue);
+                }
+                synchronized (this.shared)
+                {
+                    this.node.trim();
+                }
+            }
+            finally
+            {
+                changeDispatcher.endBatch();
+            }
+        }
+        finally
+        {
+            if (contextClassLoader != null)
+            {
+                current.setContextClassLoader(oldContext);
+            }
+        }
+    }
+
+    @Override
+    public SimpleConfig clone()
+    {
+        CompactSimpleConfig copy = new CompactSimpleConfig();
+        copy.charsetDecoder = this.charsetDecoder;
+        copy.charsetEncoder = this.charsetEncoder;
+        copy.bindFile = this.bindFile;
+        copy.contextClassLoader = this.contextClassLoader;
+
+        // ensure deep clone
+        StringWriter writer = new StringWriter();
+        this.save(writer);
+        copy.load(new StringReader(writer.toString()));
+        return copy;
+    }
+
+    @Override
+    public SimpleConfig freeze()
+    {
+        if (this.frozen)
+        {
+            return this;
+        }
+        CompactSimpleConfig copy = (CompactSimpleConfig) this.clone();
+        freezeValues(copy.node);
+        CompactSimpleConfig frozen = new CompactSimpleConfig(copy.node, true);
+        frozen.charsetDecoder = copy.charsetDecoder;
+        frozen.charsetEncoder = copy.charsetEncoder;
+        frozen.bindFile = copy.bindFile;
+        frozen.contextClassLoader = copy.contextClassLoader;
+        return frozen;
+    }
+
+    @Override
+    public boolean isFrozen()
+    {
+        return this.frozen;
+    }
+
+    private static void freezeValues(CompactTrieNode node)
+    {
+        for (int i = 0, size = node.size(); i < size; i++)
+        {
+            Object value = node.valueAt(i);
+            if (value instanceof CompactTrieNode)
+            {
+                freezeValues((CompactTrieNode) value);
+            }
+            else if (value instanceof Config)
+            {
+                node.setValueAt(i, ((Config) value).freeze());
+            }
+            else if ((value instanceof Collection) || (value instanceof Map))
+            {
+                node.setValueAt(i, YamlCollectionCreator.makeUnmodifiable(value));
+            }
+        }
+    }
+
+    private void checkFrozen()
+    {
+        if (this.frozen)
+        {
+            throw new UnsupportedOperationException("Frozen config can't be changed.");
+        }
+    }
+
+    @Nullable
+    private Object wrap(String[] keys, @Nullable Object value)
+    {
+        if (value instanceof CompactTrieNode)
+        {
+            return this.wrap(StringUtils.join(keys, ConfigTemplate.SEPARATOR), value);
+        }
+        return value;
+    }
+
+    @Nullable
+    private Object wrap(String key, @Nullable Object value)
+    {
+        if (value instanceof CompactTrieNode)
+        {
+            return new CompactSimpleConfig(this.shared, (CompactTrieNode) value, this.frozen, this.fullKey(key));
+        }
+        return value;
+    }
+
+    private String fullKey(String[] keys)
+    {
+        return this.fullKey((keys.length == 1) ? keys[0] : StringUtils.join(keys, ConfigTemplate.SEPARATOR));
+    }
+
+    private String fullKey(String key)
+    {
+        String prefix = this.prefix;
+        if (prefix == null)
+        {
+            return key;
+        }
+        return prefix + ConfigTemplate.SEPARATOR + key;
+    }
+
+    private ConfigChangeDispatcher changeDispatcher()
+    {
+        Shared shared = this.shared;
+        ConfigChangeDispatcher changeDispatcher = shared.changeDispatcher;
+        if (changeDispatcher == null)
+        {
+            synchronized (shared)
+            {
+                changeDispatcher = shared.changeDispatcher;
+                if (changeDispatcher == null)
+                {
+                    changeDispatcher = new ConfigChangeDispatcher(shared.root);
+                    shared.changeDispatcher = changeDispatcher;
+                }
+            }
+        }
+        return changeDispatcher;
+    }
+
+    @Override
+    public void addChangeListener(ConfigChangeListener listener)
+    {
+        this.changeDispatcher().addListener(this.prefix, listener);
+    }
+
+    @Override
+    public void addChangeListener(String path, ConfigChangeListener listener)
+    {
+        this.changeDispatcher().addListener(this.fullKey(path), listener);
+    }
+
+    @Override
+    public void removeChangeListener(ConfigChangeListener listener)
+    {
+        ConfigChangeDispatcher changeDispatcher = this.shared.changeDispatcher;
+        if (changeDispatcher != null)
+        {
+            changeDispatcher.removeListener(listener);
+        }
+    }
+
+    @Override
+    public void changeListenerExecutor(@Nullable Executor executor)
+    {
+        this.changeDispatcher().setExecutor(executor);
+    }
+
+    @Nullable
+    private static Object unwrap(@Nullable Object value)
+    {
+        if (value instanceof SimpleConfig)
+        {
+            CompactTrieNode node = new CompactTrieNode();
+            for (Entry<String, Object> entry : ((SimpleConfig) value).entries())
+            {
+                node.put(entry.getKey(), unwrap(entry.getValue()));
+            }
+            return node;
+        }
+        return value;
+    }
+
+    @Nullable
+    private static Object unwrapLoaded(@Nullable Object value)
+    {
+        if ((value instanceof Map) && ! (value instanceof Config))
+        {
+            CompactTrieNode node = new CompactTrieNode();
+            for (Entry<?, ?> entry : ((Map<?, ?>) value).entrySet())
+            {
+                node.put(String.valueOf(entry.getKey()), unwrapLoaded(entry.getValue()));
+            }
+            return node;
+        }
+        return unwrap(value);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return this.asMap().hashCode();
+    }
+
+    @Override
+    public boolean equals(Object object)
+    {
+        if (this == object)
+        {
+            return true;
+        }
+        if (! (object instanceof SimpleConfig))
+        {
+            return false;
+        }
+        return this.asMap().equals(((Config) object).asMap());
+    }
+
+    @Override
+    public String toString()
+    {
+        ToStringBuilder builder = new ToStringBuilder(this);
+        builder.append(SimpleConfig.class.getName());
+        builder.append(this.bindFile);
+        for (Entry<String, Object> entry : this.asMap().entrySet())
+        {
+            builder.append(entry.getKey(), entry.getValue());
+        }
+        return builder.build();
+    }
+
+    private static final class Shared
+    {
+        private final CompactSimpleConfig root;
+        @Nullable private volatile ConfigChangeDispatcher changeDispatcher;
+
+        private Shared(CompactSimpleConfig root)
+        {
+            this.root = root;
+        }
+    }
+}
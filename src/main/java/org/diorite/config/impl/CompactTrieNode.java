@@ -0,0 +1,267 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017. Diorite (by Bartłomiej Mazur (aka GotoFinal))
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package org.diorite.config.impl;
+
+import javax.annotation.Nullable;
+
+import java.util.Arrays;
+
+/**
+ * Single node of compact config trie, keys are stored as interned path segments in packed arrays, values are leaf objects or other trie nodes. <br>
+ * Small nodes are searched linearly, bigger ones lazily build open addressing index over keys. <br>
+ * Class isn't thread safe, all access must be guarded by owning config.
+ */
+final class CompactTrieNode
+{
+    private static final String[] EMPTY_KEYS   = new String[0];
+    private static final Object[] EMPTY_VALUES = new Object[0];
+    private static final int      INDEX_THRESHOLD = 8;
+
+    private String[] keys   = EMPTY_KEYS;
+    private Object[] values = EMPTY_VALUES;
+    private int size;
+    @Nullable private int[] index;
+
+    int size()
+    {
+        return this.size;
+    }
+
+    boolean isEmpty()
+    {
+        return this.size == 0;
+    }
+
+    String keyAt(int i)
+    {
+        return this.keys[i];
+    }
+
+    @Nullable
+    Object valueAt(int i)
+    {
+        return this.values[i];
+    }
+
+    void setValueAt(int i, @Nullable Object value)
+    {
+        this.values[i] = value;
+    }
+
+    int indexOf(String key)
+    {
+        int[] index = this.index;
+        if (index == null)
+        {
+            if (this.size <= INDEX_THRESHOLD)
+            {
+                for (int i = 0; i < this.size; i++)
+                {
+                    String k = this.keys[i];
+                    if ((k == key) || k.equals(key))
+                    {
+                        return i;
+                    }
+                }
+                return - 1;
+            }
+            index = this.rebuildIndex();
+        }
+        int mask = index.length - 1;
+        for (int slot = mix(key.hashCode()) & mask; ; slot = (slot + 1) & mask)
+        {
+            int entry = index[slot];
+            if (entry == 0)
+            {
+                return - 1;
+            }
+            String k = this.keys[entry - 1];
+            if ((k == key) || k.equals(key))
+            {
+                return entry - 1;
+            }
+        }
+    }
+
+    @Nullable
+    Object get(String key)
+    {
+        int i = this.indexOf(key);
+        return (i == - 1) ? null : this.values[i];
+    }
+
+    /**
+     * Returns existing child node for given key or creates new one, if key exists but isn't a node null is returned.
+     *
+     * @param key
+     *         key of child node.
+     *
+     * @return child node or null.
+     */
+    @Nullable
+    CompactTrieNode getOrCreateNode(String key)
+    {
+        int i = this.indexOf(key);
+        if (i == - 1)
+        {
+            CompactTrieNode node = new CompactTrieNode();
+            this.append(key, node);
+            return node;
+        }
+        Object value = this.values[i];
+        if (value instanceof CompactTrieNode)
+        {
+            return (CompactTrieNode) value;
+        }
+        if (value == null)
+        {
+            CompactTrieNode node = new CompactTrieNode();
+            this.values[i] = node;
+            return node;
+        }
+        return null;
+    }
+
+    @Nullable
+    Object put(String key, @Nullable Object value)
+    {
+        int i = this.indexOf(key);
+        if (i != - 1)
+        {
+            Object old = this.values[i];
+            this.values[i] = value;
+            return old;
+        }
+        this.append(key, value);
+        return null;
+    }
+
+    @Nullable
+    Object remove(String key)
+    {
+        int i = this.indexOf(key);
+        if (i == - 1)
+        {
+            return null;
+        }
+        Object old = this.values[i];
+        int moved = this.size - i - 1;
+        if (moved > 0)
+        {
+            System.arraycopy(this.keys, i + 1, this.keys, i, moved);
+            System.arraycopy(this.values, i + 1, this.values, i, moved);
+        }
+        this.size -= 1;
+        this.keys[this.size] = null;
+        this.values[this.size] = null;
+        this.index = null;
+        return old;
+    }
+
+    void clear()
+    {
+        this.keys = EMPTY_KEYS;
+        this.values = EMPTY_VALUES;
+        this.size = 0;
+        this.index = null;
+    }
+
+    /**
+     * Trims internal arrays to current size, useful after loading big trees.
+     */
+    void trim()
+    {
+        if (this.keys.length != this.size)
+        {
+            this.keys = (this.size == 0) ? EMPTY_KEYS : Arrays.copyOf(this.keys, this.size);
+            this.values = (this.size == 0) ? EMPTY_VALUES : Arrays.copyOf(this.values, this.size);
+        }
+        for (int i = 0; i < this.size; i++)
+        {
+            Object value = this.values[i];
+            if (value instanceof CompactTrieNode)
+            {
+                ((CompactTrieNode) value).trim();
+            }
+        }
+    }
+
+    private void append(String key, @Nullable Object value)
+    {
+        int size = this.size;
+        if (size == this.keys.length)
+        {
+            int newLength = (size == 0) ? 2 : (size + (size >> 1) + 1);
+            this.keys = Arrays.copyOf(this.keys, newLength);
+            this.values = Arrays.copyOf(this.values, newLength);
+        }
+        this.keys[size] = key.intern();
+        this.values[size] = value;
+        this.size = size + 1;
+
+        int[] index = this.index;
+        if (index != null)
+        {
+            if ((this.size << 1) > index.length)
+            {
+                this.rebuildIndex();
+            }
+            else
+            {
+                insertIndex(index, this.keys[size], size);
+            }
+        }
+    }
+
+    private int[] rebuildIndex()
+    {
+        int capacity = Integer.highestOneBit(Math.max(this.size, INDEX_THRESHOLD) << 1) << 1;
+        int[] index = new int[capacity];
+        for (int i = 0; i < this.size; i++)
+        {
+            insertIndex(index, this.keys[i], i);
+        }
+        this.index = index;
+        return index;
+    }
+
+    private static void insertIndex(int[] index, String key, int position)
+    {
+        int mask = index.length - 1;
+        int slot = mix(key.hashCode()) & mask;
+        while (index[slot] != 0)
+        {
+            slot = (slot + 1) & mask;
+        }
+        index[slot] = position + 1;
+    }
+
+    private static int mix(int hash)
+    {
+        int h = hash * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,325 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017. Diorite (by Bartłomiej Mazur (aka GotoFinal))
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package org.diorite.config.impl;
+
+import javax.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.apache.commons.lang3.StringUtils;
+
+import org.diorite.config.Config;
+import org.diorite.config.ConfigChangeListener;
+import org.diorite.config.ConfigTemplate;
+
+/**
+ * Collects changes of single config and dispatches them to registered {@link ConfigChangeListener}s. <br>
+ * Changes are coalesced by key, so burst of writes to this same key (or whole reload when {@link #beginBatch()} is used) produce single callback with
+ * first old value and last new value, keys that end up with equal value are skipped. <br>
+ * Without executor changes are dispatched in thread that made them, otherwise single dispatch task is scheduled on executor at a time, if
+ * executor rejects that task changes are dispatched in thread that made them instead. <br>
+ * Exception thrown by listener doesn't stop dispatching of other changes and listeners, it is rethrown after all changes are dispatched,
+ * with exceptions of other failed listeners added as suppressed.
+ */
+public final class ConfigChangeDispatcher
+{
+    private final Config                     config;
+    private final Collection<ListenerEntry>  listeners = new CopyOnWriteArrayList<>();
+    private final Map<String, PendingChange> pending   = new LinkedHashMap<>(8);
+    @Nullable private volatile Executor executor;
+
+    // guarded by pending
+    private int     batchDepth;
+    private boolean scheduled;
+
+    public ConfigChangeDispatcher(Config config)
+    {
+        this.config = config;
+    }
+
+    /**
+     * Returns true if there is at least one registered listener, callers can use this to skip computing old values.
+     *
+     * @return true if there is at least one registered listener.
+     */
+    public boolean hasListeners()
+    {
+        return ! this.listeners.isEmpty();
+    }
+
+    /**
+     * Register listener for changes of given path, or all changes if path is null.
+     *
+     * @param path
+     *         path to listen on, listener is notified about changes of this key, its children and its parents.
+     * @param listener
+     *         listener to register.
+     */
+    public void addListener(@Nullable String path, ConfigChangeListener listener)
+    {
+        this.listeners.add(new ListenerEntry(path, listener));
+    }
+
+    /**
+     * Unregister all registrations of given listener.
+     *
+     * @param listener
+     *         listener to remove.
+     */
+    public void removeListener(ConfigChangeListener listener)
+    {
+        this.listeners.removeIf(entry -> entry.listener == listener);
+    }
+
+    @Nullable
+    public Executor getExecutor()
+    {
+        return this.executor;
+    }
+
+    /**
+     * Set executor used to notify listeners, null means that listeners are notified directly in thread that changed value.
+     *
+     * @param executor
+     *         executor to use.
+     */
+    public void setExecutor(@Nullable Executor executor)
+    {
+        this.executor = executor;
+    }
+
+    /**
+     * Start batch of changes, all changes made before matching {@link #endBatch()} are dispatched together.
+     */
+    public void beginBatch()
+    {
+        synchronized (this.pending)
+        {
+            this.batchDepth += 1;
+        }
+    }
+
+    /**
+     * End batch of changes started by {@link #beginBatch()}.
+     */
+    public void endBatch()
+    {
+        synchronized (this.pending)
+        {
+            if (this.batchDepth == 0)
+            {
+                throw new IllegalStateException("No batch in progress");
+            }
+            this.batchDepth -= 1;
+            if ((this.batchDepth > 0) || this.pending.isEmpty() || ! this.schedule())
+            {
+                return;
+            }
+        }
+        this.dispatch();
+    }
+
+    public void fireChange(String[] keys, @Nullable Object oldValue, @Nullable Object newValue)
+    {
+        this.fireChange((keys.length == 1) ? keys[0] : StringUtils.join(keys, ConfigTemplate.SEPARATOR), oldValue, newValue);
+    }
+
+    /**
+     * Record change of given key, and dispatch it if there is no batch in progress.
+     *
+     * @param key
+     *         changed key.
+     * @param oldValue
+     *         value before change.
+     * @param newValue
+     *         value after change.
+     */
+    public void fireChange(String key, @Nullable Object oldValue, @Nullable Object newValue)
+    {
+        if (this.listeners.isEmpty())
+        {
+            return;
+        }
+        synchronized (this.pending)
+        {
+            PendingChange change = this.pending.get(key);
+            if (change == null)
+            {
+                this.pending.put(key, new PendingChange(oldValue, newValue));
+            }
+            else
+            {
+                change.newValue = newValue;
+            }
+            if ((this.batchDepth > 0) || ! this.schedule())
+            {
+                return;
+            }
+        }
+        this.dispatch();
+    }
+
+    /**
+     * Schedule dispatch on executor if needed, must be called while holding lock.
+     *
+     * @return true if changes should be dispatched directly by current thread.
+     */
+    private boolean schedule()
+    {
+        if (this.scheduled)
+        {
+            return false;
+        }
+        Executor executor = this.executor;
+        this.scheduled = true;
+        if (executor == null)
+        {
+            return true;
+        }
+        try
+        {
+            executor.execute(this::dispatch);
+            return false;
+        }
+        catch (RejectedExecutionException e)
+        {
+            // changes are still pending, so they are dispatched by current thread like without executor.
+            return true;
+        }
+    }
+
+    private void dispatch()
+    {
+        RuntimeException failure = null;
+        while (true)
+        {
+            List<Entry<String, PendingChange>> changes;
+            synchronized (this.pending)
+            {
+                if (this.pending.isEmpty())
+                {
+                    this.scheduled = false;
+                    break;
+                }
+                changes = new ArrayList<>(this.pending.entrySet());
+                this.pending.clear();
+            }
+            try
+            {
+                for (Entry<String, PendingChange> entry : changes)
+                {
+                    PendingChange change = entry.getValue();
+                    if (Objects.deepEquals(change.oldValue, change.newValue))
+                    {
+                        continue;
+                    }
+                    String key = entry.getKey();
+                    for (ListenerEntry listener : this.listeners)
+                    {
+                        if (! listener.matches(key))
+                        {
+                            continue;
+                        }
+                        try
+                        {
+                            listener.listener.onChange(this.config, key, change.oldValue, change.newValue);
+                        }
+                        catch (RuntimeException e)
+                        {
+                            if (failure == null)
+                            {
+                                failure = e;
+                            }
+                            else
+                            {
+                                failure.addSuppressed(e);
+                            }
+                        }
+                    }
+                }
+            }
+            catch (Error e)
+            {
+                synchronized (this.pending)
+                {
+                    this.scheduled = false;
+                }
+                throw e;
+            }
+        }
+        if (failure != null)
+        {
+            throw failure;
+        }
+    }
+
+    private static final class PendingChange
+    {
+        @Nullable private final Object oldValue;
+        @Nullable private       Object newValue;
+
+        private PendingChange(@Nullable Object oldValue, @Nullable Object newValue)
+        {
+            this.oldValue = oldValue;
+            this.newValue = newValue;
+        }
+    }
+
+    private static final class ListenerEntry
+    {
+        @Nullable private final String               path;
+        private final           ConfigChangeListener listener;
+
+        private ListenerEntry(@Nullable String path, ConfigChangeListener listener)
+        {
+            this.path = path;
+            this.listener = listener;
+        }
+
+        private boolean matches(String key)
+        {
+            String path = this.path;
+            if ((path == null) || path.equals(key))
+            {
+                return true;
+            }
+            if (key.length() > path.length())
+            {
+                return key.startsWith(path) && (key.charAt(path.length()) == ConfigTemplate.SEPARATOR);
+            }
+            return path.startsWith(key) && (path.charAt(key.length()) == ConfigTemplate.SEPARATOR);
+        }
+    }
+}
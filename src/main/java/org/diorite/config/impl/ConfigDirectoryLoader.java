@@ -0,0 +1,219 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017. Diorite (by Bartłomiej Mazur (aka GotoFinal))
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package org.diorite.config.impl;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+import org.apache.commons.lang3.builder.ToStringBuilder;
+
+import org.diorite.config.Config;
+import org.diorite.config.ConfigTemplate;
+import org.diorite.config.exceptions.ConfigLoadException;
+
+/**
+ * Loads all matching config files from single directory using fixed number of worker threads. <br>
+ * Each worker uses its own thread-local yaml instance, and number of files that are submitted but not yet passed to consumer is limited, so
+ * memory used by pending work stays bounded even for directories with thousands of files.
+ *
+ * @param <T>
+ *         type of config.
+ */
+public final class ConfigDirectoryLoader<T extends Config>
+{
+    private static final AtomicInteger loaderCounter = new AtomicInteger();
+
+    private final ConfigTemplate<T> template;
+    private final int               parallelism;
+    private final int               maxPending;
+
+    /**
+     * Create new directory loader.
+     *
+     * @param template
+     *         template of loaded configs.
+     * @param parallelism
+     *         number of worker threads.
+     * @param maxPending
+     *         max number of files that can be submitted and not yet consumed at the same time.
+     */
+    public ConfigDirectoryLoader(ConfigTemplate<T> template, int parallelism, int maxPending)
+    {
+        if (parallelism < 1)
+        {
+            throw new IllegalArgumentException("Parallelism must be positive: " + parallelism);
+        }
+        if (maxPending < parallelism)
+        {
+            throw new IllegalArgumentException("Max pending files (" + maxPending + ") can't be lower than parallelism (" + parallelism + ")");
+        }
+        this.template = template;
+        this.parallelism = parallelism;
+        this.maxPending = maxPending;
+    }
+
+    /**
+     * Load all regular files matching given glob pattern from given directory, loaded configs are bound to their files. <br>
+     * Consumer and error handler are invoked from worker threads, possibly concurrently, and this method returns after all files are processed. <br>
+     * Exceptions thrown by consumer or error handler are not reported as failures of loaded files, first of them is rethrown by this method after
+     * all files are processed, others are added to it as suppressed exceptions.
+     *
+     * @param directory
+     *         directory to search for files, subdirectories are not visited.
+     * @param glob
+     *         glob pattern of file names, like {@code *.yml}.
+     * @param consumer
+     *         consumer of loaded configs.
+     * @param errorHandler
+     *         handler of files that failed to load.
+     *
+     * @throws ConfigLoadException
+     *         if directory can't be read or current thread was interrupted.
+     * @throws RuntimeException
+     *         first exception thrown by consumer or error handler.
+     */
+    public void loadAll(Path directory, String glob, BiConsumer<Path, ? super T> consumer, BiConsumer<Path, ConfigLoadException> errorHandler)
+    {
+        int loaderId = loaderCounter.incrementAndGet();
+        AtomicInteger threadCounter = new AtomicInteger();
+        ThreadFactory threadFactory = runnable ->
+        {
+            Thread thread = new Thread(runnable, "config-loader-" + loaderId + "-" + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        ExecutorService executor = Executors.newFixedThreadPool(this.parallelism, threadFactory);
+        Semaphore pending = new Semaphore(this.maxPending);
+        Queue<Throwable> callbackFailures = new ConcurrentLinkedQueue<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, glob))
+        {
+            for (Path path : stream)
+            {
+                if (! Files.isRegularFile(path))
+                {
+                    continue;
+                }
+                pending.acquire();
+                executor.execute(() ->
+                {
+                    try
+                    {
+                        this.loadAndConsume(path, consumer, errorHandler);
+                    }
+                    catch (RuntimeException | Error e)
+                    {
+                        callbackFailures.add(e);
+                    }
+                    finally
+                    {
+                        pending.release();
+                    }
+                });
+            }
+            executor.shutdown();
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+            rethrowFirst(callbackFailures);
+        }
+        catch (IOException e)
+        {
+            throw new ConfigLoadException(this.template, directory.toFile(), e.getMessage(), e);
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new ConfigLoadException(this.template, directory.toFile(), "Loading interrupted", e);
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+
+    // only failures of loading are reported to error handler, exceptions thrown by consumer or error handler are passed to caller.
+    private void loadAndConsume(Path path, BiConsumer<Path, ? super T> consumer, BiConsumer<Path, ConfigLoadException> errorHandler)
+    {
+        T config;
+        try
+        {
+            config = this.load(path.toFile());
+        }
+        catch (ConfigLoadException e)
+        {
+            errorHandler.accept(path, e);
+            return;
+        }
+        catch (Exception e)
+        {
+            errorHandler.accept(path, new ConfigLoadException(this.template, path.toFile(), e.getMessage(), e));
+            return;
+        }
+        consumer.accept(path, config);
+    }
+
+    private static void rethrowFirst(Queue<Throwable> failures)
+    {
+        Throwable first = failures.poll();
+        if (first == null)
+        {
+            return;
+        }
+        for (Throwable failure : failures)
+        {
+            first.addSuppressed(failure);
+        }
+        if (first instanceof Error)
+        {
+            throw (Error) first;
+        }
+        throw (RuntimeException) first;
+    }
+
+    private T load(File file)
+    {
+        T config = this.template.load(file);
+        config.bindFile(file);
+        return config;
+    }
+
+    @Override
+    public String toString()
+    {
+        return new ToStringBuilder(this).appendSuper(super.toString()).append("template", this.template.getName())
+                                        .append("parallelism", this.parallelism).append("maxPending", this.maxPending).toString();
+    }
+}
@@ -44,6 +44,7 @@ import org.diorite.config.Config;
 import org.diorite.config.ConfigPropertyTemplate;
 import org.diorite.config.ConfigPropertyValue;
 import org.diorite.config.ConfigTemplate;
+import org.diorite.config.StreamedSequence;
 import org.diorite.config.ValidatorFunction;
 import org.diorite.config.annotations.AsList;
 import org.diorite.config.annotations.BooleanFormat;
@@ -52,16 +53,20 @@ import org.diorite.config.annotations.Comment;
 import org.diorite.config.annotations.CustomKey;
 import org.diorite.config.annotations.Formatted;
 import org.diorite.config.annotations.HexNumber;
+import org.diorite.config.annotations.Lazy;
 import org.diorite.config.annotations.MapTypes;
 import org.diorite.config.annotations.Mapped;
 import org.diorite.config.annotations.PaddedNumber;
 import org.diorite.config.annotations.PropertyNamingStrategy;
 import org.diorite.config.annotations.PropertyType;
+import org.diorite.config.annotations.Streamed;
 import org.diorite.config.annotations.Unmodifiable;
 import org.diorite.config.impl.naming.PropertyNameStrategy;
 import org.diorite.config.impl.naming.StandardPropertyNamingStrategies;
 import org.diorite.config.serialization.DeserializationData;
 import org.diorite.config.serialization.SerializationData;
+import org.diorite.config.serialization.YamlDeserializationData;
+import org.diorite.config.serialization.YamlDeserializationData.DetachedValue;
 import org.diorite.config.serialization.comments.DocumentComments;
 import org.diorite.config.serialization.snakeyaml.YamlCollectionCreator;
 
@@ -89,6 +94,8 @@ public class ConfigPropertyTemplateImpl<T> implements ConfigPropertyTemplate<T>
     private BiFunction<Config, T, String> toStringMapper;
 
     private boolean returnUnmodifiableCollections;
+    private boolean lazy;
+    private boolean streamed;
 
     public ConfigPropertyTemplateImpl(ConfigTemplate<?> template, Class<T> rawType, Type genericType, String name, Function<Config, T> defaultValueSupplier,
                                       AnnotatedElement annotatedElement)
@@ -170,6 +177,19 @@ public class ConfigPropertyTemplateImpl<T> implements ConfigPropertyTemplate<T>
         }
 
         this.returnUnmodifiableCollections = this.annotatedElement.isAnnotationPresent(Unmodifiable.class);
+        this.lazy = this.annotatedElement.isAnnotationPresent(Lazy.class);
+    }
+
+    @Override
+    public boolean isLazy()
+    {
+        return this.lazy;
+    }
+
+    @Override
+    public boolean isStreamed()
+    {
+        return this.streamed;
     }
 
     public void setToKeyMapper(@Nullable BiFunction<Config, String, T> toKeyMapper)
@@ -202,6 +222,12 @@ public class ConfigPropertyTemplateImpl<T> implements ConfigPropertyTemplate<T>
             return;
         }
 
+        if (this.annotatedElement.isAnnotationPresent(Streamed.class))
+        {
+            this.initForStreamed(key);
+            return;
+        }
+
         if (Collection.class.isAssignableFrom(this.rawType))
         {
             this.initForCollection(key);
@@ -248,7 +274,7 @@ public class ConfigPropertyTemplateImpl<T> implements ConfigPropertyTemplate<T>
                     this.serializeFunc = (data, val) -> data.addMap(key, ((Map) val.getPropertyValue()), valueType);
                     this.deserializeFunc = (data, val) ->
                     {
-                        Map collection = YamlCollectionCreator.createCollection(this.rawType, 10);
+                        Map collection = YamlCollectionCreator.createCollection(this.rawType, data.getElementCount(key));
                         data.getMap(key, s -> this.toKeyMapper.apply(val.getDeclaringConfig(), s), valueType, collection);
                         val.setPropertyValue(collection);
                     };
@@ -258,7 +284,7 @@ public class ConfigPropertyTemplateImpl<T> implements ConfigPropertyTemplate<T>
                     this.serializeFunc = (data, val) -> data.addMap(key, ((Map) val.getPropertyValue()), keyType, valueType);
                     this.deserializeFunc = (data, val) ->
                     {
-                        Map collection = YamlCollectionCreator.createCollection(this.rawType, 10);
+                        Map collection = YamlCollectionCreator.createCollection(this.rawType, data.getElementCount(key));
                         data.getMap(key, keyType, valueType, collection);
                         val.setPropertyValue(collection);
                     };
@@ -275,7 +301,7 @@ public class ConfigPropertyTemplateImpl<T> implements ConfigPropertyTemplate<T>
                                                                 s -> String.valueOf(this.toStringMapper.apply(val.getDeclaringConfig(), (T) s)));
                 this.deserializeFunc = (data, val) ->
                 {
-                    Map collection = YamlCollectionCreator.createCollection(this.rawType, 10);
+                    Map collection = YamlCollectionCreator.createCollection(this.rawType, data.getElementCount(key));
                     data.getMap(key, s -> this.toKeyMapper.apply(val.getDeclaringConfig(), s), valueType, collection);
                     val.setPropertyValue(collection);
                 };
@@ -294,7 +320,7 @@ public class ConfigPropertyTemplateImpl<T> implements ConfigPropertyTemplate<T>
                 this.serializeFunc = (data, val) -> data.addMapAsList(key, ((Map) val.getPropertyValue()), valueType);
                 this.deserializeFunc = (data, val) ->
                 {
-                    Object collection = YamlCollectionCreator.createCollection(this.rawType, 10);
+                    Object collection = YamlCollectionCreator.createCollection(this.rawType, data.getElementCount(key));
                     data.getAsMap(key, valueType, s -> String.valueOf(this.toStringMapper.apply(val.getDeclaringConfig(), (T) s)), (Map) collection);
                     val.setPropertyValue(collection);
                 };
@@ -304,7 +330,7 @@ public class ConfigPropertyTemplateImpl<T> implements ConfigPropertyTemplate<T>
                 this.serializeFunc = (data, val) -> data.addMapAsListWithKeys(key, ((Map) val.getPropertyValue()), valueType, keyProperty);
                 this.deserializeFunc = (data, val) ->
                 {
-                    Object collection = YamlCollectionCreator.createCollection(this.rawType, 10);
+                    Object collection = YamlCollectionCreator.createCollection(this.rawType, data.getElementCount(key));
                     data.getAsMapWithKeys(key, keyType, valueType, keyProperty, (Map) collection);
                     val.setPropertyValue(collection);
                 };
@@ -322,7 +348,7 @@ public class ConfigPropertyTemplateImpl<T> implements ConfigPropertyTemplate<T>
             this.serializeFunc = (data, val) -> data.addCollection(key, (Collection) val.getPropertyValue(), collectionType);
             this.deserializeFunc = (data, val) ->
             {
-                Object collection = YamlCollectionCreator.createCollection(this.rawType, 10);
+                Object collection = YamlCollectionCreator.createCollection(this.rawType, data.getElementCount(key));
                 data.getAsCollection(key, collectionType, (Collection) collection);
                 val.setPropertyValue(collection);
             };
@@ -338,13 +364,26 @@ public class ConfigPropertyTemplateImpl<T> implements ConfigPropertyTemplate<T>
                                                                    o -> String.valueOf(this.toStringMapper.apply(val.getDeclaringConfig(), (T) o)));
             this.deserializeFunc = (data, val) ->
             {
-                Object collection = YamlCollectionCreator.createCollection(this.rawType, 10);
+                Object collection = YamlCollectionCreator.createCollection(this.rawType, data.getElementCount(key));
                 data.getAsCollection(key, collectionType, (Collection) collection);
                 val.setPropertyValue(collection);
             };
         }
     }
 
+    private void initForStreamed(String key)
+    {
+        if (this.rawType != Iterable.class)
+        {
+            throw new IllegalStateException("Streamed property '" + this.name + "' must be an Iterable (" + this.genericType + ") in: " +
+                                            this.template.getConfigType());
+        }
+        Class collectionType = this.getCollectionType(null);
+        this.streamed = true;
+        this.serializeFunc = (data, val) -> data.addCollection(key, StreamedSequence.toCollection((Iterable) val.getPropertyValue()), collectionType);
+        this.deserializeFunc = (data, val) -> val.setPropertyValue(StreamedSequence.deserialize(val.getDeclaringConfig(), data, key, collectionType));
+    }
+
     private Class<?>[] getMapType(@Nullable AsList asList)
     {
         Class<?>[] result = new Class[2];
@@ -584,6 +623,16 @@ public class ConfigPropertyTemplateImpl<T> implements ConfigPropertyTemplate<T>
     public void deserialize(DeserializationData data, ConfigPropertyValue<T> value)
     {
         Validate.notNull(this.deserializeFunc);
+        if (this.lazy && (data instanceof YamlDeserializationData) && (value instanceof ConfigPropertyValueImpl) &&
+            ((ConfigPropertyValueImpl<T>) value).canDeserializeLazily())
+        {
+            DetachedValue lazyData = ((YamlDeserializationData) data).detach(this.name);
+            if (lazyData != null)
+            {
+                ((ConfigPropertyValueImpl<T>) value).setLazyData(lazyData);
+                return;
+            }
+        }
         this.deserializeFunc.accept(data, value);
     }
 
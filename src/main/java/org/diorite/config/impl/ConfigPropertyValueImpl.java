@@ -29,13 +29,16 @@ import javax.annotation.Nullable;
 import java.util.Collection;
 import java.util.Map;
 
+import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.Validate;
 
 import org.diorite.commons.reflections.DioriteReflectionUtils;
 import org.diorite.config.Config;
 import org.diorite.config.ConfigPropertyTemplate;
 import org.diorite.config.ConfigPropertyValue;
+import org.diorite.config.ConfigTemplate;
 import org.diorite.config.exceptions.ValidationException;
+import org.diorite.config.serialization.YamlDeserializationData.DetachedValue;
 import org.diorite.config.serialization.snakeyaml.YamlCollectionCreator;
 
 import groovy.transform.CompileStatic;
@@ -48,12 +51,36 @@ public class ConfigPropertyValueImpl<T> implements ConfigPropertyValue<T>
     private final     ConfigPropertyTemplate<T> template;
     @Nullable private T                         rawValue;
 
+    // frozen values are separate instances, so their state is final and safely published with them.
+    private final           boolean frozen;
+    private final           boolean frozenReturnRaw;
+    @Nullable private final T       frozenValue;
+
+    @Nullable private volatile ConfigChangeDispatcher changeDispatcher;
+
+    // detached node of value that wasn't deserialized yet, rawValue is published by volatile write of null to this field.
+    @Nullable private volatile DetachedValue lazyData;
+    // guarded by this
+    private                    boolean       resolvingLazyData;
+
     public ConfigPropertyValueImpl(Config config, ConfigPropertyTemplate<T> template)
     {
         Validate.notNull(config, "config can't be null");
         Validate.notNull(template, "template can't be null");
         this.config = config;
         this.template = template;
+        this.frozen = false;
+        this.frozenReturnRaw = false;
+        this.frozenValue = null;
+    }
+
+    private ConfigPropertyValueImpl(ConfigPropertyValueImpl<T> source, @Nullable T frozenValue, boolean frozenReturnRaw)
+    {
+        this.config = source.config;
+        this.template = source.template;
+        this.frozen = true;
+        this.frozenReturnRaw = frozenReturnRaw;
+        this.frozenValue = frozenValue;
     }
 
     public ConfigPropertyValueImpl(Config config, ConfigPropertyTemplate<T> template, @Nullable T value)
@@ -78,9 +105,147 @@ public class ConfigPropertyValueImpl<T> implements ConfigPropertyValue<T>
     @Override
     public T getRawValue()
     {
+        if (this.frozen)
+        {
+            return this.frozenValue;
+        }
+        if (this.lazyData != null)
+        {
+            this.resolveLazyData();
+        }
         return this.rawValue;
     }
 
+    /**
+     * Returns true if value can be deserialized lazily, lazy deserialization is not used if there are any change listeners registered, as they
+     * need to know new value.
+     *
+     * @return true if value can be deserialized lazily.
+     */
+    public boolean canDeserializeLazily()
+    {
+        if (this.frozen || this.resolvingLazyData)
+        {
+            return false;
+        }
+        ConfigChangeDispatcher changeDispatcher = this.changeDispatcher;
+        return (changeDispatcher == null) || ! changeDispatcher.hasListeners();
+    }
+
+    /**
+     * Returns data of value that will be deserialized on first access, or null if value is already deserialized.
+     *
+     * @return data of not yet deserialized value.
+     */
+    @Nullable
+    public DetachedValue getLazyData()
+    {
+        return this.lazyData;
+    }
+
+    /**
+     * Set data of value to deserialize on first access, replacing current value.
+     *
+     * @param lazyData
+     *         detached data containing value of this property.
+     */
+    public synchronized void setLazyData(DetachedValue lazyData)
+    {
+        this.checkFrozen();
+        this.lazyData = lazyData;
+    }
+
+    private synchronized void resolveLazyData()
+    {
+        DetachedValue lazyData = this.lazyData;
+        if ((lazyData == null) || this.resolvingLazyData)
+        {
+            return;
+        }
+        this.resolvingLazyData = true;
+        try
+        {
+            lazyData.deserialize(data -> this.template.deserialize(data, this));
+            this.lazyData = null;
+        }
+        finally
+        {
+            this.resolvingLazyData = false;
+        }
+    }
+
+    @Nullable
+    @Override
+    public T getPropertyValue()
+    {
+        if (this.frozenReturnRaw)
+        {
+            return this.frozenValue;
+        }
+        return this.template.get(this);
+    }
+
+    /**
+     * Returns true if this property value was frozen and can't be changed anymore.
+     *
+     * @return true if this property value is frozen.
+     */
+    public boolean isFrozen()
+    {
+        return this.frozen;
+    }
+
+    /**
+     * Returns frozen copy of this property value, collections and maps are replaced by unmodifiable views and nested configs by frozen copies, so
+     * stored value can be returned directly by getters. <br>
+     * Arrays are still copied on each get if property returns unmodifiable collections. <br>
+     * All attempts to change returned value will throw {@link UnsupportedOperationException}, this value is not changed.
+     *
+     * @return frozen copy of this property value, or this value if it is already frozen.
+     */
+    @SuppressWarnings("unchecked")
+    public ConfigPropertyValueImpl<T> freeze()
+    {
+        if (this.frozen)
+        {
+            return this;
+        }
+        T value = this.getRawValue();
+        boolean returnRaw = true;
+        if (value instanceof Config)
+        {
+            value = (T) ((Config) value).freeze();
+        }
+        else if ((value instanceof Collection) || (value instanceof Map))
+        {
+            value = YamlCollectionCreator.makeUnmodifiable(value);
+        }
+        else if ((value != null) && value.getClass().isArray())
+        {
+            returnRaw = false;
+        }
+        return new ConfigPropertyValueImpl<>(this, value, returnRaw);
+    }
+
+    /**
+     * Set dispatcher notified about changes of this property value.
+     *
+     * @param changeDispatcher
+     *         dispatcher to use, or null.
+     */
+    public void setChangeDispatcher(@Nullable ConfigChangeDispatcher changeDispatcher)
+    {
+        this.changeDispatcher = changeDispatcher;
+    }
+
+    private void checkFrozen()
+    {
+        if (this.frozen)
+        {
+            throw new UnsupportedOperationException("Property " + this.template.getName() + " of frozen config can't be changed.");
+        }
+    }
+
     @Nullable
     public T validate(@Nullable T input) throws ValidationException
     {
@@ -94,9 +259,35 @@ public class ConfigPropertyValueImpl<T> implements ConfigPropertyValue<T>
         }
     }
 
-    @SuppressWarnings("unchecked")
     @Override
     public void setRawValue(@Nullable T value) throws ValidationException
+    {
+        this.checkFrozen();
+        if (this.lazyData != null)
+        {
+            synchronized (this)
+            {
+                if (this.resolvingLazyData)
+                {
+                    this.setRawValue0(value);
+                    return;
+                }
+                this.lazyData = null;
+            }
+        }
+        ConfigChangeDispatcher changeDispatcher = this.changeDispatcher;
+        if ((changeDispatcher == null) || ! changeDispatcher.hasListeners())
+        {
+            this.setRawValue0(value);
+            return;
+        }
+        T oldValue = this.rawValue;
+        this.setRawValue0(value);
+        changeDispatcher.fireChange(this.template.getName(), oldValue, this.rawValue);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void setRawValue0(@Nullable T value) throws ValidationException
     {
         value = this.validate(value);
         Class<T> rawType = this.template.getRawType();
@@ -118,7 +309,7 @@ public class ConfigPropertyValueImpl<T> implements ConfigPropertyValue<T>
                 {
                     if (Collection.class.isAssignableFrom(rawType) || (Map.class.isAssignableFrom(rawType) && ! Config.class.isAssignableFrom(rawType)))
                     {
-                        this.rawValue = YamlCollectionCreator.createCollection(rawType, 10);
+                        this.rawValue = YamlCollectionCreator.createCollection(rawType, 0);
                         return;
                     }
                 }
@@ -183,21 +374,58 @@ public class ConfigPropertyValueImpl<T> implements ConfigPropertyValue<T>
     @Override
     public void set(String[] path, @Nullable Object value) throws IllegalStateException
     {
-        Validate.notNull(this.rawValue);
-        NestedNodesHelper.set(this.rawValue, path, value);
+        this.checkFrozen();
+        T rawValue = this.getRawValue();
+        Validate.notNull(rawValue);
+        ConfigChangeDispatcher changeDispatcher = this.changeDispatcher;
+        if ((changeDispatcher == null) || ! changeDispatcher.hasListeners())
+        {
+            NestedNodesHelper.set(rawValue, path, value);
+            return;
+        }
+        Object oldValue = this.getNested(path);
+        NestedNodesHelper.set(rawValue, path, value);
+        changeDispatcher.fireChange(this.getNestedKey(path), oldValue, value);
+    }
+
+    @Nullable
+    private Object getNested(String[] path)
+    {
+        try
+        {
+            return NestedNodesHelper.get(this.getRawValue(), path);
+        }
+        catch (Exception e)
+        {
+            return null;
+        }
+    }
+
+    private String getNestedKey(String[] path)
+    {
+        return this.template.getName() + ConfigTemplate.SEPARATOR + StringUtils.join(path, ConfigTemplate.SEPARATOR);
     }
 
     @Override
     public Object get(String[] path) throws IllegalStateException
     {
-        Validate.notNull(this.rawValue);
-        return NestedNodesHelper.get(this.rawValue, path);
+        T rawValue = this.getRawValue();
+        Validate.notNull(rawValue);
+        return NestedNodesHelper.get(rawValue, path);
     }
 
     @Override
     public Object remove(String[] path) throws IllegalStateException
     {
-        Validate.notNull(this.rawValue);
-        return NestedNodesHelper.remove(this.rawValue, path);
+        this.checkFrozen();
+        T rawValue = this.getRawValue();
+        Validate.notNull(rawValue);
+        Object removed = NestedNodesHelper.remove(rawValue, path);
+        ConfigChangeDispatcher changeDispatcher = this.changeDispatcher;
+        if ((changeDispatcher != null) && (removed != null))
+        {
+            changeDispatcher.fireChange(this.getNestedKey(path), removed, null);
+        }
+        return removed;
     }
 }
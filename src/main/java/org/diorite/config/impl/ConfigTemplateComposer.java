@@ -0,0 +1,118 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017. Diorite (by Bartłomiej Mazur (aka GotoFinal))
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.diorite.config.impl;
+
+import javax.annotation.Nullable;
+
+import org.yaml.snakeyaml.composer.Composer;
+import org.yaml.snakeyaml.events.Event.ID;
+import org.yaml.snakeyaml.nodes.MappingNode;
+import org.yaml.snakeyaml.nodes.Node;
+import org.yaml.snakeyaml.nodes.ScalarNode;
+import org.yaml.snakeyaml.nodes.Tag;
+import org.yaml.snakeyaml.parser.Parser;
+import org.yaml.snakeyaml.resolver.Resolver;
+
+/**
+ * Composer used when loading configs, it tracks keys of root mapping so scalar values of top-level properties can be resolved directly from
+ * types known by config template instead of running implicit resolvers on them. <br>
+ * Root keys are always resolved as strings, nested nodes and values of unknown keys are resolved normally. <br>
+ * If given resolver isn't a {@link ConfigTemplateResolver}, all nodes are resolved normally, so composers used for configs and other documents
+ * can share this class.
+ */
+public class ConfigTemplateComposer extends Composer
+{
+    private final           Parser                 parser;
+    @Nullable private final ConfigTemplateResolver resolver;
+
+    @Nullable private MappingNode root;
+    @Nullable private String      currentKey;
+
+    public ConfigTemplateComposer(Parser parser, Resolver resolver)
+    {
+        super(parser, resolver);
+        this.parser = parser;
+        this.resolver = (resolver instanceof ConfigTemplateResolver) ? (ConfigTemplateResolver) resolver : null;
+    }
+
+    @Override
+    protected Node composeKeyNode(MappingNode node)
+    {
+        ConfigTemplateResolver resolver = this.resolver;
+        if (resolver == null)
+        {
+            return super.composeKeyNode(node);
+        }
+        if (this.root == null)
+        {
+            // keys of root mapping are always composed before any nested node.
+            this.root = node;
+        }
+        if (node != this.root)
+        {
+            return super.composeKeyNode(node);
+        }
+        this.currentKey = null;
+        boolean scalar = this.parser.checkEvent(ID.Scalar);
+        if (scalar)
+        {
+            resolver.expectScalar(Tag.STR);
+        }
+        try
+        {
+            Node keyNode = super.composeKeyNode(node);
+            if (scalar && (keyNode instanceof ScalarNode))
+            {
+                this.currentKey = ((ScalarNode) keyNode).getValue();
+            }
+            return keyNode;
+        }
+        finally
+        {
+            resolver.expectScalar(null);
+        }
+    }
+
+    @Override
+    protected Node composeValueNode(MappingNode node)
+    {
+        ConfigTemplateResolver resolver = this.resolver;
+        String key = this.currentKey;
+        if ((resolver == null) || (node != this.root) || (key == null) || ! this.parser.checkEvent(ID.Scalar))
+        {
+            return super.composeValueNode(node);
+        }
+        this.currentKey = null;
+        resolver.expectScalar(resolver.getExpectedScalarTag(key));
+        try
+        {
+            return super.composeValueNode(node);
+        }
+        finally
+        {
+            resolver.expectScalar(null);
+        }
+    }
+}
@@ -64,7 +64,9 @@ import org.diorite.config.ConfigManager;
 import org.diorite.config.ConfigPropertyAction;
 import org.diorite.config.ConfigPropertyActionInstance;
 import org.diorite.config.ConfigPropertyTemplate;
+import org.diorite.config.ConfigSnapshotCache;
 import org.diorite.config.ConfigTemplate;
+import org.diorite.config.FileLoadMode;
 import org.diorite.config.MethodSignature;
 import org.diorite.config.Property;
 import org.diorite.config.ValidatorFunction;
@@ -83,6 +85,9 @@ public class ConfigTemplateImpl<T extends Config> implements ConfigTemplate<T>
     private       String                       name;
     private       CharsetEncoder               charsetEncoder;
     private       CharsetDecoder               charsetDecoder;
+    private       FileLoadMode                 fileLoadMode = FileLoadMode.STREAM;
+    @Nullable
+    private       ConfigSnapshotCache          snapshotCache;
     private final ConfigImplementationProvider implementationProvider;
 
     private final List<String>                               order             = new ArrayList<>(10);
@@ -826,6 +831,31 @@ public class ConfigTemplateImpl<T extends Config> implements ConfigTemplate<T>
         this.charsetDecoder = decoder;
     }
 
+    @Override
+    public FileLoadMode getFileLoadMode()
+    {
+        return this.fileLoadMode;
+    }
+
+    @Override
+    public void setFileLoadMode(FileLoadMode fileLoadMode)
+    {
+        this.fileLoadMode = fileLoadMode;
+    }
+
+    @Nullable
+    @Override
+    public ConfigSnapshotCache getSnapshotCache()
+    {
+        return this.snapshotCache;
+    }
+
+    @Override
+    public void setSnapshotCache(@Nullable ConfigSnapshotCache snapshotCache)
+    {
+        this.snapshotCache = snapshotCache;
+    }
+
     @Override
     public T create()
     {
@@ -24,65 +24,109 @@
 
 package org.diorite.config.impl;
 
-import java.util.Collection;
+import javax.annotation.Nullable;
+
+import java.util.HashMap;
 import java.util.Map;
 
 import org.yaml.snakeyaml.nodes.NodeId;
 import org.yaml.snakeyaml.nodes.Tag;
 import org.yaml.snakeyaml.resolver.Resolver;
 
+import org.diorite.commons.enums.DynamicEnum;
 import org.diorite.commons.reflections.DioriteReflectionUtils;
-import org.diorite.config.Config;
 import org.diorite.config.ConfigPropertyTemplate;
 import org.diorite.config.ConfigTemplate;
-import org.diorite.config.SimpleConfig;
 
+/**
+ * Resolver used when loading configs, values of top-level properties with simple types are resolved using type known from template, without
+ * running implicit resolvers, see {@link ConfigTemplateComposer}. <br>
+ * All other nodes are resolved by delegate resolver.
+ */
 public class ConfigTemplateResolver extends Resolver
 {
-    private final ConfigTemplate<?> configTemplate;
-    private static final Tag nodeTag = new Tag(SimpleConfig.class);
-    private boolean first;
+    private static final Map<Class<?>, Tag> simpleTypeTags = new HashMap<>(10);
+
+    static
+    {
+        simpleTypeTags.put(String.class, Tag.STR);
+        simpleTypeTags.put(Boolean.class, Tag.BOOL);
+        simpleTypeTags.put(Byte.class, Tag.INT);
+        simpleTypeTags.put(Short.class, Tag.INT);
+        simpleTypeTags.put(Integer.class, Tag.INT);
+        simpleTypeTags.put(Long.class, Tag.INT);
+        simpleTypeTags.put(Float.class, Tag.FLOAT);
+        simpleTypeTags.put(Double.class, Tag.FLOAT);
+    }
+
+    private final     ConfigTemplate<?> configTemplate;
+    private final     Resolver          delegate;
+    @Nullable private Tag               expectedScalarTag;
 
     public ConfigTemplateResolver(ConfigTemplate<?> configTemplate)
+    {
+        this(configTemplate, new Resolver());
+    }
+
+    public ConfigTemplateResolver(ConfigTemplate<?> configTemplate, Resolver delegate)
     {
         this.configTemplate = configTemplate;
+        this.delegate = delegate;
     }
 
-    @Override
-    public Tag resolve(NodeId kind, String value, boolean implicit)
+    /**
+     * Returns tag of scalar values of given top-level key, if type of that property is a string, number, boolean or enum.
+     *
+     * @param key
+     *         top-level key.
+     *
+     * @return tag of values of given key, or null if it is not known.
+     */
+    @Nullable
+    public Tag getExpectedScalarTag(String key)
     {
-        if ((kind == NodeId.mapping) && (value == null) && implicit)
+        ConfigPropertyTemplate<?> templateFor = this.configTemplate.getTemplateFor(key);
+        if (templateFor == null)
         {
-            if (this.first)
-            {
-                this.first = false;
-                return new Tag(this.configTemplate.getConfigType());
-            }
-            return nodeTag;
+            return null;
         }
-        Tag resolve = super.resolve(kind, value, implicit);
-        if (value != null)
+        Class<?> rawType = templateFor.getRawType();
+        if (rawType.isEnum() || DynamicEnum.class.isAssignableFrom(rawType))
         {
-            ConfigPropertyTemplate<?> templateFor = this.configTemplate.getTemplateFor(value);
-            if (templateFor != null)
+            return Tag.STR;
+        }
+        return simpleTypeTags.get(DioriteReflectionUtils.getWrapperClass(rawType));
+    }
+
+    /**
+     * Set tag of next resolved scalar, implicit resolvers are skipped for that scalar unless it is null or merge key.
+     *
+     * @param tag
+     *         tag of next scalar, or null to resolve it normally.
+     */
+    public void expectScalar(@Nullable Tag tag)
+    {
+        this.expectedScalarTag = tag;
+    }
+
+    @Override
+    public Tag resolve(NodeId kind, String value, boolean implicit)
+    {
+        if ((kind == NodeId.scalar) && (this.expectedScalarTag != null))
+        {
+            Tag expected = this.expectedScalarTag;
+            this.expectedScalarTag = null;
+            if (implicit && ! isNullOrMerge(value))
             {
-                Class<?> rawType = templateFor.getRawType();
-                if (DioriteReflectionUtils.getPrimitive(rawType).isPrimitive())
-                {
-                    return resolve;
-                }
-                if (Collection.class.isAssignableFrom(rawType))
-                {
-                    return resolve;
-                }
-                if (Map.class.isAssignableFrom(rawType) && ! Config.class.isAssignableFrom(rawType))
-                {
-                    return resolve;
-                }
-                return new Tag(rawType);
+                return expected;
             }
         }
+        return this.delegate.resolve(kind, value, implicit);
+    }
 
-        return resolve;
+    // uses the same patterns as implicit resolvers of null values and merge keys.
+    private static boolean isNullOrMerge(String value)
+    {
+        return Resolver.EMPTY.matcher(value).matches() || Resolver.NULL.matcher(value).matches() || Resolver.MERGE.matcher(value).matches();
     }
 }
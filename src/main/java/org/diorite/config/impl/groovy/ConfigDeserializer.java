@@ -24,21 +24,33 @@
 
 package org.diorite.config.impl.groovy;
 
+import javax.annotation.Nullable;
+
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.math.BigInteger;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Objects;
 import java.util.Set;
 
+import org.apache.commons.lang3.Validate;
 import org.yaml.snakeyaml.nodes.Tag;
 
 import org.diorite.config.Config;
 import org.diorite.config.ConfigManager;
+import org.diorite.config.ConfigPropertyTemplate;
+import org.diorite.config.ConfigPropertyValue;
 import org.diorite.config.SimpleConfig;
 import org.diorite.config.impl.ConfigPropertyValueImpl;
+import org.diorite.config.impl.NestedNodesHelper;
 import org.diorite.config.serialization.DeserializationData;
+import org.diorite.config.serialization.Serialization;
 import org.diorite.config.serialization.SerializationData;
 import org.diorite.config.serialization.Serializer;
 import org.diorite.config.serialization.YamlDeserializationData;
@@ -125,7 +137,7 @@ public class ConfigDeserializer<T extends Config> implements Serializer<T>
         }
         else
         {
-            // should never happen?
+            // non-groovy implementations, like CompactSimpleConfig
             for (Entry<String, Object> entry : object.entries())
             {
                 Object v = entry.getValue();
@@ -134,7 +146,18 @@ public class ConfigDeserializer<T extends Config> implements Serializer<T>
                     data.add(entry.getKey(), (SimpleConfig) v, SimpleConfig.class);
                     continue;
                 }
-                data.add(entry.getKey(), entry.getValue());
+                if (v instanceof Collection)
+                {
+                    data.addCollection(entry.getKey(), (Collection<?>) v, Object.class);
+                }
+                else if ((v instanceof Map) && ! (v instanceof Config))
+                {
+                    data.addMap(entry.getKey(), (Map<?, ?>) v, Object.class);
+                }
+                else
+                {
+                    data.addRaw(entry.getKey(), v);
+                }
             }
         }
     }
@@ -151,46 +174,233 @@ public class ConfigDeserializer<T extends Config> implements Serializer<T>
         }
         YamlDeserializationData data = ((YamlDeserializationData) abstractData);
         T object = ConfigManager.get().getConfigFile(this.clazz).create();
+        for (String key : data.getKeys())
+        {
+            this.deserializeKey(object, data, key);
+        }
 
+        return object;
+    }
+
+    /**
+     * Deserialize single top-level key from given data directly into given config object.
+     *
+     * @param object
+     *         config object to deserialize value into.
+     * @param data
+     *         deserialization data containing given key.
+     * @param key
+     *         key to deserialize.
+     */
+    public void deserializeKey(T object, YamlDeserializationData data, String key)
+    {
         if (object instanceof ConfigBaseGroovy)
         {
-            ConfigBaseGroovy cfg = (ConfigBaseGroovy) object;
-            AbstractConfigGroovy internalCfg = (AbstractConfigGroovy) cfg;
-            for (String key : data.getKeys())
+            AbstractConfigGroovy internalCfg = (AbstractConfigGroovy) object;
+            ConfigPropertyValueImpl<Object> propertyValue = internalCfg.predefinedValues$Internal$().get(key);
+            if (propertyValue != null)
             {
-                ConfigPropertyValueImpl<Object> propertyValue = internalCfg.predefinedValues$Internal$().get(key);
-                if (propertyValue != null)
-                {
-                    propertyValue.deserialize(data);
-                    continue;
-                }
-                if (sectionTags.contains(data.getTag(key)))
-                {
-                    SimpleConfig simpleConfig = data.get(key, SimpleConfig.class);
-                    object.set(key, simpleConfig);
-                }
-                else
-                {
-                    object.set(key, data.get(key, Object.class));
-                }
+                propertyValue.deserialize(data);
+                return;
             }
         }
+        if (sectionTags.contains(data.getTag(key)))
+        {
+            SimpleConfig simpleConfig = data.get(key, SimpleConfig.class);
+            object.set(key, simpleConfig);
+        }
         else
         {
-            for (String key : data.getKeys())
+            object.set(key, data.get(key, Object.class));
+        }
+    }
+
+    /**
+     * Read given yaml document entry by entry and apply to given config only values that differ from values currently held by it, setters and
+     * validators are not invoked for unchanged keys. <br>
+     * Properties of config missing in document are reset to their default values, like on full load.
+     *
+     * @param object
+     *         config object to update.
+     * @param reader
+     *         reader of yaml document.
+     *
+     * @return set of changed top-level keys.
+     */
+    public Set<String> loadChanges(T object, Reader reader)
+    {
+        Set<String> loadedKeys = new HashSet<>(16);
+        Set<String> changedKeys = new LinkedHashSet<>(16);
+        Serialization.getInstance().fromYamlEntries(object.template(), reader, (key, data) ->
+        {
+            loadedKeys.add(key);
+            if (this.deserializeChangedKey(object, data, key))
             {
-                if (sectionTags.contains(data.getTag(key)))
-                {
-                    SimpleConfig simpleConfig = data.get(key, SimpleConfig.class);
-                    object.set(key, simpleConfig);
-                }
-                else
+                changedKeys.add(key);
+            }
+        });
+        resetMissingProperties(object, loadedKeys, changedKeys);
+        return changedKeys;
+    }
+
+    /**
+     * Read given yaml document entry by entry and deserialize each top-level key directly into given config object. <br>
+     * Properties of config missing in document are reset to their default values, like on full load, other keys of config are kept.
+     *
+     * @param object
+     *         config object to load into.
+     * @param reader
+     *         reader of yaml document.
+     */
+    public void loadEntries(T object, Reader reader)
+    {
+        Set<String> loadedKeys = new HashSet<>(16);
+        Serialization.getInstance().fromYamlEntries(object.template(), reader, (key, data) ->
+        {
+            loadedKeys.add(key);
+            this.deserializeKey(object, data, key);
+        });
+        resetMissingProperties(object, loadedKeys, new HashSet<>(4));
+    }
+
+    private static void resetMissingProperties(Config object, Set<String> loadedKeys, Set<String> changedKeys)
+    {
+        if (! (object instanceof ConfigBaseGroovy))
+        {
+            return;
+        }
+        for (ConfigPropertyValueImpl<Object> propertyValue : ((AbstractConfigGroovy) object).predefinedValues$Internal$().values())
+        {
+            if (loadedKeys.contains(propertyValue.getName()))
+            {
+                continue;
+            }
+            Object defaultValue = propertyValue.getDefault();
+            if (! valuesEqual(propertyValue.getRawValue(), defaultValue))
+            {
+                propertyValue.setPropertyValue(defaultValue);
+                changedKeys.add(propertyValue.getName());
+            }
+        }
+    }
+
+    private boolean deserializeChangedKey(T object, YamlDeserializationData data, String key)
+    {
+        if (object instanceof ConfigBaseGroovy)
+        {
+            AbstractConfigGroovy internalCfg = (AbstractConfigGroovy) object;
+            ConfigPropertyValueImpl<Object> propertyValue = internalCfg.predefinedValues$Internal$().get(key);
+            if (propertyValue != null)
+            {
+                StagedPropertyValue<Object> staged = new StagedPropertyValue<>(object, propertyValue.getProperty());
+                staged.deserialize(data);
+                Object oldValue = propertyValue.getRawValue();
+                if (valuesEqual(oldValue, staged.getRawValue()))
                 {
-                    object.set(key, data.get(key, Object.class));
+                    return false;
                 }
+                propertyValue.setPropertyValue(staged.getRawValue());
+                // validators might normalize new value back to current one.
+                return ! valuesEqual(oldValue, propertyValue.getRawValue());
             }
         }
+        Object newValue;
+        if (sectionTags.contains(data.getTag(key)))
+        {
+            newValue = data.get(key, SimpleConfig.class);
+        }
+        else
+        {
+            newValue = data.get(key, Object.class);
+        }
+        if (valuesEqual(object.get(key), newValue))
+        {
+            return false;
+        }
+        object.set(key, newValue);
+        return true;
+    }
 
-        return object;
+    private static boolean valuesEqual(@Nullable Object a, @Nullable Object b)
+    {
+        if ((a instanceof Number) && (b instanceof Number))
+        {
+            Number numA = (Number) a;
+            Number numB = (Number) b;
+            if ((numA instanceof Double) || (numA instanceof Float) || (numB instanceof Double) || (numB instanceof Float))
+            {
+                return Double.compare(numA.doubleValue(), numB.doubleValue()) == 0;
+            }
+            if ((numA instanceof BigDecimal) || (numA instanceof BigInteger) || (numB instanceof BigDecimal) || (numB instanceof BigInteger))
+            {
+                return Objects.equals(a, b);
+            }
+            return numA.longValue() == numB.longValue();
+        }
+        return Objects.deepEquals(a, b);
+    }
+
+    /**
+     * Property value used only to capture deserialized value of property without validating it or changing config.
+     */
+    private static final class StagedPropertyValue<X> implements ConfigPropertyValue<X>
+    {
+        private final     Config                    config;
+        private final     ConfigPropertyTemplate<X> template;
+        @Nullable private X                         rawValue;
+
+        private StagedPropertyValue(Config config, ConfigPropertyTemplate<X> template)
+        {
+            this.config = config;
+            this.template = template;
+        }
+
+        @Override
+        public Config getDeclaringConfig()
+        {
+            return this.config;
+        }
+
+        @Override
+        public ConfigPropertyTemplate<X> getProperty()
+        {
+            return this.template;
+        }
+
+        @Nullable
+        @Override
+        public X getRawValue()
+        {
+            return this.rawValue;
+        }
+
+        @Override
+        public void setRawValue(@Nullable X value)
+        {
+            this.rawValue = value;
+        }
+
+        @Override
+        public void set(String[] path, @Nullable Object value)
+        {
+            Validate.notNull(this.rawValue);
+            NestedNodesHelper.set(this.rawValue, path, value);
+        }
+
+        @Nullable
+        @Override
+        public Object get(String[] path)
+        {
+            Validate.notNull(this.rawValue);
+            return NestedNodesHelper.get(this.rawValue, path);
+        }
+
+        @Nullable
+        @Override
+        public Object remove(String[] path)
+        {
+            Validate.notNull(this.rawValue);
+            return NestedNodesHelper.remove(this.rawValue, path);
+        }
     }
 }
@@ -180,6 +180,24 @@ public class GroovyImplementationProvider implements ConfigImplementationProvide
         implStr.append("" +
                        "    }\n\n");
 
+        // ==================================================
+        // freeze$Internal, frozen property values are new instances
+        // frozen config is a clone, so its property fields are re-bound here and can't be final, generated classes also aren't compiled
+        // statically, so reads of frozen config still use dynamic dispatch of groovy.
+        implStr.append("" +
+                       "    @Override\n" +
+                       "    protected void freeze$Internal()\n" +
+                       "    {\n" +
+                       "        super.freeze$Internal()\n");
+        for (ConfigPropertyTemplate<?> prop : props)
+        {
+            // this.@huh = (ConfigPropertyValueImpl) super.@predefinedValues.get('huh')
+            implStr.append("        this.@").append(prop.getOriginalName()).append(" = (ConfigPropertyValueImpl) super.@predefinedValues.get('")
+                   .append(prop.getName()).append("')\n");
+        }
+        implStr.append("" +
+                       "    }\n\n");
+
 
         // ==================================================
         // actions
@@ -0,0 +1,61 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017. Diorite (by Bartłomiej Mazur (aka GotoFinal))
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package org.diorite.config.serialization;
+
+/**
+ * Helper methods to compute initial capacity of collections created while deserializing data, independent of used serialization format.
+ */
+public final class CollectionCapacity
+{
+    /**
+     * Expected amount of elements used when real size of data is unknown.
+     */
+    public static final int DEFAULT_SIZE = 10;
+
+    private CollectionCapacity() {}
+
+    /**
+     * Returns initial capacity of java hash based collection that can hold given amount of elements without resizing. <br>
+     * Negative values are used when size is unknown, and result in default capacity.
+     *
+     * @param expectedSize
+     *         expected amount of elements.
+     *
+     * @return initial capacity for hash based collection.
+     */
+    public static int hashCapacity(int expectedSize)
+    {
+        if (expectedSize < 0)
+        {
+            expectedSize = DEFAULT_SIZE;
+        }
+        if (expectedSize < 3)
+        {
+            return expectedSize + 1;
+        }
+        return (int) ((float) expectedSize / 0.75f + 1.0f);
+    }
+}
@@ -92,6 +92,21 @@ public interface DeserializationData
      */
     boolean containsKey(String key);
 
+    /**
+     * Returns number of elements stored in collection or map on given key, without deserializing them. <br>
+     * Used to create collections of valid size before deserializing values into them.<br>
+     * Use empty key to count elements of root element.
+     *
+     * @param key
+     *         key to check.
+     *
+     * @return number of elements on given key, or -1 if there is no collection or map on that key, or if implementation can't count them.
+     */
+    default int getElementCount(String key)
+    {
+        return - 1;
+    }
+
     /**
      * Get and deserialize given object from this data instance. <br>
      * If there is no value, or it is null, throw error.
@@ -741,7 +756,7 @@ public interface DeserializationData
      */
     default <T> List<T> getAsList(String key, Class<T> type)
     {
-        ArrayList<T> objects = new ArrayList<>(20);
+        ArrayList<T> objects = new ArrayList<>(Math.max(this.getElementCount(key), 0));
         this.getAsCollection(key, type, objects);
         objects.trimToSize();
         return objects;
@@ -783,7 +798,7 @@ public interface DeserializationData
      */
     default <T> Map<String, T> getAsMap(String key, Class<T> type, Function<T, String> keyMapper)
     {
-        LinkedHashMap<String, T> map = new LinkedHashMap<>(20);
+        LinkedHashMap<String, T> map = new LinkedHashMap<>(CollectionCapacity.hashCapacity(this.getElementCount(key)));
         this.getAsMap(key, type, keyMapper, map);
         return map;
     }
@@ -809,7 +824,7 @@ public interface DeserializationData
      */
     default <K, T> Map<K, T> getAsMapWithKeys(String key, Class<K> keyType, Class<T> type)
     {
-        LinkedHashMap<K, T> map = new LinkedHashMap<>(20);
+        LinkedHashMap<K, T> map = new LinkedHashMap<>(CollectionCapacity.hashCapacity(this.getElementCount(key)));
         this.getAsMapWithKeys(key, keyType, type, DEFAULT_KEY_PROPERTY, map);
         return map;
     }
@@ -836,7 +851,7 @@ public interface DeserializationData
      */
     default <K, T> Map<K, T> getAsMapWithKeys(String key, Class<K> keyType, Class<T> type, String keyPropertyName)
     {
-        LinkedHashMap<K, T> map = new LinkedHashMap<>(20);
+        LinkedHashMap<K, T> map = new LinkedHashMap<>(CollectionCapacity.hashCapacity(this.getElementCount(key)));
         this.getAsMapWithKeys(key, keyType, type, keyPropertyName, map);
         return map;
     }
@@ -860,7 +875,7 @@ public interface DeserializationData
      */
     default <K, T> Map<K, T> getMap(String key, Class<K> keyType, Class<T> type)
     {
-        LinkedHashMap<K, T> map = new LinkedHashMap<>(20);
+        LinkedHashMap<K, T> map = new LinkedHashMap<>(CollectionCapacity.hashCapacity(this.getElementCount(key)));
         this.getMap(key, keyType, type, map);
         return map;
     }
@@ -884,7 +899,7 @@ public interface DeserializationData
      */
     default <K, T> Map<K, T> getMap(String key, Function<String, K> keyMapper, Class<T> type)
     {
-        LinkedHashMap<K, T> map = new LinkedHashMap<>(20);
+        LinkedHashMap<K, T> map = new LinkedHashMap<>(CollectionCapacity.hashCapacity(this.getElementCount(key)));
         this.getMap(key, keyMapper, type, map);
         return map;
     }
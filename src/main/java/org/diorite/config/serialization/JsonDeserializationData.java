@@ -99,6 +99,25 @@ public class JsonDeserializationData extends AbstractDeserializationData
         return false;
     }
 
+    @Override
+    public int getElementCount(String key)
+    {
+        JsonElement element = this.getElement(this.element, key);
+        if (element == null)
+        {
+            return - 1;
+        }
+        if (element.isJsonArray())
+        {
+            return element.getAsJsonArray().size();
+        }
+        if (element.isJsonObject())
+        {
+            return element.getAsJsonObject().size();
+        }
+        return - 1;
+    }
+
     @Nullable
     private JsonElement getElement(JsonElement element, String key)
     {
@@ -138,7 +157,7 @@ public class JsonDeserializationData extends AbstractDeserializationData
         }
         if (Enum.class.isAssignableFrom(type))
         {
-            Enum valueSafe = DioriteReflectionUtils.getEnumValueSafe(this.context.<String>deserialize(element, String.class), - 1, (Class) type);
+            Enum valueSafe = ScalarConversions.findEnum(type, this.context.<String>deserialize(element, String.class));
             if (valueSafe == null)
             {
                 return def;
@@ -147,16 +166,12 @@ public class JsonDeserializationData extends AbstractDeserializationData
         }
         if (DynamicEnum.class.isAssignableFrom(type))
         {
-            String name = this.context.deserialize(element, String.class);
-            DynamicEnum[] values = DynamicEnum.values((Class<DynamicEnum>) type);
-            for (DynamicEnum value : values)
+            DynamicEnum value = ScalarConversions.findDynamicEnum(type, this.context.deserialize(element, String.class));
+            if (value == null)
             {
-                if (value.prettyName().equalsIgnoreCase(name) || value.name().equalsIgnoreCase(name) || String.valueOf(value.ordinal()).equalsIgnoreCase(name))
-                {
-                    return (T) value;
-                }
+                return def;
             }
-            return def;
+            return (T) value;
         }
         return this.context.deserialize(element, type);
     }
@@ -0,0 +1,108 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017. Diorite (by Bartłomiej Mazur (aka GotoFinal))
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.diorite.config.serialization;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.BiFunction;
+
+import org.diorite.config.StreamedSequence.CloseableIterator;
+import org.diorite.config.serialization.snakeyaml.Yaml;
+
+/**
+ * Iterator that owns yaml engine leased from {@link YamlEnginePool}, engine is returned to pool when iterator is exhausted, fails or is
+ * closed. Closed iterator has no more elements.
+ *
+ * @param <S>
+ *         type of source elements.
+ * @param <T>
+ *         type of elements.
+ */
+final class LeasedIterator<S, T> implements CloseableIterator<T>
+{
+    private final YamlEnginePool.Lease   lease;
+    private final Iterator<S>            iterator;
+    private final BiFunction<Yaml, S, T> mapper;
+    private       boolean                closed;
+
+    LeasedIterator(YamlEnginePool.Lease lease, Iterator<S> iterator, BiFunction<Yaml, S, T> mapper)
+    {
+        this.lease = lease;
+        this.iterator = iterator;
+        this.mapper = mapper;
+    }
+
+    @Override
+    public boolean hasNext()
+    {
+        if (this.closed)
+        {
+            return false;
+        }
+        try
+        {
+            if (this.iterator.hasNext())
+            {
+                return true;
+            }
+        }
+        catch (RuntimeException e)
+        {
+            this.close();
+            throw e;
+        }
+        this.close();
+        return false;
+    }
+
+    @Override
+    public T next()
+    {
+        if (! this.hasNext())
+        {
+            throw new NoSuchElementException();
+        }
+        try
+        {
+            return this.mapper.apply(this.lease.getYaml(), this.iterator.next());
+        }
+        catch (RuntimeException e)
+        {
+            this.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public void close()
+    {
+        if (this.closed)
+        {
+            return;
+        }
+        this.closed = true;
+        this.lease.release();
+    }
+}
@@ -0,0 +1,252 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017. Diorite (by Bartłomiej Mazur (aka GotoFinal))
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.diorite.config.serialization;
+
+import javax.annotation.Nullable;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.diorite.commons.enums.DynamicEnum;
+import org.diorite.commons.reflections.DioriteReflectionUtils;
+
+/**
+ * Conversions of scalar strings to numbers and enum values used by deserialization data. <br>
+ * Enum and {@link DynamicEnum} values are found using case-insensitive hash indexes built once per type, names that are already written in
+ * the same case as in index are found without allocating lower-cased copy. <br>
+ * Indexes are stored as {@link ClassValue}s, so they don't prevent unloading of enum classes and their class loaders.
+ */
+final class ScalarConversions
+{
+    private static final ClassValue<Map<String, Enum<?>>>               enumIndexes        = new ClassValue<Map<String, Enum<?>>>()
+    {
+        @Override
+        protected Map<String, Enum<?>> computeValue(Class<?> type)
+        {
+            return createEnumIndex(type);
+        }
+    };
+    private static final ClassValue<AtomicReference<DynamicEnumIndex>> dynamicEnumIndexes = new ClassValue<AtomicReference<DynamicEnumIndex>>()
+    {
+        @Override
+        protected AtomicReference<DynamicEnumIndex> computeValue(Class<?> type)
+        {
+            return new AtomicReference<>();
+        }
+    };
+
+    private ScalarConversions() {}
+
+    /**
+     * Parse given string as number of given wrapper type.
+     *
+     * @param numType
+     *         wrapper type of number.
+     * @param value
+     *         string to parse.
+     *
+     * @return parsed number, or null if given type isn't one of primitive number wrappers.
+     *
+     * @throws NumberFormatException
+     *         if string isn't valid number of given type.
+     */
+    @Nullable
+    static Number parseNumber(Class<?> numType, String value)
+    {
+        if (numType == Integer.class)
+        {
+            return Integer.parseInt(value);
+        }
+        if (numType == Double.class)
+        {
+            return Double.parseDouble(value);
+        }
+        if (numType == Long.class)
+        {
+            return Long.parseLong(value);
+        }
+        if (numType == Float.class)
+        {
+            return Float.parseFloat(value);
+        }
+        if (numType == Short.class)
+        {
+            return Short.parseShort(value);
+        }
+        if (numType == Byte.class)
+        {
+            return Byte.parseByte(value);
+        }
+        return null;
+    }
+
+    /**
+     * Find enum value by its name, ignoring case.
+     *
+     * @param type
+     *         type of enum, class of enum constant with own body is also accepted.
+     * @param name
+     *         name of value.
+     *
+     * @return found enum value or null.
+     */
+    @Nullable
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    static Enum<?> findEnum(Class<?> type, String name)
+    {
+        // constants with own body are anonymous subclasses of their enum.
+        if (! type.isEnum() && (type.getSuperclass() != null) && type.getSuperclass().isEnum())
+        {
+            type = type.getSuperclass();
+        }
+        Map<String, Enum<?>> index = enumIndexes.get(type);
+        Enum<?> value = lookup(index, name);
+        if (value != null)
+        {
+            return value;
+        }
+        return DioriteReflectionUtils.getEnumValueSafe(name, - 1, (Class) type);
+    }
+
+    /**
+     * Find dynamic enum value by its pretty name, name or ordinal, ignoring case.
+     *
+     * @param type
+     *         type of dynamic enum.
+     * @param name
+     *         pretty name, name or ordinal of value.
+     *
+     * @return found value or null.
+     */
+    @Nullable
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    static DynamicEnum<?> findDynamicEnum(Class<?> type, String name)
+    {
+        AtomicReference<DynamicEnumIndex> indexReference = dynamicEnumIndexes.get(type);
+        DynamicEnumIndex index = indexReference.get();
+        if (index != null)
+        {
+            DynamicEnum<?> value = lookup(index.values, name);
+            if (value != null)
+            {
+                return value;
+            }
+        }
+        // dynamic enums can gain new values at runtime, so on miss index is rebuilt if number of values changed.
+        DynamicEnum[] values = DynamicEnum.values((Class<DynamicEnum>) type);
+        if ((index == null) || (index.size != values.length))
+        {
+            index = new DynamicEnumIndex(values);
+            indexReference.set(index);
+            DynamicEnum<?> value = lookup(index.values, name);
+            if (value != null)
+            {
+                return value;
+            }
+        }
+        for (DynamicEnum<?> dynamicEnum : values)
+        {
+            if (dynamicEnum.prettyName().equalsIgnoreCase(name) || dynamicEnum.name().equalsIgnoreCase(name) ||
+                String.valueOf(dynamicEnum.ordinal()).equalsIgnoreCase(name))
+            {
+                return dynamicEnum;
+            }
+        }
+        return null;
+    }
+
+    @Nullable
+    private static <T> T lookup(Map<String, T> index, String name)
+    {
+        T value = index.get(name);
+        if (value != null)
+        {
+            return value;
+        }
+        String lowerCase = name.toLowerCase(Locale.ROOT);
+        if (lowerCase.equals(name))
+        {
+            return null;
+        }
+        return index.get(lowerCase);
+    }
+
+    // lower-cased keys are added first, so first value in declaration order wins like in case-insensitive linear search, original names are then
+    // mapped to the same value as their lower-cased form.
+    private static <T> void putLowerCase(Map<String, T> index, String key, T value)
+    {
+        index.putIfAbsent(key.toLowerCase(Locale.ROOT), value);
+    }
+
+    private static <T> void putExact(Map<String, T> index, String key)
+    {
+        index.putIfAbsent(key, index.get(key.toLowerCase(Locale.ROOT)));
+    }
+
+    private static Map<String, Enum<?>> createEnumIndex(Class<?> type)
+    {
+        Object[] constants = type.getEnumConstants();
+        if (constants == null)
+        {
+            return Collections.emptyMap();
+        }
+        Map<String, Enum<?>> index = new HashMap<>(constants.length * 4);
+        for (Object constant : constants)
+        {
+            putLowerCase(index, ((Enum<?>) constant).name(), (Enum<?>) constant);
+        }
+        for (Object constant : constants)
+        {
+            putExact(index, ((Enum<?>) constant).name());
+        }
+        return index;
+    }
+
+    private static final class DynamicEnumIndex
+    {
+        private final int                         size;
+        private final Map<String, DynamicEnum<?>> values;
+
+        private DynamicEnumIndex(DynamicEnum<?>[] values)
+        {
+            this.size = values.length;
+            this.values = new HashMap<>(values.length * 6);
+            for (DynamicEnum<?> value : values)
+            {
+                putLowerCase(this.values, value.prettyName(), value);
+                putLowerCase(this.values, value.name(), value);
+                putLowerCase(this.values, String.valueOf(value.ordinal()), value);
+            }
+            for (DynamicEnum<?> value : values)
+            {
+                putExact(this.values, value.prettyName());
+                putExact(this.values, value.name());
+            }
+        }
+    }
+}
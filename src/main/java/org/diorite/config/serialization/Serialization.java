@@ -38,9 +38,11 @@ import java.lang.reflect.Modifier;
 import java.lang.reflect.Type;
 import java.net.URI;
 import java.net.URL;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
@@ -54,6 +56,7 @@ import java.util.concurrent.ConcurrentSkipListSet;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.BiConsumer;
 import java.util.function.BiFunction;
+import java.util.function.Consumer;
 import java.util.function.Function;
 
 import com.google.gson.Gson;
@@ -68,8 +71,13 @@ import com.google.gson.stream.JsonReader;
 import com.google.gson.stream.JsonWriter;
 
 import org.yaml.snakeyaml.DumperOptions.FlowStyle;
+import org.yaml.snakeyaml.constructor.Construct;
+import org.yaml.snakeyaml.nodes.MappingNode;
 import org.yaml.snakeyaml.nodes.Node;
+import org.yaml.snakeyaml.nodes.NodeTuple;
+import org.yaml.snakeyaml.nodes.ScalarNode;
 import org.yaml.snakeyaml.nodes.Tag;
+import org.yaml.snakeyaml.representer.Represent;
 import org.yaml.snakeyaml.resolver.Resolver;
 
 import org.diorite.commons.enums.DynamicEnum;
@@ -78,9 +86,9 @@ import org.diorite.commons.reflections.ConstructorInvoker;
 import org.diorite.commons.reflections.DioriteReflectionUtils;
 import org.diorite.commons.reflections.MethodInvoker;
 import org.diorite.commons.reflections.ReflectMethod;
-import org.diorite.commons.threads.DioriteThreadUtils;
 import org.diorite.config.Config;
 import org.diorite.config.ConfigTemplate;
+import org.diorite.config.StreamedSequence.CloseableIterator;
 import org.diorite.config.annotations.DelegateSerializable;
 import org.diorite.config.annotations.SerializableAs;
 import org.diorite.config.annotations.StringSerializable;
@@ -91,7 +99,10 @@ import org.diorite.config.serialization.serializers.SocketAddressSerializer;
 import org.diorite.config.serialization.snakeyaml.DumperOptions;
 import org.diorite.config.serialization.snakeyaml.Representer;
 import org.diorite.config.serialization.snakeyaml.Yaml;
+import org.diorite.config.serialization.snakeyaml.YamlConstructResolutionCache;
 import org.diorite.config.serialization.snakeyaml.YamlConstructor;
+import org.diorite.config.serialization.snakeyaml.YamlLoadLimitException;
+import org.diorite.config.serialization.snakeyaml.YamlLoadLimits;
 
 /**
  * Serialization manager, it allows to serialize and deserialize all registered types. <br>
@@ -102,22 +113,31 @@ public final class Serialization
     private static final Serialization GLOBAL     = new Serialization((Void) null);
     private static final int           BEST_WIDTH = 180;
 
-    // gson section
-    private final GsonBuilder       gsonBuilder =
+    // gson section, gson instances are immutable and thread safe, so single instance is shared by all threads.
+    // instance is created lazily after registrations, so many serializers registered at once cause only single rebuild.
+    private final              GsonBuilder gsonBuilder =
             new GsonBuilder().setPrettyPrinting().serializeNulls().serializeSpecialFloatingPointValues().enableComplexMapKeySerialization();
-    private       ThreadLocal<Gson> cachedGson  = ThreadLocal.withInitial(this.gsonBuilder::create);
+    @Nullable private volatile Gson        gson;
 
     // yaml section
-    private final Collection<Class<?>>                                                              yamlIgnoredClasses = new ConcurrentLinkedQueue<>();
-    private final Collection<BiFunction<YamlConstructor, Representer, YamlStringSerializerImpl<?>>> stringRepresenters = new ConcurrentLinkedQueue<>();
-    private final Collection<BiFunction<YamlConstructor, Representer, YamlSerializerImpl<?>>>       objectRepresenters = new ConcurrentLinkedQueue<>();
-    private       ThreadLocal<Yaml>                                                                 cachedYaml         =
-            ThreadLocal.withInitial(this::createYaml);
-    private final ThreadLocal<AtomicInteger>                                                        localCounter       =
-            ThreadLocal.withInitial(AtomicInteger::new);
+    private final    Collection<Class<?>>    yamlIgnoredClasses = new ConcurrentLinkedQueue<>();
+    // latest change of each registered type or engine setting (keyed by type or setting name), each entry remembers version in which it was
+    // made, so engine applies only entries changed since its last use and registration never rebuilds existing engines. Changing the same type
+    // or setting again replaces its entry, so log size is bounded by amount of registered types.
+    private final    Map<Object, YamlUpdate> yamlUpdates        = new ConcurrentHashMap<>(64);
+    // written after entry is added, guarded by yamlUpdates.
+    private volatile int                     yamlVersion;
+    private final    AtomicInteger           yamlCounter        = new AtomicInteger();
+    private final    YamlEnginePool          yamlPool           =
+            new YamlEnginePool(this::createYaml, this::updateYaml, Runtime.getRuntime().availableProcessors() * 2);
 
     private final CommentsManager commentsManager = new CommentsManager();
 
+    @Nullable private volatile StringDeduplicator stringDeduplicator;
+    // shared by up-to-date yaml engines, replaced when registered serializers change.
+    private volatile YamlConstructResolutionCache constructResolutionCache = new YamlConstructResolutionCache();
+    private volatile YamlLoadLimits               loadLimits               = YamlLoadLimits.UNLIMITED;
+
     /**
      * Returns instance of comments manager.
      *
@@ -133,27 +153,11 @@ public final class Serialization
         Representer representer = new Representer();
         YamlConstructor constructor = new YamlConstructor();
 
-        // register types
+        // register types, serializers and settings are applied later from update log by pool.
         for (Class<?> ignoredClass : this.yamlIgnoredClasses)
         {
             representer.addClassTag(ignoredClass, Tag.MAP);
         }
-        for (BiFunction<YamlConstructor, Representer, YamlStringSerializerImpl<?>> serializerCreator : this.stringRepresenters)
-        {
-            YamlStringSerializerImpl<?> yamlSerializer = serializerCreator.apply(constructor, representer);
-            Class<?> type = yamlSerializer.getType();
-            representer.addClassTag(type, Tag.MAP);
-            representer.addRepresenter(type, yamlSerializer);
-            constructor.addConstruct(type, yamlSerializer);
-        }
-        for (BiFunction<YamlConstructor, Representer, YamlSerializerImpl<?>> serializerCreator : this.objectRepresenters)
-        {
-            YamlSerializerImpl<?> yamlSerializer = serializerCreator.apply(constructor, representer);
-            Class<?> type = yamlSerializer.getType();
-            representer.addClassTag(type, Tag.MAP);
-            representer.addRepresenter(type, yamlSerializer);
-            constructor.addConstruct(type, yamlSerializer);
-        }
 
         DumperOptions dumperOptions = new DumperOptions();
         dumperOptions.setAllowReadOnlyProperties(true);
@@ -166,19 +170,102 @@ public final class Serialization
         Resolver resolver = new Resolver();
 
         Yaml yaml = new Yaml(this, constructor, representer, dumperOptions, resolver);
-
-        yaml.setName("DioriteYaml[" + this.localCounter.get().getAndIncrement() + "]:" + DioriteThreadUtils.getFullThreadName(Thread.currentThread(), true));
+        yaml.setName("DioriteYaml[" + this.yamlCounter.getAndIncrement() + "]");
         return yaml;
     }
 
+    private int updateYaml(Yaml yaml, int version)
+    {
+        int currentVersion = this.yamlVersion;
+        if (version == currentVersion)
+        {
+            return version;
+        }
+        List<YamlUpdate> updates = new ArrayList<>(this.yamlUpdates.size());
+        for (YamlUpdate update : this.yamlUpdates.values())
+        {
+            if (update.version > version)
+            {
+                updates.add(update);
+            }
+        }
+        // changes are applied in order they were made, so later registrations still replace earlier ones.
+        updates.sort(Comparator.comparingInt(update -> update.version));
+        for (YamlUpdate update : updates)
+        {
+            update.action.accept(yaml);
+        }
+        return currentVersion;
+    }
+
+    private void addYamlUpdate(Object key, Consumer<Yaml> action)
+    {
+        synchronized (this.yamlUpdates)
+        {
+            int version = this.yamlVersion + 1;
+            this.yamlUpdates.put(key, new YamlUpdate(version, action));
+            this.yamlVersion = version;
+        }
+    }
+
+    // serializer adapters can't be shared by engines, as snakeyaml represents and constructs are bound to representer and constructor of single
+    // engine, only serializer itself is created once and shared, adapter is just thin wrapper created once per engine.
+    private <S extends Represent & Construct> void addYamlSerializer(Class<?> type, Function<Yaml, S> serializerCreator)
+    {
+        synchronized (this.yamlUpdates)
+        {
+            this.addYamlUpdate(type, yaml ->
+            {
+                S yamlSerializer = serializerCreator.apply(yaml);
+                Representer representer = yaml.getRepresenter();
+                representer.addClassTag(type, Tag.MAP);
+                representer.addRepresenter(type, yamlSerializer);
+                yaml.getConstructor().addConstruct(type, yamlSerializer);
+            });
+            // previous cache is used only by engines that weren't updated yet, so it can be emptied.
+            this.constructResolutionCache.clear();
+            YamlConstructResolutionCache resolutionCache = new YamlConstructResolutionCache();
+            this.constructResolutionCache = resolutionCache;
+            // added after serializer, so engines switch to new cache only together with new constructs.
+            this.addYamlUpdate("resolutionCache", yaml -> yaml.getConstructor().setResolutionCache(resolutionCache));
+        }
+    }
+
+    private void updateGson(Consumer<GsonBuilder> update)
+    {
+        synchronized (this.gsonBuilder)
+        {
+            update.accept(this.gsonBuilder);
+            this.gson = null;
+        }
+    }
+
     private Gson gson()
     {
-        return this.cachedGson.get();
+        Gson gson = this.gson;
+        if (gson == null)
+        {
+            synchronized (this.gsonBuilder)
+            {
+                gson = this.gson;
+                if (gson == null)
+                {
+                    gson = this.gsonBuilder.create();
+                    this.gson = gson;
+                }
+            }
+        }
+        return gson;
     }
 
-    private Yaml yaml()
+    /**
+     * Returns pool of yaml engines used by this serialization instance, it can be used to check pool statistics or change its size.
+     *
+     * @return pool of yaml engines.
+     */
+    public YamlEnginePool getYamlEnginePool()
     {
-        return this.cachedYaml.get();
+        return this.yamlPool;
     }
 
     private final Map<Class<?>, StringSerializer<?>> stringSerializerMap = new ConcurrentHashMap<>(10);
@@ -209,6 +296,65 @@ public final class Serialization
         Collections.addAll(this.falseValues, strings);
     }
 
+    /**
+     * Returns string pool used to deduplicate keys and short scalar values of loaded configs, or null if deduplication is disabled.
+     *
+     * @return string pool used by this serialization instance.
+     */
+    @Nullable
+    public StringDeduplicator getStringDeduplicator()
+    {
+        return this.stringDeduplicator;
+    }
+
+    /**
+     * Set string pool used to deduplicate keys and short scalar values of loaded configs, null disables deduplication. <br>
+     * Same pool can be shared by many serialization instances.
+     *
+     * @param stringDeduplicator
+     *         string pool to use.
+     */
+    public void setStringDeduplicator(@Nullable StringDeduplicator stringDeduplicator)
+    {
+        this.stringDeduplicator = stringDeduplicator;
+        this.addYamlUpdate("stringDeduplicator", yaml -> yaml.getConstructor().setStringDeduplicator(stringDeduplicator));
+    }
+
+    /**
+     * Returns limits enforced while loading yaml documents.
+     *
+     * @return limits enforced while loading yaml documents.
+     */
+    public YamlLoadLimits getLoadLimits()
+    {
+        return this.loadLimits;
+    }
+
+    /**
+     * Set limits enforced while loading yaml documents, like max input size, nesting depth, amount of nodes or aliases. <br>
+     * Use them when loading untrusted inputs, any breach fails loading with {@link YamlLoadLimitException}.
+     * By default {@link YamlLoadLimits#UNLIMITED} is used.
+     *
+     * @param loadLimits
+     *         limits to enforce.
+     */
+    public void setLoadLimits(YamlLoadLimits loadLimits)
+    {
+        this.loadLimits = loadLimits;
+        this.addYamlUpdate("loadLimits", yaml -> yaml.setLoadLimits(loadLimits));
+    }
+
+    @Nullable
+    String deduplicate(@Nullable String string)
+    {
+        StringDeduplicator stringDeduplicator = this.stringDeduplicator;
+        if (stringDeduplicator == null)
+        {
+            return string;
+        }
+        return stringDeduplicator.deduplicate(string);
+    }
+
     @Nullable
     Boolean toBool(String str)
     {
@@ -228,27 +374,24 @@ public final class Serialization
         return GLOBAL;
     }
 
-    private void refreshCache()
-    {
-        this.cachedGson = ThreadLocal.withInitial(this.gsonBuilder::create);
-        this.cachedYaml = ThreadLocal.withInitial(this::createYaml);
-    }
-
     /**
      * Remove all cached values.
      */
     public void cleanup()
     {
-        this.refreshCache();
+        this.gson = null;
+        this.constructResolutionCache.clear();
+        this.yamlPool.invalidate();
     }
 
     /**
      * Remove cached values for current thread.
+     *
+     * @deprecated engines are no longer bound to threads, so there is nothing to remove, use {@link #cleanup()} to drop pooled engines.
      */
+    @Deprecated
     public void cleanupThread()
     {
-        this.cachedGson.remove();
-        this.cachedYaml.remove();
     }
 
     @SuppressWarnings({"unchecked", "rawtypes"})
@@ -295,9 +438,9 @@ public final class Serialization
      */
     public <T> void registerStringSerializer(StringSerializer<T> stringSerializer)
     {
-        this.gsonBuilder.registerTypeAdapterFactory(new StringSerializableTypeAdapterFactory(stringSerializer));
-        this.stringRepresenters.add((c, r) -> new YamlStringSerializerImpl<>(r, stringSerializer));
-        this.refreshCache();
+        this.updateGson(gsonBuilder -> gsonBuilder.registerTypeAdapterFactory(new StringSerializableTypeAdapterFactory(stringSerializer)));
+        this.<YamlStringSerializerImpl<T>>addYamlSerializer(stringSerializer.getType(),
+                                                           yaml -> new YamlStringSerializerImpl<>(yaml.getRepresenter(), stringSerializer));
         this.stringSerializerMap.put(stringSerializer.getType(), stringSerializer);
     }
 
@@ -342,9 +485,9 @@ public final class Serialization
     @SuppressWarnings("unchecked")
     public <T> Serializer<T> registerSerializer(Serializer<T> serializer)
     {
-        this.gsonBuilder.registerTypeAdapter(serializer.getType(), new JsonSerializerImpl<>(serializer, this));
-        this.objectRepresenters.add((c, r) -> new YamlSerializerImpl<>(r, c, serializer, this));
-        this.refreshCache();
+        this.updateGson(gsonBuilder -> gsonBuilder.registerTypeAdapter(serializer.getType(), new JsonSerializerImpl<>(serializer, this)));
+        this.<YamlSerializerImpl<T>>addYamlSerializer(serializer.getType(),
+                                                     yaml -> new YamlSerializerImpl<>(yaml.getRepresenter(), yaml.getConstructor(), serializer, this));
         return (Serializer<T>) this.serializerMap.put(serializer.getType(), serializer);
     }
 
@@ -522,18 +665,20 @@ public final class Serialization
 
     @SuppressWarnings({"unchecked", "rawtypes"})
     @Nullable
-    Object serialize(Object object, SerializationType serializationType, @Nullable DocumentComments comments)
+    Object serialize(Object object, SerializationType serializationType, @Nullable DocumentComments comments,
+                     @Nullable Map<Object, Object> serializedObjects)
     {
         if (isSimple(object))
         {
             return object;
         }
-        return this.serialize((Class) object.getClass(), object, serializationType, comments);
+        return this.serialize((Class) object.getClass(), object, serializationType, comments, serializedObjects);
     }
 
     @Nullable
     @SuppressWarnings("unchecked")
-    <T> Object serialize(Class<T> type, T object, SerializationType serializationType, @Nullable DocumentComments comments)
+    <T> Object serialize(Class<T> type, T object, SerializationType serializationType, @Nullable DocumentComments comments,
+                         @Nullable Map<Object, Object> serializedObjects)
     {
         if (isSimple(object))
         {
@@ -570,14 +715,28 @@ public final class Serialization
             }
             throw new IllegalArgumentException("Given object isn't serializable: (" + type.getName() + ") -> " + object);
         }
+        if (serializedObjects != null)
+        {
+            Object serialized = serializedObjects.get(object);
+            if (serialized != null)
+            {
+                return serialized;
+            }
+        }
         SimpleSerializationData serializationData = (SimpleSerializationData) SerializationData.create(serializationType, this, type);
         if (comments != null)
         {
             serializationData.setComments(comments);
         }
+        serializationData.setSerializedObjects(serializedObjects);
 
         ((Serializer<T>) this.serializerMap.get(type)).serialize(object, serializationData);
-        return serializationData.rawValue();
+        Object rawValue = serializationData.rawValue();
+        if (serializedObjects != null)
+        {
+            serializedObjects.put(object, rawValue);
+        }
+        return rawValue;
     }
 
     // private
@@ -1336,7 +1495,7 @@ public final class Serialization
      */
     public String toYamlWithComments(Object data)
     {
-        return this.yaml().toYamlWithComments(data, this.commentsManager.getComments(data.getClass()));
+        return this.yamlPool.apply(engine -> engine.toYamlWithComments(data, this.commentsManager.getComments(data.getClass())));
     }
 
     /**
@@ -1351,7 +1510,7 @@ public final class Serialization
      */
     public String toYamlWithComments(Object data, DocumentComments comments)
     {
-        return this.yaml().toYamlWithComments(data, comments);
+        return this.yamlPool.apply(engine -> engine.toYamlWithComments(data, comments));
     }
 
     /**
@@ -1364,7 +1523,7 @@ public final class Serialization
      */
     public Node toYamlNode(@Nullable Object data)
     {
-        Node represent = this.yaml().represent(data);
+        Node represent = this.yamlPool.apply(engine -> engine.represent(data));
         if (data != null)
         {
             if (! (data instanceof Map) && ! (data instanceof Collection))
@@ -1386,7 +1545,7 @@ public final class Serialization
      */
     public String toYaml(Object data)
     {
-        return this.yaml().toYaml(data);
+        return this.yamlPool.apply(engine -> engine.toYaml(data));
     }
 
     /**
@@ -1399,7 +1558,7 @@ public final class Serialization
      */
     public String toYaml(Iterator<?> data)
     {
-        return this.yaml().toYaml(data);
+        return this.yamlPool.apply(engine -> engine.toYaml(data));
     }
 
     /**
@@ -1412,7 +1571,7 @@ public final class Serialization
      */
     public void toYaml(Object data, Writer output)
     {
-        this.yaml().toYaml(data, output);
+        this.yamlPool.accept(engine -> engine.toYaml(data, output));
     }
 
     /**
@@ -1425,7 +1584,7 @@ public final class Serialization
      */
     public void toYamlWithComments(Object data, Writer output)
     {
-        this.yaml().toYamlWithComments(data, output, this.commentsManager.getComments(data.getClass()));
+        this.yamlPool.accept(engine -> engine.toYamlWithComments(data, output, this.commentsManager.getComments(data.getClass())));
     }
 
     /**
@@ -1440,7 +1599,7 @@ public final class Serialization
      */
     public void toYamlWithComments(Object data, Writer output, DocumentComments comments)
     {
-        this.yaml().toYamlWithComments(data, output, comments);
+        this.yamlPool.accept(engine -> engine.toYamlWithComments(data, output, comments));
     }
 
     /**
@@ -1453,7 +1612,7 @@ public final class Serialization
      */
     public void toYaml(Iterator<?> data, Writer output)
     {
-        this.yaml().toYaml(data, output);
+        this.yamlPool.accept(engine -> engine.toYaml(data, output));
     }
 
     /**
@@ -1494,7 +1653,7 @@ public final class Serialization
      */
     public String toYaml(Object data, Tag rootTag, @Nullable FlowStyle flowStyle)
     {
-        return this.yaml().toYaml(data, rootTag, flowStyle);
+        return this.yamlPool.apply(engine -> engine.toYaml(data, rootTag, flowStyle));
     }
 
     /**
@@ -1519,7 +1678,38 @@ public final class Serialization
      */
     public String toYamlAsMap(Object data)
     {
-        return this.yaml().toYamlAsMap(data);
+        return this.yamlPool.apply(engine -> engine.toYamlAsMap(data));
+    }
+
+    /**
+     * Parse the only YAML document in a stream and produce its representation tree, without constructing any objects.
+     *
+     * @param io
+     *         data to load from (BOM must not be present)
+     *
+     * @return root node of document, or null if document is empty.
+     */
+    @Nullable
+    public Node composeYaml(Reader io)
+    {
+        return this.yamlPool.apply(engine -> engine.compose(io));
+    }
+
+    /**
+     * Parse the only YAML document in a stream as configuration and produce its representation tree, without constructing any objects. <br>
+     * Scalar values of top-level properties are resolved using types known by given template, like on {@link #fromYaml(ConfigTemplate, Reader)}.
+     *
+     * @param template
+     *         template of config.
+     * @param io
+     *         data to load from (BOM must not be present)
+     *
+     * @return root node of document, or null if document is empty.
+     */
+    @Nullable
+    public Node composeYaml(ConfigTemplate<?> template, Reader io)
+    {
+        return this.yamlPool.apply(engine -> engine.compose(template, io));
     }
 
     /**
@@ -1535,7 +1725,7 @@ public final class Serialization
     @Nullable
     public <T> T fromYamlNode(Node node)
     {
-        return this.yaml().fromYamlNode(node);
+        return this.yamlPool.apply(engine -> engine.fromYamlNode(node));
     }
 
     /**
@@ -1553,7 +1743,7 @@ public final class Serialization
     @Nullable
     public <T> T fromYamlNode(Node node, Class<T> type)
     {
-        return this.yaml().fromYamlNode(node, type);
+        return this.yamlPool.apply(engine -> engine.fromYamlNode(node, type));
     }
 
     /**
@@ -1568,7 +1758,7 @@ public final class Serialization
     @Nullable
     public Object fromYaml(String yaml)
     {
-        return this.yaml().fromYaml(yaml);
+        return this.yamlPool.apply(engine -> engine.fromYaml(yaml));
     }
 
     /**
@@ -1583,7 +1773,7 @@ public final class Serialization
     @Nullable
     public Object fromYaml(InputStream io)
     {
-        return this.yaml().fromYaml(io);
+        return this.yamlPool.apply(engine -> engine.fromYaml(io));
     }
 
     /**
@@ -1598,7 +1788,7 @@ public final class Serialization
     @Nullable
     public Object fromYaml(Reader io)
     {
-        return this.yaml().fromYaml(io);
+        return this.yamlPool.apply(engine -> engine.fromYaml(io));
     }
 
     /**
@@ -1616,7 +1806,124 @@ public final class Serialization
     @Nullable
     public <T extends Config> T fromYaml(ConfigTemplate<T> template, Reader io)
     {
-        return this.yaml().fromYaml(template, io);
+        return this.yamlPool.apply(engine -> engine.fromYaml(template, io));
+    }
+
+    /**
+     * Parse root mapping of the only YAML document in a stream entry by entry, without composing representation tree of whole document. <br>
+     * Each top-level entry is passed to consumer as deserialization data containing only that single key, so its value can be deserialized and
+     * released before next entry is read. Anchors defined in one entry can be still used by aliases in later entries, and such aliases resolve
+     * to the same object as their anchor.
+     *
+     * @param io
+     *         data to load from (BOM must not be present)
+     * @param type
+     *         type of deserialized object, used as type of each created deserialization data.
+     * @param consumer
+     *         consumer of top-level key and deserialization data of that entry.
+     */
+    public void fromYamlEntries(Reader io, Class<?> type, BiConsumer<String, YamlDeserializationData> consumer)
+    {
+        this.yamlPool.accept(yaml -> yaml.composeEntries(io, (keyNode, valueNode) -> this.acceptEntry(yaml, keyNode, valueNode, type, consumer)));
+    }
+
+    /**
+     * Parse root mapping of the only YAML document in a stream as configuration entry by entry, like {@link #fromYamlEntries(Reader, Class,
+     * BiConsumer)}, but scalar values of top-level properties are resolved using types known by given template, like on
+     * {@link #fromYaml(ConfigTemplate, Reader)}.
+     *
+     * @param template
+     *         template of config, its type is used as type of each created deserialization data.
+     * @param io
+     *         data to load from (BOM must not be present)
+     * @param consumer
+     *         consumer of top-level key and deserialization data of that entry.
+     */
+    public void fromYamlEntries(ConfigTemplate<?> template, Reader io, BiConsumer<String, YamlDeserializationData> consumer)
+    {
+        Class<?> type = template.getConfigType();
+        this.yamlPool.accept(yaml -> yaml.composeEntries(template, io, (keyNode, valueNode) ->
+                this.acceptEntry(yaml, keyNode, valueNode, type, consumer)));
+    }
+
+    private void acceptEntry(Yaml yaml, Node keyNode, Node valueNode, Class<?> type, BiConsumer<String, YamlDeserializationData> consumer)
+    {
+        if (! (keyNode instanceof ScalarNode))
+        {
+            return; // only string keys are supported by configs.
+        }
+        List<NodeTuple> tuples = new ArrayList<>(1);
+        tuples.add(new NodeTuple(keyNode, valueNode));
+        MappingNode entryNode = new MappingNode(Tag.MAP, true, tuples, keyNode.getStartMark(), valueNode.getEndMark(), Boolean.FALSE);
+        String key = this.deduplicate(((ScalarNode) keyNode).getValue());
+        consumer.accept(key, new YamlDeserializationData(this, entryNode, yaml.getRepresenter(), yaml.getConstructor(), type));
+    }
+
+    /**
+     * Parse items of sequence stored under given top-level key of the only YAML document in a stream, items are composed and deserialized one by
+     * one when returned iterator is advanced, so whole sequence never exists in memory. <br>
+     * Returned iterator owns yaml engine taken from pool, so it should not be used by multiple threads at the same time, engine is returned to
+     * pool when iterator is exhausted, fails or is closed. Given reader isn't closed by this method.
+     *
+     * @param io
+     *         data to load from (BOM must not be present)
+     * @param key
+     *         top-level key of sequence.
+     * @param type
+     *         type of sequence elements.
+     * @param <T>
+     *         type of sequence elements.
+     *
+     * @return iterator over deserialized sequence elements.
+     */
+    public <T> CloseableIterator<T> fromYamlSequence(Reader io, String key, Class<T> type)
+    {
+        return this.leaseIterator(yaml -> yaml.composeSequence(io, key), (yaml, valueNode) ->
+        {
+            List<NodeTuple> tuples = new ArrayList<>(1);
+            tuples.add(new NodeTuple(new ScalarNode(Tag.STR, key, null, null, null), valueNode));
+            MappingNode entryNode = new MappingNode(Tag.MAP, true, tuples, valueNode.getStartMark(), valueNode.getEndMark(), Boolean.FALSE);
+            YamlDeserializationData data = new YamlDeserializationData(this, entryNode, yaml.getRepresenter(), yaml.getConstructor(), type);
+            try
+            {
+                return data.get(key, type);
+            }
+            finally
+            {
+                // items are released one by one, so they can't share constructed objects.
+                yaml.getConstructor().endDocument();
+            }
+        });
+    }
+
+    /**
+     * Execute given action with deserialization data of given node, data is valid only inside action, as yaml engine used by it is returned to
+     * pool after action ends.
+     *
+     * @param node
+     *         node to deserialize.
+     * @param type
+     *         type of deserialized object.
+     * @param action
+     *         action to execute.
+     */
+    void withYamlDeserializationData(Node node, Class<?> type, Consumer<? super YamlDeserializationData> action)
+    {
+        this.yamlPool.accept(yaml -> action.accept(new YamlDeserializationData(this, node, yaml.getRepresenter(), yaml.getConstructor(), type)));
+    }
+
+    private <S, T> CloseableIterator<T> leaseIterator(Function<Yaml, Iterator<S>> source, BiFunction<Yaml, S, T> mapper)
+    {
+        YamlEnginePool.Lease lease = this.yamlPool.lease();
+        try
+        {
+            return new LeasedIterator<>(lease, source.apply(lease.getYaml()), mapper);
+        }
+        catch (RuntimeException e)
+        {
+            lease.release();
+            throw e;
+        }
     }
 
     /**
@@ -1635,7 +1942,7 @@ public final class Serialization
     @Nullable
     public <T> T fromYaml(Reader io, Class<T> type)
     {
-        return this.yaml().fromYaml(io, type);
+        return this.yamlPool.apply(engine -> engine.fromYaml(io, type));
     }
 
     /**
@@ -1654,7 +1961,7 @@ public final class Serialization
     @Nullable
     public <T> T fromYaml(String yaml, Class<T> type)
     {
-        return this.yaml().fromYaml(yaml, type);
+        return this.yamlPool.apply(engine -> engine.fromYaml(yaml, type));
     }
 
     /**
@@ -1673,12 +1980,14 @@ public final class Serialization
     @Nullable
     public <T> T fromYaml(InputStream input, Class<T> type)
     {
-        return this.yaml().fromYaml(input, type);
+        return this.yamlPool.apply(engine -> engine.fromYaml(input, type));
     }
 
     /**
      * Parse all YAML documents in a String and produce corresponding Java
-     * objects. The documents are parsed only when the iterator is invoked.
+     * objects. The documents are parsed only when the iterator is invoked. <br>
+     * Returned iterable has single iterator that owns yaml engine taken from pool, engine is returned to pool when iterator is exhausted or
+     * fails, iterator that is abandoned earlier should be closed as {@link CloseableIterator}.
      *
      * @param yaml
      *         YAML data to load from (BOM must not be present)
@@ -1687,7 +1996,8 @@ public final class Serialization
      */
     public Iterable<Object> fromAllYaml(Reader yaml)
     {
-        return this.yaml().fromAllYaml(yaml);
+        CloseableIterator<Object> iterator = this.leaseIterator(engine -> engine.fromAllYaml(yaml).iterator(), (engine, object) -> object);
+        return () -> iterator;
     }
 
     /**
@@ -1699,10 +2009,13 @@ public final class Serialization
      *         YAML data to load from (BOM must not be present)
      *
      * @return an iterator over the parsed Java objects in this String in proper sequence
+     *
+     * @see #fromAllYaml(Reader)
      */
     public Iterable<Object> fromAllYaml(String yaml)
     {
-        return this.yaml().fromAllYaml(yaml);
+        CloseableIterator<Object> iterator = this.leaseIterator(engine -> engine.fromAllYaml(yaml).iterator(), (engine, object) -> object);
+        return () -> iterator;
     }
 
     /**
@@ -1713,10 +2026,52 @@ public final class Serialization
      *         YAML data to load from (BOM is respected and ignored)
      *
      * @return an iterator over the parsed Java objects in this stream in proper sequence
+     *
+     * @see #fromAllYaml(Reader)
      */
     public Iterable<Object> fromAllYaml(InputStream yaml)
     {
-        return this.yaml().fromAllYaml(yaml);
+        CloseableIterator<Object> iterator = this.leaseIterator(engine -> engine.fromAllYaml(yaml).iterator(), (engine, object) -> object);
+        return () -> iterator;
+    }
+
+    /**
+     * Parse all YAML documents in a stream and construct them in parallel, one thread composes documents while given number of workers
+     * constructs them, see {@link YamlDocumentPipeline}. <br>
+     * Up to twice as many documents as workers can be pending at the same time.
+     *
+     * @param yaml
+     *         YAML data to load from (BOM must not be present)
+     * @param parallelism
+     *         number of worker threads.
+     * @param ordered
+     *         if documents should be returned in stream order, otherwise they are returned in order of completion.
+     *
+     * @return pipeline of constructed documents, it should be closed if not fully consumed.
+     */
+    public YamlDocumentPipeline fromAllYamlParallel(Reader yaml, int parallelism, boolean ordered)
+    {
+        return this.fromAllYamlParallel(yaml, parallelism, parallelism * 2, ordered);
+    }
+
+    /**
+     * Parse all YAML documents in a stream and construct them in parallel, one thread composes documents while given number of workers
+     * constructs them, see {@link YamlDocumentPipeline}.
+     *
+     * @param yaml
+     *         YAML data to load from (BOM must not be present)
+     * @param parallelism
+     *         number of worker threads.
+     * @param maxPending
+     *         max number of documents that can be composed and not yet consumed at the same time.
+     * @param ordered
+     *         if documents should be returned in stream order, otherwise they are returned in order of completion.
+     *
+     * @return pipeline of constructed documents, it should be closed if not fully consumed.
+     */
+    public YamlDocumentPipeline fromAllYamlParallel(Reader yaml, int parallelism, int maxPending, boolean ordered)
+    {
+        return new YamlDocumentPipeline(this.yamlPool, yaml, parallelism, maxPending, ordered);
     }
 
     @SuppressWarnings({"unchecked", "rawtypes"})
@@ -1737,4 +2092,16 @@ public final class Serialization
             return new JsonStringSerializerImpl(this.stringSerializer, type.getRawType());
         }
     }
+
+    private static final class YamlUpdate
+    {
+        private final int            version;
+        private final Consumer<Yaml> action;
+
+        private YamlUpdate(int version, Consumer<Yaml> action)
+        {
+            this.version = version;
+            this.action = action;
+        }
+    }
 }
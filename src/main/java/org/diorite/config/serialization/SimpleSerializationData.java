@@ -63,6 +63,9 @@ class SimpleSerializationData implements SerializationData
     private String trueValue  = "true";
     private String falseValue = "false";
 
+    // identity map of objects already serialized in current document, shared by all nested serialization data of that document.
+    @Nullable private Map<Object, Object> serializedObjects;
+
     protected SimpleSerializationData(SerializationType serializationType, Serialization serialization, Class<?> type)
     {
         this.serializationType = serializationType;
@@ -92,7 +95,7 @@ class SimpleSerializationData implements SerializationData
     @Nullable
     protected <T> Object serialize(T object, @Nullable DocumentComments comments)
     {
-        return this.serialization.serialize(object, this.serializationType, comments);
+        return this.serialization.serialize(object, this.serializationType, comments, this.serializedObjects);
     }
 
     @SuppressWarnings("unchecked")
@@ -111,7 +114,7 @@ class SimpleSerializationData implements SerializationData
         {
             return this.serialization.serializeToString(type, object);
         }
-        return this.serialization.serialize(type, object, this.serializationType, comments);
+        return this.serialization.serialize(type, object, this.serializationType, comments, this.serializedObjects);
     }
 
     private void validateList(String key)
@@ -759,6 +762,18 @@ class SimpleSerializationData implements SerializationData
         }
     }
 
+    /**
+     * Set identity map of objects already serialized in current document, objects found in it are not serialized again, so shared references
+     * stay shared in serialized data.
+     *
+     * @param serializedObjects
+     *         identity map of serialized objects to their raw values, or null to serialize each reference separately.
+     */
+    void setSerializedObjects(@Nullable Map<Object, Object> serializedObjects)
+    {
+        this.serializedObjects = serializedObjects;
+    }
+
     Object rawValue()
     {
         if (! this.dataList.isEmpty())
@@ -0,0 +1,221 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017. Diorite (by Bartłomiej Mazur (aka GotoFinal))
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package org.diorite.config.serialization;
+
+import javax.annotation.Nullable;
+
+import java.lang.ref.WeakReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.commons.lang3.builder.ToStringBuilder;
+
+/**
+ * Bounded pool used to deduplicate config keys and short scalar values between loaded configs. <br>
+ * Pool is a direct mapped table of weak references, so it never grows over its capacity and never keeps unused strings alive, on collision older string is
+ * just replaced. <br>
+ * Pool is thread safe and can be shared between many {@link Serialization} instances.
+ *
+ * @see Serialization#setStringDeduplicator(StringDeduplicator)
+ */
+public final class StringDeduplicator
+{
+    /**
+     * Estimated size of string object header and its backing array header, used to compute saved bytes.
+     */
+    private static final int STRING_OVERHEAD = 40;
+
+    private final AtomicReferenceArray<WeakReference<String>> table;
+    private final int                                         mask;
+    private final int                                         maxLength;
+
+    private final LongAdder lookups    = new LongAdder();
+    private final LongAdder hits       = new LongAdder();
+    private final LongAdder bytesSaved = new LongAdder();
+
+    /**
+     * Create new pool.
+     *
+     * @param capacity
+     *         maximum amount of pooled strings, rounded up to power of two.
+     * @param maxLength
+     *         strings longer than this are never pooled.
+     */
+    public StringDeduplicator(int capacity, int maxLength)
+    {
+        if (capacity <= 0)
+        {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        int size = (capacity >= (1 << 30)) ? (1 << 30) : Integer.highestOneBit((capacity - 1) << 1);
+        if (size == 0)
+        {
+            size = 1;
+        }
+        this.table = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+        this.maxLength = maxLength;
+    }
+
+    /**
+     * Create new pool for up to 16384 strings not longer than 64 characters.
+     */
+    public StringDeduplicator()
+    {
+        this(16384, 64);
+    }
+
+    /**
+     * Returns pooled instance equal to given string, or given string if there was no such instance in pool.
+     *
+     * @param string
+     *         string to deduplicate.
+     *
+     * @return pooled string instance.
+     */
+    @Nullable
+    public String deduplicate(@Nullable String string)
+    {
+        if ((string == null) || (string.length() > this.maxLength))
+        {
+            return string;
+        }
+        this.lookups.increment();
+        int hash = string.hashCode();
+        int slot = (hash ^ (hash >>> 16)) & this.mask;
+        WeakReference<String> reference = this.table.get(slot);
+        if (reference != null)
+        {
+            String pooled = reference.get();
+            if (pooled == string)
+            {
+                this.hits.increment();
+                return pooled;
+            }
+            if ((pooled != null) && pooled.equals(string))
+            {
+                this.hits.increment();
+                this.bytesSaved.add(STRING_OVERHEAD + (string.length() << 1));
+                return pooled;
+            }
+        }
+        this.table.lazySet(slot, new WeakReference<>(string));
+        return string;
+    }
+
+    /**
+     * Returns maximum amount of pooled strings.
+     *
+     * @return maximum amount of pooled strings.
+     */
+    public int getCapacity()
+    {
+        return this.table.length();
+    }
+
+    /**
+     * Returns length limit of pooled strings.
+     *
+     * @return length limit of pooled strings.
+     */
+    public int getMaxLength()
+    {
+        return this.maxLength;
+    }
+
+    /**
+     * Returns amount of strings checked against this pool.
+     *
+     * @return amount of pool lookups.
+     */
+    public long getLookups()
+    {
+        return this.lookups.sum();
+    }
+
+    /**
+     * Returns amount of lookups that returned already pooled instance.
+     *
+     * @return amount of pool hits.
+     */
+    public long getHits()
+    {
+        return this.hits.sum();
+    }
+
+    /**
+     * Returns ratio of hits to lookups, or 0 if there were no lookups.
+     *
+     * @return hit rate of pool.
+     */
+    public double getHitRate()
+    {
+        long lookups = this.lookups.sum();
+        if (lookups == 0)
+        {
+            return 0;
+        }
+        return this.hits.sum() / (double) lookups;
+    }
+
+    /**
+     * Returns estimated amount of bytes saved by returning pooled instances instead of duplicates.
+     *
+     * @return estimated amount of saved bytes.
+     */
+    public long getBytesSaved()
+    {
+        return this.bytesSaved.sum();
+    }
+
+    /**
+     * Reset all metrics of this pool.
+     */
+    public void resetMetrics()
+    {
+        this.lookups.reset();
+        this.hits.reset();
+        this.bytesSaved.reset();
+    }
+
+    /**
+     * Remove all pooled strings.
+     */
+    public void clear()
+    {
+        for (int i = 0, length = this.table.length(); i < length; i++)
+        {
+            this.table.set(i, null);
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return new ToStringBuilder(this).appendSuper(super.toString()).append("capacity", this.table.length()).append("lookups", this.lookups.sum())
+                                        .append("hits", this.hits.sum()).append("bytesSaved", this.bytesSaved.sum()).toString();
+    }
+}
@@ -26,13 +26,17 @@ package org.diorite.config.serialization;
 
 import javax.annotation.Nullable;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Consumer;
 import java.util.function.Function;
 
 import org.apache.commons.lang3.builder.ToStringBuilder;
@@ -56,6 +60,13 @@ public class YamlDeserializationData extends AbstractDeserializationData
     private final Representer     representer;
     private final YamlConstructor constructor;
 
+    // lazy index of root mapping node, key -> first tuple with that key.
+    @Nullable private Map<String, NodeTuple>    keyIndex;
+    // tuple -> next tuple with same key, only created if root mapping node contains duplicated keys.
+    @Nullable private Map<NodeTuple, NodeTuple> duplicatedTuples;
+    // tuples removed from index, they are removed from root mapping node at once before its tuples are read.
+    @Nullable private Set<NodeTuple>            consumedTuples;
+
     YamlDeserializationData(Serialization serialization, Node node, Representer representer, YamlConstructor constructor, Class<?> type)
     {
         super(type, serialization);
@@ -65,6 +76,11 @@ public class YamlDeserializationData extends AbstractDeserializationData
         {
             node = ((AnchorNode) node).getRealNode();
         }
+        if ((node instanceof MappingNode) && ((MappingNode) node).isMerged())
+        {
+            // merge keys are resolved before keys are indexed, explicit keys take precedence over merged ones.
+            constructor.flattenMapping((MappingNode) node);
+        }
 
         this.node = node;
         this.representer = representer;
@@ -81,21 +97,37 @@ public class YamlDeserializationData extends AbstractDeserializationData
     {
         if (this.node instanceof MappingNode)
         {
-            List<NodeTuple> tuples = ((MappingNode) this.node).getValue();
-            Set<String> result = new LinkedHashSet<>(tuples.size());
-            for (NodeTuple tuple : tuples)
-            {
-                Node keyNode = tuple.getKeyNode();
-                if (keyNode instanceof ScalarNode)
-                {
-                    result.add(((ScalarNode) keyNode).getValue());
-                }
-            }
-            return result;
+            return new LinkedHashSet<>(this.getKeyIndex((MappingNode) this.node).keySet());
         }
         return Collections.emptySet();
     }
 
+    /**
+     * Detach value of given key from this data. Returned value keeps only node of that value, and creates new deserialization data
+     * containing only that key each time it is used, using yaml engine borrowed from pool for that use only. <br>
+     * Used to deserialize values lazily.
+     *
+     * @param key
+     *         key to detach.
+     *
+     * @return detached value containing only given key, or null if there is no such key.
+     */
+    @Nullable
+    public DetachedValue detach(String key)
+    {
+        Node valueNode = this.getNode(this.node, key);
+        if (valueNode == null)
+        {
+            return null;
+        }
+        List<NodeTuple> tuples = new ArrayList<>(1);
+        tuples.add(new NodeTuple(new ScalarNode(Tag.STR, key, null, null, null), valueNode));
+        MappingNode mappingNode = new MappingNode(Tag.MAP, true, tuples, null, null, Boolean.FALSE);
+        Serialization serialization = this.serialization;
+        Class<?> type = this.type;
+        return action -> serialization.withYamlDeserializationData(mappingNode, type, action);
+    }
+
     @Nullable
     public Tag getTag(String key)
     {
@@ -126,6 +158,25 @@ public class YamlDeserializationData extends AbstractDeserializationData
         return false;
     }
 
+    @Override
+    public int getElementCount(String key)
+    {
+        Node node = this.getNode(this.node, key);
+        while (node instanceof AnchorNode)
+        {
+            node = ((AnchorNode) node).getRealNode();
+        }
+        if (node instanceof SequenceNode)
+        {
+            return ((SequenceNode) node).getValue().size();
+        }
+        if (node instanceof MappingNode)
+        {
+            return this.getTuples((MappingNode) node).size();
+        }
+        return - 1;
+    }
+
     @Nullable
     private Node getNode(Node node, String key)
     {
@@ -157,9 +208,98 @@ public class YamlDeserializationData extends AbstractDeserializationData
         return this.getNode(node, key, false);
     }
 
+    private Map<String, NodeTuple> getKeyIndex(MappingNode node)
+    {
+        Map<String, NodeTuple> keyIndex = this.keyIndex;
+        if (keyIndex == null)
+        {
+            List<NodeTuple> tuples = this.getTuples(node);
+            keyIndex = new LinkedHashMap<>(Math.max(16, (int) (tuples.size() / .75f) + 1));
+            for (NodeTuple tuple : tuples)
+            {
+                Node keyNode = tuple.getKeyNode();
+                if (! (keyNode instanceof ScalarNode))
+                {
+                    continue;
+                }
+                NodeTuple firstTuple = keyIndex.putIfAbsent(this.serialization.deduplicate(((ScalarNode) keyNode).getValue()), tuple);
+                if (firstTuple != null)
+                {
+                    this.addDuplicatedTuple(firstTuple, tuple);
+                }
+            }
+            this.keyIndex = keyIndex;
+        }
+        return keyIndex;
+    }
+
+    private void addDuplicatedTuple(NodeTuple firstTuple, NodeTuple tuple)
+    {
+        Map<NodeTuple, NodeTuple> duplicatedTuples = this.duplicatedTuples;
+        if (duplicatedTuples == null)
+        {
+            duplicatedTuples = new IdentityHashMap<>(4);
+            this.duplicatedTuples = duplicatedTuples;
+        }
+        NodeTuple last = firstTuple;
+        for (NodeTuple next = duplicatedTuples.get(last); next != null; next = duplicatedTuples.get(last))
+        {
+            last = next;
+        }
+        duplicatedTuples.put(last, tuple);
+    }
+
+    private List<NodeTuple> getTuples(MappingNode node)
+    {
+        List<NodeTuple> tuples = node.getValue();
+        Set<NodeTuple> consumedTuples = this.consumedTuples;
+        if ((node == this.node) && (consumedTuples != null) && ! consumedTuples.isEmpty())
+        {
+            tuples.removeIf(consumedTuples::contains);
+            consumedTuples.clear();
+        }
+        return tuples;
+    }
+
+    @Nullable
+    private Node getIndexedNode(MappingNode node, String key, boolean remove)
+    {
+        Map<String, NodeTuple> keyIndex = this.getKeyIndex(node);
+        NodeTuple tuple = keyIndex.get(key);
+        if (tuple == null)
+        {
+            return null;
+        }
+        if (remove)
+        {
+            // expose next tuple with same key, if mapping contained duplicated keys.
+            NodeTuple nextTuple = (this.duplicatedTuples == null) ? null : this.duplicatedTuples.remove(tuple);
+            if (nextTuple == null)
+            {
+                keyIndex.remove(key);
+            }
+            else
+            {
+                keyIndex.put(key, nextTuple);
+            }
+            Set<NodeTuple> consumedTuples = this.consumedTuples;
+            if (consumedTuples == null)
+            {
+                consumedTuples = Collections.newSetFromMap(new IdentityHashMap<>(16));
+                this.consumedTuples = consumedTuples;
+            }
+            consumedTuples.add(tuple);
+        }
+        return tuple.getValueNode();
+    }
+
     @Nullable
     private Node getNode(MappingNode node, String key, boolean remove)
     {
+        if (node == this.node)
+        {
+            return this.getIndexedNode(node, key, remove);
+        }
         for (Iterator<NodeTuple> iterator = node.getValue().iterator(); iterator.hasNext(); )
         {
             NodeTuple tuple = iterator.next();
@@ -188,10 +328,10 @@ public class YamlDeserializationData extends AbstractDeserializationData
         {
             return null;
         }
-        if (DioriteReflectionUtils.getWrapperClass(type).equals(Boolean.class))
+        Class<?> wrapperType = DioriteReflectionUtils.getWrapperClass(type);
+        if (wrapperType == Boolean.class)
         {
-            node.setTag(Tag.STR);
-            T t = (T) this.toBool(this.constructor.constructObject(node).toString());
+            T t = (T) this.toBool(this.scalarToString(node));
             if (t == null)
             {
                 return def;
@@ -200,8 +340,7 @@ public class YamlDeserializationData extends AbstractDeserializationData
         }
         if (Enum.class.isAssignableFrom(type))
         {
-            node.setTag(Tag.STR);
-            Enum valueSafe = DioriteReflectionUtils.getEnumValueSafe(this.constructor.constructObject(node).toString(), - 1, (Class) type);
+            Enum valueSafe = ScalarConversions.findEnum(type, this.scalarToString(node));
             if (valueSafe == null)
             {
                 return def;
@@ -210,46 +349,30 @@ public class YamlDeserializationData extends AbstractDeserializationData
         }
         if (DynamicEnum.class.isAssignableFrom(type))
         {
-            String name = this.constructor.constructObject(node).toString();
-            DynamicEnum[] values = DynamicEnum.values((Class<DynamicEnum>) type);
-            for (DynamicEnum value : values)
+            DynamicEnum value = ScalarConversions.findDynamicEnum(type, this.scalarToString(node));
+            if (value == null)
             {
-                if (value.prettyName().equalsIgnoreCase(name) || value.name().equalsIgnoreCase(name) || String.valueOf(value.ordinal()).equalsIgnoreCase(name))
-                {
-                    return (T) value;
-                }
+                return def;
             }
-            return def;
+            return (T) value;
         }
-        if (Number.class.isAssignableFrom(DioriteReflectionUtils.getWrapperClass(type)))
+        if (Number.class.isAssignableFrom(wrapperType))
         {
-            Class<?> numType = DioriteReflectionUtils.getWrapperClass(type);
-            node.setTag(new Tag(String.class));
-            String deserialize = this.constructor.constructObject(node).toString();
-            if (numType == Byte.class)
-            {
-                return (T) (Byte) Byte.parseByte(deserialize);
-            }
-            else if (numType == Short.class)
-            {
-                return (T) (Short) Short.parseShort(deserialize);
-            }
-            else if (numType == Integer.class)
-            {
-                return (T) (Integer) Integer.parseInt(deserialize);
-            }
-            else if (numType == Long.class)
+            Number number = ScalarConversions.parseNumber(wrapperType, this.scalarToString(node));
+            if (number != null)
             {
-                return (T) (Long) Long.parseLong(deserialize);
+                return (T) number;
             }
-            else if (numType == Float.class)
-            {
-                return (T) (Float) Float.parseFloat(deserialize);
-            }
-            else if (numType == Double.class)
+        }
+        // aliases share node with their anchor, so all references to anchored value resolve to the same instance.
+        Object constructed = this.constructor.getConstructed(node);
+        if (constructed != null)
+        {
+            if (wrapperType.isInstance(constructed))
             {
-                return (T) (Double) Double.parseDouble(deserialize);
+                return (T) constructed;
             }
+            this.constructor.forgetConstructed(node);
         }
         if ((node instanceof SequenceNode) && type.isArray())
         {
@@ -263,7 +386,9 @@ public class YamlDeserializationData extends AbstractDeserializationData
                 subNode.setTag(componentTag);
                 subNode.setUseClassConstructor(false);
             }
-            return (T) this.constructor.constructArray((SequenceNode) node);
+            Object array = this.constructor.constructArray((SequenceNode) node);
+            this.constructor.putConstructed(node, array);
+            return (T) array;
         }
         if (type != Object.class)
         {
@@ -272,6 +397,17 @@ public class YamlDeserializationData extends AbstractDeserializationData
         return (T) this.constructor.constructObject(node);
     }
 
+    // scalar values are used directly, only other nodes need to be constructed as string.
+    private String scalarToString(Node node)
+    {
+        if (node instanceof ScalarNode)
+        {
+            return ((ScalarNode) node).getValue();
+        }
+        node.setTag(Tag.STR);
+        return this.constructor.constructObject(node).toString();
+    }
+
     private <T> T deserializeSpecialOrThrow(Class<T> type, Node node)
     {
         try
@@ -324,7 +460,7 @@ public class YamlDeserializationData extends AbstractDeserializationData
         else if (node instanceof MappingNode)
         {
             MappingNode mappingNode = (MappingNode) node;
-            for (NodeTuple tuple : mappingNode.getValue())
+            for (NodeTuple tuple : this.getTuples(mappingNode))
             {
                 collection.add(this.deserializeSpecial(type, tuple.getValueNode(), null));
             }
@@ -361,7 +497,7 @@ public class YamlDeserializationData extends AbstractDeserializationData
         else if (node instanceof MappingNode)
         {
             MappingNode mappingNode = (MappingNode) node;
-            for (NodeTuple tuple : mappingNode.getValue())
+            for (NodeTuple tuple : this.getTuples(mappingNode))
             {
                 Node valueNode = tuple.getValueNode();
                 if (type != Object.class)
@@ -420,7 +556,7 @@ public class YamlDeserializationData extends AbstractDeserializationData
         else if (node instanceof MappingNode)
         {
             MappingNode mappingNode = (MappingNode) node;
-            for (NodeTuple tuple : mappingNode.getValue())
+            for (NodeTuple tuple : this.getTuples(mappingNode))
             {
                 Node valueNode = tuple.getValueNode();
                 if (! (valueNode instanceof MappingNode))
@@ -466,7 +602,7 @@ public class YamlDeserializationData extends AbstractDeserializationData
         MappingNode mappingNode = (MappingNode) node;
         Tag keyTag = new Tag(keyType);
         Tag typeTag = new Tag(type);
-        for (NodeTuple tuple : mappingNode.getValue())
+        for (NodeTuple tuple : this.getTuples(mappingNode))
         {
             K keyObj;
             Node keyNode = tuple.getKeyNode();
@@ -508,7 +644,7 @@ public class YamlDeserializationData extends AbstractDeserializationData
         }
         MappingNode mappingNode = (MappingNode) node;
         Tag typeTag = new Tag(type);
-        for (NodeTuple tuple : mappingNode.getValue())
+        for (NodeTuple tuple : this.getTuples(mappingNode))
         {
             Node keyNode = tuple.getKeyNode();
             keyNode.setTag(Tag.STR);
@@ -529,4 +665,20 @@ public class YamlDeserializationData extends AbstractDeserializationData
     {
         return new ToStringBuilder(this).appendSuper(super.toString()).append("node", this.node).toString();
     }
+
+    /**
+     * Value detached from deserialization data, see {@link #detach(String)}.
+     */
+    @FunctionalInterface
+    public interface DetachedValue
+    {
+        /**
+         * Execute given action with deserialization data containing only detached value, data must not be used after action ends as yaml
+         * engine used by it is returned to pool.
+         *
+         * @param action
+         *         action to execute.
+         */
+        void deserialize(Consumer<? super YamlDeserializationData> action);
+    }
 }
@@ -0,0 +1,248 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017. Diorite (by Bartłomiej Mazur (aka GotoFinal))
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.diorite.config.serialization;
+
+import javax.annotation.Nullable;
+
+import java.io.Closeable;
+import java.io.Reader;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.yaml.snakeyaml.error.YAMLException;
+import org.yaml.snakeyaml.nodes.Node;
+
+/**
+ * Iterator over objects of multi-document YAML stream that constructs documents in parallel. <br>
+ * Single composer thread splits parser event stream into document nodes, and fixed pool of workers constructs them, each document is
+ * constructed by yaml engine borrowed from {@link YamlEnginePool}. Number of documents that are composed but not yet consumed is limited, so
+ * memory used by pending documents stays bounded for streams of any size. <br>
+ * Documents are returned in stream order, or in order of completion if pipeline isn't ordered. Pipeline should be closed if it is not fully
+ * consumed, and it isn't safe to consume it from multiple threads.
+ */
+public final class YamlDocumentPipeline implements Iterator<Object>, Closeable
+{
+    private static final AtomicInteger  pipelineCounter = new AtomicInteger();
+    private static final Future<Object> END             = CompletableFuture.completedFuture(null);
+
+    private final boolean                       ordered;
+    private final int                           parallelism;
+    private final int                           maxPending;
+    private final Semaphore                     pending;
+    private final BlockingQueue<Future<Object>> results = new LinkedBlockingQueue<>();
+    private final ExecutorService               workers;
+    private final Thread                        composerThread;
+
+    // written by composer thread before END is queued.
+    private           int            submitted;
+    private           int            received;
+    private           boolean        endReached;
+    private           boolean        closed;
+    @Nullable private Future<Object> next;
+
+    YamlDocumentPipeline(YamlEnginePool yamlPool, Reader reader, int parallelism, int maxPending, boolean ordered)
+    {
+        if (parallelism < 1)
+        {
+            throw new IllegalArgumentException("Parallelism must be positive: " + parallelism);
+        }
+        if (maxPending < parallelism)
+        {
+            throw new IllegalArgumentException("Max pending documents (" + maxPending + ") can't be lower than parallelism (" + parallelism + ")");
+        }
+        this.ordered = ordered;
+        this.parallelism = parallelism;
+        this.maxPending = maxPending;
+        this.pending = new Semaphore(maxPending);
+
+        int pipelineId = pipelineCounter.incrementAndGet();
+        ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+        AtomicInteger threadCounter = new AtomicInteger();
+        ThreadFactory threadFactory = runnable ->
+        {
+            Thread thread = new Thread(runnable, "yaml-pipeline-" + pipelineId + "-" + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            thread.setContextClassLoader(contextClassLoader);
+            return thread;
+        };
+        this.workers = Executors.newFixedThreadPool(parallelism, threadFactory);
+        this.composerThread = new Thread(() -> this.compose(yamlPool, reader), "yaml-pipeline-" + pipelineId + "-composer");
+        this.composerThread.setDaemon(true);
+        this.composerThread.setContextClassLoader(contextClassLoader);
+        this.composerThread.start();
+    }
+
+    private void compose(YamlEnginePool yamlPool, Reader reader)
+    {
+        int submitted = 0;
+        YamlEnginePool.Lease lease = yamlPool.lease();
+        try
+        {
+            for (Node node : lease.getYaml().composeAll(reader))
+            {
+                this.pending.acquire();
+                CompletableFuture<Object> future = CompletableFuture.supplyAsync(() -> yamlPool.apply(yaml -> yaml.fromYamlNode(node)), this.workers);
+                submitted++;
+                if (this.ordered)
+                {
+                    this.results.add(future);
+                }
+                else
+                {
+                    future.whenComplete((result, throwable) -> this.results.add(future));
+                }
+            }
+        }
+        catch (InterruptedException e)
+        {
+            return; // pipeline was closed.
+        }
+        catch (Throwable e)
+        {
+            CompletableFuture<Object> failed = new CompletableFuture<>();
+            failed.completeExceptionally(e);
+            submitted++;
+            this.results.add(failed);
+        }
+        finally
+        {
+            lease.release();
+        }
+        this.submitted = submitted;
+        this.results.add(END);
+    }
+
+    @Override
+    public boolean hasNext()
+    {
+        if (this.next != null)
+        {
+            return true;
+        }
+        if (this.closed)
+        {
+            return false;
+        }
+        try
+        {
+            while (true)
+            {
+                if (this.endReached && (this.received == this.submitted))
+                {
+                    this.close();
+                    return false;
+                }
+                Future<Object> future = this.results.take();
+                if (future == END)
+                {
+                    this.endReached = true;
+                    continue;
+                }
+                this.next = future;
+                return true;
+            }
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            this.close();
+            throw new YAMLException("Interrupted while waiting for next document", e);
+        }
+    }
+
+    @Override
+    @Nullable
+    public Object next()
+    {
+        if (! this.hasNext())
+        {
+            throw new NoSuchElementException();
+        }
+        Future<Object> future = this.next;
+        assert future != null;
+        this.next = null;
+        this.received++;
+        this.pending.release();
+        try
+        {
+            return future.get();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            this.close();
+            throw new YAMLException("Interrupted while waiting for next document", e);
+        }
+        catch (ExecutionException e)
+        {
+            this.close();
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException)
+            {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error)
+            {
+                throw (Error) cause;
+            }
+            throw new YAMLException(cause);
+        }
+    }
+
+    /**
+     * Stop composing and constructing documents, reader of stream isn't closed by this method.
+     */
+    @Override
+    public void close()
+    {
+        if (this.closed)
+        {
+            return;
+        }
+        this.closed = true;
+        this.next = null;
+        this.composerThread.interrupt();
+        this.workers.shutdownNow();
+    }
+
+    @Override
+    public String toString()
+    {
+        return new ToStringBuilder(this).appendSuper(super.toString()).append("ordered", this.ordered).append("parallelism", this.parallelism)
+                                        .append("maxPending", this.maxPending).append("received", this.received).append("closed", this.closed)
+                                        .toString();
+    }
+}
@@ -0,0 +1,414 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017. Diorite (by Bartłomiej Mazur (aka GotoFinal))
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.diorite.config.serialization;
+
+import java.util.Deque;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.apache.commons.lang3.builder.ToStringBuilder;
+
+import org.diorite.config.serialization.snakeyaml.Yaml;
+
+/**
+ * Bounded pool of yaml engines used by {@link Serialization}. <br>
+ * Yaml instances are not thread safe, so each operation borrows an engine from pool and returns it when done. Engines are created lazily only
+ * when pool is empty, so borrowing never blocks and nested operations (like serializers calling back into serialization) simply use another
+ * engine. Returned engines are kept only up to {@link #getMaxIdle()}, additional engines are discarded, so pool stays small even if it is used
+ * by many short-lived threads. <br>
+ * Serializers registered after engine was created are applied to it incrementally when it is borrowed next time, see
+ * {@link Updater}. Pool is invalidated only on {@link Serialization#cleanup()}, engines borrowed before that are discarded when returned.
+ *
+ * @see Serialization#getYamlEnginePool()
+ */
+public final class YamlEnginePool
+{
+    private final    Supplier<Yaml> factory;
+    private final    Updater        updater;
+    private volatile Generation     generation = new Generation();
+    private volatile int            maxIdle;
+
+    private final LongAdder     created   = new LongAdder();
+    private final LongAdder     borrowed  = new LongAdder();
+    private final LongAdder     reused    = new LongAdder();
+    private final LongAdder     discarded = new LongAdder();
+    private final LongAdder     leased    = new LongAdder();
+    private final LongAdder     updated   = new LongAdder();
+    private final AtomicInteger active    = new AtomicInteger();
+    private final AtomicInteger peak      = new AtomicInteger();
+
+    YamlEnginePool(Supplier<Yaml> factory, Updater updater, int maxIdle)
+    {
+        this.factory = factory;
+        this.updater = updater;
+        this.setMaxIdle(maxIdle);
+    }
+
+    /**
+     * Executes given action using pooled engine, engine is returned to pool after action ends.
+     *
+     * @param action
+     *         action to execute.
+     * @param <R>
+     *         type of result.
+     *
+     * @return result of action.
+     */
+    <R> R apply(Function<Yaml, R> action)
+    {
+        Generation generation = this.generation;
+        Engine engine = this.borrow(generation);
+        int active = this.active.incrementAndGet();
+        this.peak.accumulateAndGet(active, Math::max);
+        try
+        {
+            return action.apply(engine.yaml);
+        }
+        finally
+        {
+            // each operation is separate document, so objects constructed by it can't be reused by next one.
+            engine.yaml.getConstructor().endDocument();
+            this.active.decrementAndGet();
+            this.release(generation, engine);
+        }
+    }
+
+    /**
+     * Executes given action using pooled engine, engine is returned to pool after action ends.
+     *
+     * @param action
+     *         action to execute.
+     */
+    void accept(Consumer<Yaml> action)
+    {
+        this.apply(yaml ->
+                   {
+                       action.accept(yaml);
+                       return null;
+                   });
+    }
+
+    /**
+     * Takes engine from pool for lazy results that keep using engine after method returns, like iterators. Engine is owned by that result
+     * until returned lease is {@link Lease#release() released}, what should happen when result is exhausted or closed.
+     *
+     * @return lease of engine owned by caller.
+     */
+    Lease lease()
+    {
+        this.leased.increment();
+        Generation generation = this.generation;
+        return new Lease(generation, this.borrow(generation));
+    }
+
+    /**
+     * Drops all idle engines, engines that are currently borrowed will be discarded when returned.
+     */
+    void invalidate()
+    {
+        this.generation = new Generation();
+    }
+
+    private Engine borrow(Generation generation)
+    {
+        this.borrowed.increment();
+        Engine engine = generation.engines.pollFirst();
+        if (engine == null)
+        {
+            this.created.increment();
+            engine = new Engine(this.factory.get());
+            engine.version = this.updater.update(engine.yaml, 0);
+            return engine;
+        }
+        generation.idle.decrementAndGet();
+        this.reused.increment();
+        int version = this.updater.update(engine.yaml, engine.version);
+        if (version != engine.version)
+        {
+            engine.version = version;
+            this.updated.increment();
+        }
+        return engine;
+    }
+
+    private void release(Generation generation, Engine engine)
+    {
+        if (generation == this.generation)
+        {
+            if (generation.idle.incrementAndGet() <= this.maxIdle)
+            {
+                // last returned engine is borrowed first, so few engines stay warm and rest can be discarded.
+                generation.engines.offerFirst(engine);
+                return;
+            }
+            generation.idle.decrementAndGet();
+        }
+        this.discarded.increment();
+    }
+
+    /**
+     * Returns maximum amount of idle engines kept in pool.
+     *
+     * @return maximum amount of idle engines.
+     */
+    public int getMaxIdle()
+    {
+        return this.maxIdle;
+    }
+
+    /**
+     * Set maximum amount of idle engines kept in pool, engines returned over that limit are discarded. <br>
+     * Already pooled engines over new limit are dropped.
+     *
+     * @param maxIdle
+     *         maximum amount of idle engines, 0 disables pooling.
+     */
+    public void setMaxIdle(int maxIdle)
+    {
+        if (maxIdle < 0)
+        {
+            throw new IllegalArgumentException("Max idle engines can't be negative: " + maxIdle);
+        }
+        this.maxIdle = maxIdle;
+        Generation generation = this.generation;
+        while (generation.idle.get() > maxIdle)
+        {
+            if (generation.engines.pollLast() == null)
+            {
+                break;
+            }
+            generation.idle.decrementAndGet();
+            this.discarded.increment();
+        }
+    }
+
+    /**
+     * Returns amount of engines currently kept in pool.
+     *
+     * @return amount of idle engines.
+     */
+    public int getIdle()
+    {
+        return Math.max(0, this.generation.idle.get());
+    }
+
+    /**
+     * Returns amount of engines currently used by operations.
+     *
+     * @return amount of borrowed engines.
+     */
+    public int getActive()
+    {
+        return this.active.get();
+    }
+
+    /**
+     * Returns highest amount of engines used by operations at the same time.
+     *
+     * @return peak amount of borrowed engines.
+     */
+    public int getPeakActive()
+    {
+        return this.peak.get();
+    }
+
+    /**
+     * Returns amount of created engines.
+     *
+     * @return amount of created engines.
+     */
+    public long getCreated()
+    {
+        return this.created.sum();
+    }
+
+    /**
+     * Returns amount of engines taken from pool, including leased ones.
+     *
+     * @return amount of borrows.
+     */
+    public long getBorrowed()
+    {
+        return this.borrowed.sum();
+    }
+
+    /**
+     * Returns amount of borrows that reused already pooled engine instead of creating new one.
+     *
+     * @return amount of reused engines.
+     */
+    public long getReused()
+    {
+        return this.reused.sum();
+    }
+
+    /**
+     * Returns ratio of reused engines to all borrows, or 0 if there were no borrows.
+     *
+     * @return reuse rate of pool.
+     */
+    public double getReuseRate()
+    {
+        long borrowed = this.borrowed.sum();
+        if (borrowed == 0)
+        {
+            return 0;
+        }
+        return this.reused.sum() / (double) borrowed;
+    }
+
+    /**
+     * Returns amount of engines dropped because pool was full, invalidated or shrunk.
+     *
+     * @return amount of discarded engines.
+     */
+    public long getDiscarded()
+    {
+        return this.discarded.sum();
+    }
+
+    /**
+     * Returns amount of engines taken by lazy results (like iterators), these engines are returned to pool when result is exhausted or closed.
+     *
+     * @return amount of leased engines.
+     */
+    public long getLeased()
+    {
+        return this.leased.sum();
+    }
+
+    /**
+     * Returns amount of borrows that updated pooled engine with serializers or settings changed since engine was last used.
+     *
+     * @return amount of incremental engine updates.
+     */
+    public long getUpdated()
+    {
+        return this.updated.sum();
+    }
+
+    /**
+     * Reset all metrics of this pool.
+     */
+    public void resetMetrics()
+    {
+        this.created.reset();
+        this.borrowed.reset();
+        this.reused.reset();
+        this.discarded.reset();
+        this.leased.reset();
+        this.updated.reset();
+        this.peak.set(this.active.get());
+    }
+
+    @Override
+    public String toString()
+    {
+        return new ToStringBuilder(this).appendSuper(super.toString()).append("maxIdle", this.maxIdle).append("idle", this.getIdle())
+                                        .append("active", this.active.get()).append("created", this.created.sum())
+                                        .append("borrowed", this.borrowed.sum()).append("reused", this.reused.sum())
+                                        .append("discarded", this.discarded.sum()).append("leased", this.leased.sum())
+                                        .append("updated", this.updated.sum()).toString();
+    }
+
+    /**
+     * Brings engine up to date with changes made after given version, engine is owned by calling thread during update.
+     */
+    @FunctionalInterface
+    interface Updater
+    {
+        /**
+         * Apply all changes made after given version to engine.
+         *
+         * @param yaml
+         *         engine to update.
+         * @param version
+         *         version of changes already applied to engine, 0 for new engines.
+         *
+         * @return version of changes applied to engine after update.
+         */
+        int update(Yaml yaml, int version);
+    }
+
+    /**
+     * Engine taken from pool by lazy result, see {@link #lease()}.
+     */
+    final class Lease
+    {
+        private final Generation    generation;
+        private final Engine        engine;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Lease(Generation generation, Engine engine)
+        {
+            this.generation = generation;
+            this.engine = engine;
+        }
+
+        /**
+         * Returns leased engine, it must not be used after lease is released.
+         *
+         * @return leased engine.
+         */
+        Yaml getYaml()
+        {
+            return this.engine.yaml;
+        }
+
+        /**
+         * Returns leased engine to pool, releasing lease again does nothing.
+         */
+        void release()
+        {
+            if (this.released.compareAndSet(false, true))
+            {
+                this.engine.yaml.getConstructor().endDocument();
+                YamlEnginePool.this.release(this.generation, this.engine);
+            }
+        }
+    }
+
+    private static final class Engine
+    {
+        private final Yaml yaml;
+        private       int  version;
+
+        private Engine(Yaml yaml)
+        {
+            this.yaml = yaml;
+        }
+    }
+
+    private static final class Generation
+    {
+        private final Deque<Engine> engines = new ConcurrentLinkedDeque<>();
+        private final AtomicInteger idle    = new AtomicInteger();
+    }
+}
@@ -106,6 +106,7 @@ class YamlSerializerImpl<T> extends AbstractRepresent implements Construct
         {
             SimpleSerializationData data =
                     (SimpleSerializationData) SerializationData.create(SerializationType.YAML, this.serialization, this.serializer.getType());
+            data.setSerializedObjects(this.representer.getSerializedObjects());
             this.serializer.serialize((T) object, data);
             Object rawValue = data.rawValue();
             if (rawValue instanceof Map)
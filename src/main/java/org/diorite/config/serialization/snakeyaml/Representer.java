@@ -191,6 +191,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -217,11 +218,17 @@ import org.yaml.snakeyaml.representer.Represent;
  */
 public class Representer extends BaseRepresenter
 {
-    private static final int MAX_WIDTH = 100;
+    private static final int        MAX_WIDTH           = 100;
+    private static final Class<?>[] DEFAULT_MULTI_TYPES =
+            {Number.class, List.class, Map.class, Set.class, Iterator.class, Object[].class, Date.class, Enum.class, Calendar.class, Collection.class};
 
     protected final Map<Class<?>, Tag> classTags;
     @Nullable protected TimeZone timeZone = null;
 
+    // raw values produced by registered serializers in current document, so the same object referenced many times is represented by single
+    // node, and emitted as anchor and aliases.
+    private final Map<Object, Object> serializedObjects = new IdentityHashMap<>(16);
+
     public Representer()
     {
         this.nullRepresenter = new RepresentNull(this);
@@ -251,6 +258,14 @@ public class Representer extends BaseRepresenter
         this.representers.put(type, represent);
         LinkedHashMap<Class<?>, Represent> multiRepresenters = (LinkedHashMap<Class<?>, Represent>) this.multiRepresenters;
         multiRepresenters.put(type, represent);
+        if (this.init)
+        {
+            // default multi representers must stay after registered ones, as they match more generic types.
+            for (Class<?> defaultType : DEFAULT_MULTI_TYPES)
+            {
+                multiRepresenters.put(defaultType, multiRepresenters.remove(defaultType));
+            }
+        }
     }
 
     private boolean init = false;
@@ -298,6 +313,30 @@ public class Representer extends BaseRepresenter
         return this.classTags.put(clazz, tag);
     }
 
+    /**
+     * Returns identity map of objects serialized by registered serializers to their raw values, it is valid only for currently represented
+     * document.
+     *
+     * @return identity map of serialized objects.
+     */
+    public Map<Object, Object> getSerializedObjects()
+    {
+        return this.serializedObjects;
+    }
+
+    @Override
+    public Node represent(@Nullable Object data)
+    {
+        try
+        {
+            return super.represent(data);
+        }
+        finally
+        {
+            this.serializedObjects.clear();
+        }
+    }
+
     public static final Pattern MULTILINE_PATTERN = Pattern.compile("[\n\u0085\u2028\u2029]");
 
     @Override
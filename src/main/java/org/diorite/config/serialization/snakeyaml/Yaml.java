@@ -192,6 +192,7 @@ import java.io.Writer;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.function.BiConsumer;
 import java.util.regex.Pattern;
 
 import org.yaml.snakeyaml.DumperOptions.FlowStyle;
@@ -211,6 +212,7 @@ import org.diorite.commons.io.StringBuilderWriter;
 import org.diorite.commons.threads.DioriteThreadUtils;
 import org.diorite.config.Config;
 import org.diorite.config.ConfigTemplate;
+import org.diorite.config.impl.ConfigTemplateComposer;
 import org.diorite.config.impl.ConfigTemplateResolver;
 import org.diorite.config.serialization.Serialization;
 import org.diorite.config.serialization.comments.DocumentComments;
@@ -228,6 +230,7 @@ public class Yaml
     protected final YamlConstructor constructor;
     protected final Representer     representer;
     protected final DumperOptions   dumperOptions;
+    private         YamlLoadLimits  loadLimits = YamlLoadLimits.UNLIMITED;
 
     /**
      * Create Yaml instance. It is safe to create a few instances and use them
@@ -578,7 +581,7 @@ public class Yaml
     @Nullable
     public Object fromYaml(String yaml)
     {
-        return this.loadFromReader(new StreamReader(yaml), Object.class);
+        return this.loadFromReader(this.createParser(yaml), Object.class);
     }
 
     /**
@@ -593,7 +596,7 @@ public class Yaml
     @Nullable
     public Object fromYaml(InputStream io)
     {
-        return this.loadFromReader(new StreamReader(new UnicodeReader(io)), Object.class);
+        return this.loadFromReader(this.createParser(new UnicodeReader(io)), Object.class);
     }
 
     /**
@@ -608,7 +611,7 @@ public class Yaml
     @Nullable
     public Object fromYaml(Reader io)
     {
-        return this.loadFromReader(new StreamReader(io), Object.class);
+        return this.loadFromReader(this.createParser(io), Object.class);
     }
 
     /**
@@ -634,7 +637,7 @@ public class Yaml
         }
         try
         {
-            Composer composer = new Composer(new ParserImpl(new StreamReader(io)), new ConfigTemplateResolver(template));
+            Composer composer = new ConfigTemplateComposer(this.createParser(io), new ConfigTemplateResolver(template, this.resolver));
             this.constructor.setComposer(composer);
             return (T) this.constructor.getSingleData(template.getConfigType());
         }
@@ -664,7 +667,7 @@ public class Yaml
     @Nullable
     public <T> T fromYaml(Reader io, Class<T> type)
     {
-        return (T) this.loadFromReader(new StreamReader(io), type);
+        return (T) this.loadFromReader(this.createParser(io), type);
     }
 
     /**
@@ -684,7 +687,7 @@ public class Yaml
     @Nullable
     public <T> T fromYaml(String yaml, Class<T> type)
     {
-        return (T) this.loadFromReader(new StreamReader(yaml), type);
+        return (T) this.loadFromReader(this.createParser(yaml), type);
     }
 
     /**
@@ -704,7 +707,7 @@ public class Yaml
     @Nullable
     public <T> T fromYaml(InputStream input, Class<T> type)
     {
-        return (T) this.loadFromReader(new StreamReader(new UnicodeReader(input)), type);
+        return (T) this.loadFromReader(this.createParser(new UnicodeReader(input)), type);
     }
 
     /**
@@ -746,7 +749,7 @@ public class Yaml
     }
 
     @Nullable
-    private Object loadFromReader(StreamReader sreader, Class<?> type)
+    private Object loadFromReader(Parser parser, Class<?> type)
     {
         ClassLoader old = Thread.currentThread().getContextClassLoader();
         if (old == null)
@@ -755,7 +758,7 @@ public class Yaml
         }
         try
         {
-            Composer composer = new Composer(new ParserImpl(sreader), this.resolver);
+            Composer composer = new Composer(parser, this.resolver);
             this.constructor.setComposer(composer);
             return this.constructor.getSingleData(type);
         }
@@ -768,6 +771,35 @@ public class Yaml
         }
     }
 
+    private Parser createParser(String yaml)
+    {
+        if (yaml.length() > this.loadLimits.getMaxInputSize())
+        {
+            throw new YamlLoadLimitException("Input is longer than " + this.loadLimits.getMaxInputSize() + " characters");
+        }
+        return this.createParser(new StreamReader(yaml));
+    }
+
+    private Parser createParser(Reader yaml)
+    {
+        long maxInputSize = this.loadLimits.getMaxInputSize();
+        if (maxInputSize != Long.MAX_VALUE)
+        {
+            yaml = new YamlLimitedReader(yaml, maxInputSize);
+        }
+        return this.createParser(new StreamReader(yaml));
+    }
+
+    private Parser createParser(StreamReader reader)
+    {
+        YamlLoadLimits loadLimits = this.loadLimits;
+        if (loadLimits.isUnlimited())
+        {
+            return new ParserImpl(reader);
+        }
+        return new YamlLimitedParser(new ParserImpl(reader), loadLimits);
+    }
+
     /**
      * Parse all YAML documents in a String and produce corresponding Java
      * objects. The documents are parsed only when the iterator is invoked.
@@ -779,7 +811,7 @@ public class Yaml
      */
     public Iterable<Object> fromAllYaml(Reader yaml)
     {
-        Composer composer = new Composer(new ParserImpl(new StreamReader(yaml)), this.resolver);
+        Composer composer = new Composer(this.createParser(yaml), this.resolver);
         this.constructor.setComposer(composer);
         Iterator<Object> result = new YamlLoaderIterator(this);
         return new YamlIterable(result);
@@ -827,7 +859,25 @@ public class Yaml
      */
     public Node compose(Reader yaml)
     {
-        Composer composer = new Composer(new ParserImpl(new StreamReader(yaml)), this.resolver);
+        Composer composer = new Composer(this.createParser(yaml), this.resolver);
+        this.constructor.setComposer(composer);
+        return composer.getSingleNode();
+    }
+
+    /**
+     * Parse the first YAML document in a stream as configuration and produce the corresponding representation tree, scalar values of top-level
+     * properties are resolved using types known by given template.
+     *
+     * @param template
+     *         template of config.
+     * @param yaml
+     *         YAML document
+     *
+     * @return parsed root Node for the specified YAML document
+     */
+    public Node compose(ConfigTemplate<?> template, Reader yaml)
+    {
+        Composer composer = new ConfigTemplateComposer(this.createParser(yaml), new ConfigTemplateResolver(template, this.resolver));
         this.constructor.setComposer(composer);
         return composer.getSingleNode();
     }
@@ -845,12 +895,73 @@ public class Yaml
      */
     public Iterable<Node> composeAll(Reader yaml)
     {
-        Composer composer = new Composer(new ParserImpl(new StreamReader(yaml)), this.resolver);
+        Composer composer = new Composer(this.createParser(yaml), this.resolver);
         this.constructor.setComposer(composer);
         Iterator<Node> result = new YamlComposerNodeIterator(composer);
         return new YamlNodeIterable(result);
     }
 
+    /**
+     * Parse root mapping of the only YAML document in a stream entry by entry, without composing representation tree of whole document. <br>
+     * Each top-level key and value node is passed to consumer as soon as it is composed, so it can be processed and released before next entry
+     * is read. <br>
+     * Objects constructed from nodes of entry are forgotten by constructor after consumer returns, unless they are anchored, so aliases in next
+     * entries still resolve to the same objects.
+     *
+     * @param yaml
+     *         YAML document, root of document must be a mapping.
+     * @param consumer
+     *         consumer of top-level key and value nodes.
+     */
+    public void composeEntries(Reader yaml, BiConsumer<Node, Node> consumer)
+    {
+        this.composeEntries(yaml, this.resolver, consumer);
+    }
+
+    /**
+     * Parse root mapping of the only YAML document in a stream as configuration entry by entry, like {@link #composeEntries(Reader, BiConsumer)},
+     * but scalar values of top-level properties are resolved using types known by given template, like on
+     * {@link #fromYaml(ConfigTemplate, Reader)}.
+     *
+     * @param template
+     *         template of config.
+     * @param yaml
+     *         YAML document, root of document must be a mapping.
+     * @param consumer
+     *         consumer of top-level key and value nodes.
+     */
+    public void composeEntries(ConfigTemplate<?> template, Reader yaml, BiConsumer<Node, Node> consumer)
+    {
+        this.composeEntries(yaml, new ConfigTemplateResolver(template, this.resolver), consumer);
+    }
+
+    private void composeEntries(Reader yaml, Resolver resolver, BiConsumer<Node, Node> consumer)
+    {
+        YamlEntryComposer composer = new YamlEntryComposer(this.createParser(yaml), resolver);
+        composer.composeEntries((keyNode, valueNode) ->
+        {
+            consumer.accept(keyNode, valueNode);
+            this.constructor.retainConstructed(composer.getAnchoredNodes());
+        });
+    }
+
+    /**
+     * Parse items of sequence stored under given top-level key of the only YAML document in a stream. <br>
+     * Items are composed one by one when returned iterator is advanced, other top-level entries are skipped without composing them. <br>
+     * If value of given key is a mapping, its values are returned instead, if there is no such key or its value is null, iterator is empty.
+     *
+     * @param yaml
+     *         YAML document, root of document must be a mapping.
+     * @param key
+     *         top-level key of sequence.
+     *
+     * @return iterator over nodes of sequence items.
+     */
+    public Iterator<Node> composeSequence(Reader yaml, String key)
+    {
+        return new YamlSequenceComposer(this.createParser(yaml), this.resolver, key);
+    }
+
     /**
      * Add an implicit scalar detector. If an implicit scalar value matches the
      * given regexp, the corresponding tag is assigned to the scalar.
@@ -908,11 +1019,53 @@ public class Yaml
      */
     public Iterable<Event> parse(Reader yaml)
     {
-        Parser parser = new ParserImpl(new StreamReader(yaml));
+        Parser parser = this.createParser(yaml);
         Iterator<Event> result = new YamlParserEventIterator(parser);
         return new YamlEventIterable(result);
     }
 
+    /**
+     * Returns limits enforced while loading documents by this yaml instance.
+     *
+     * @return limits enforced while loading documents.
+     */
+    public YamlLoadLimits getLoadLimits()
+    {
+        return this.loadLimits;
+    }
+
+    /**
+     * Set limits enforced while loading documents by this yaml instance, {@link YamlLoadLimits#UNLIMITED} disables all checks.
+     *
+     * @param loadLimits
+     *         limits to enforce.
+     */
+    public void setLoadLimits(YamlLoadLimits loadLimits)
+    {
+        this.loadLimits = loadLimits;
+        this.constructor.setLoadLimits(loadLimits);
+    }
+
+    /**
+     * Returns constructor used by this yaml instance.
+     *
+     * @return constructor used by this yaml instance.
+     */
+    public YamlConstructor getConstructor()
+    {
+        return this.constructor;
+    }
+
+    /**
+     * Returns representer used by this yaml instance.
+     *
+     * @return representer used by this yaml instance.
+     */
+    public Representer getRepresenter()
+    {
+        return this.representer;
+    }
+
     public void setBeanAccess(BeanAccess beanAccess)
     {
         this.constructor.getPropertyUtils().setBeanAccess(beanAccess);
@@ -67,6 +67,7 @@ import org.yaml.snakeyaml.error.YAMLException;
 import org.diorite.commons.arrays.DioriteArrayUtils;
 import org.diorite.commons.reflections.ConstructorInvoker;
 import org.diorite.commons.reflections.DioriteReflectionUtils;
+import org.diorite.config.serialization.CollectionCapacity;
 
 import it.unimi.dsi.fastutil.booleans.BooleanArrayList;
 import it.unimi.dsi.fastutil.booleans.BooleanBigArrayBigList;
@@ -633,10 +634,23 @@ public final class YamlCollectionCreator
         return (T) function.apply(collection);
     }
 
+    /**
+     * Create new collection or map of given type, with enough space for given amount of elements. <br>
+     * Negative size can be used when amount of elements is unknown, and default size will be used.
+     *
+     * @param clazz
+     *         type of collection.
+     * @param size
+     *         expected amount of elements.
+     * @param <T>
+     *         type of collection.
+     *
+     * @return created collection.
+     */
     @SuppressWarnings("unchecked")
     public static <T> T createCollection(Class<?> clazz, int size)
     {
-        return create(collectionCreators, (Class<T>) clazz, size);
+        return create(collectionCreators, (Class<T>) clazz, (size < 0) ? CollectionCapacity.DEFAULT_SIZE : size);
     }
 
     public static <T> void addCollection(Class<T> type, IntFunction<T> func)
@@ -663,12 +677,12 @@ public final class YamlCollectionCreator
         static void putAllCollections(Map<Class<?>, IntFunction<?>> map, Map<Class<?>, Function<?, ?>> unmodMap)
         {
             safePut(map, ArrayList.class, ArrayList::new);
-            safePut(map, HashSet.class, LinkedHashSet::new);
+            safePut(map, HashSet.class, x -> new LinkedHashSet<>(CollectionCapacity.hashCapacity(x)));
             safePut(map, Properties.class, x -> new Properties());
-            safePut(map, Hashtable.class, Hashtable::new);
+            safePut(map, Hashtable.class, x -> new Hashtable<>(CollectionCapacity.hashCapacity(x)));
 
             safePut(map, Collection.class, ArrayList::new);
-            safePut(map, Set.class, LinkedHashSet::new);
+            safePut(map, Set.class, x -> new LinkedHashSet<>(CollectionCapacity.hashCapacity(x)));
             safePut(map, List.class, ArrayList::new);
             safePut(map, SortedSet.class, x -> new TreeSet<>());
             safePut(map, Queue.class, x -> new ConcurrentLinkedQueue<>());
@@ -677,11 +691,11 @@ public final class YamlCollectionCreator
             safePut(map, BlockingDeque.class, x -> new LinkedBlockingDeque<>());
 
 
-            safePut(map, HashMap.class, LinkedHashMap::new);
-            safePut(map, LinkedHashMap.class, LinkedHashMap::new);
+            safePut(map, HashMap.class, x -> new LinkedHashMap<>(CollectionCapacity.hashCapacity(x)));
+            safePut(map, LinkedHashMap.class, x -> new LinkedHashMap<>(CollectionCapacity.hashCapacity(x)));
             safePut(map, ConcurrentHashMap.class, ConcurrentHashMap::new);
 
-            safePut(map, Map.class, LinkedHashMap::new);
+            safePut(map, Map.class, x -> new LinkedHashMap<>(CollectionCapacity.hashCapacity(x)));
             safePut(map, ConcurrentMap.class, x -> new ConcurrentSkipListMap<>());
             safePut(map, ConcurrentNavigableMap.class, x -> new ConcurrentSkipListMap<>());
             safePut(map, SortedMap.class, i -> new TreeMap<>());
@@ -759,8 +773,8 @@ public final class YamlCollectionCreator
             }
 
 
-            safePut(map, HashMap.class, LinkedHashMap::new);
-            safePut(map, LinkedHashMap.class, LinkedHashMap::new);
+            safePut(map, HashMap.class, x -> new LinkedHashMap<>(CollectionCapacity.hashCapacity(x)));
+            safePut(map, LinkedHashMap.class, x -> new LinkedHashMap<>(CollectionCapacity.hashCapacity(x)));
             safePut(map, ConcurrentHashMap.class, ConcurrentHashMap::new);
 
             safePut(map, Map.class, Object2ObjectLinkedOpenHashMap::new);
@@ -0,0 +1,128 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017. Diorite (by Bartłomiej Mazur (aka GotoFinal))
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.diorite.config.serialization.snakeyaml;
+
+import javax.annotation.Nullable;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.yaml.snakeyaml.nodes.Tag;
+
+/**
+ * Cache of constructs resolved for tags that don't have directly registered construct, shared by all {@link YamlConstructor} instances created
+ * with the same set of registered serializers. <br>
+ * Results are stored as tag or prefix of registered construct instead of construct itself, so they are valid for every constructor instance.
+ * New cache must be used after new serializers are registered. <br>
+ * As tags are taken from loaded documents, only tags resolved to registered construct are cached, misses that fall back to default construct are
+ * resolved again each time, and number of cached tags is limited, so documents with many unknown tags can't grow cache without limits.
+ */
+public final class YamlConstructResolutionCache
+{
+    /**
+     * Max number of cached tags, resolutions of other tags are not cached after this limit is reached.
+     */
+    public static final int MAX_TAGS = 1024;
+
+    private final Map<Tag, Map<Class<?>, Resolution>> resolutions = new ConcurrentHashMap<>(32);
+
+    @Nullable
+    Resolution get(Tag tag, Class<?> nodeType)
+    {
+        Map<Class<?>, Resolution> byType = this.resolutions.get(tag);
+        if (byType == null)
+        {
+            return null;
+        }
+        return byType.get(nodeType);
+    }
+
+    void put(Tag tag, Class<?> nodeType, Resolution resolution)
+    {
+        if (resolution == Resolution.DEFAULT)
+        {
+            return;
+        }
+        Map<Class<?>, Resolution> byType = this.resolutions.get(tag);
+        if (byType == null)
+        {
+            if (this.resolutions.size() >= MAX_TAGS)
+            {
+                return;
+            }
+            byType = this.resolutions.computeIfAbsent(tag, k -> new ConcurrentHashMap<>(4));
+        }
+        byType.put(nodeType, resolution);
+    }
+
+    /**
+     * Returns number of cached tags.
+     *
+     * @return number of cached tags.
+     */
+    public int size()
+    {
+        return this.resolutions.size();
+    }
+
+    /**
+     * Remove all cached resolutions.
+     */
+    public void clear()
+    {
+        this.resolutions.clear();
+    }
+
+    @Override
+    public String toString()
+    {
+        return new ToStringBuilder(this).appendSuper(super.toString()).append("size", this.resolutions.size()).toString();
+    }
+
+    static final class Resolution
+    {
+        static final Resolution DEFAULT = new Resolution(null, null);
+
+        @Nullable final Tag    tag;
+        @Nullable final String multiPrefix;
+
+        private Resolution(@Nullable Tag tag, @Nullable String multiPrefix)
+        {
+            this.tag = tag;
+            this.multiPrefix = multiPrefix;
+        }
+
+        static Resolution ofTag(Tag tag)
+        {
+            return new Resolution(tag, null);
+        }
+
+        static Resolution ofMultiPrefix(String multiPrefix)
+        {
+            return new Resolution(null, multiPrefix);
+        }
+    }
+}
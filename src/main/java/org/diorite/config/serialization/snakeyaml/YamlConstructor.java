@@ -33,11 +33,13 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 
+import org.apache.commons.lang3.ClassUtils;
 import org.yaml.snakeyaml.TypeDescription;
 import org.yaml.snakeyaml.constructor.Construct;
 import org.yaml.snakeyaml.constructor.Constructor;
 import org.yaml.snakeyaml.error.Mark;
 import org.yaml.snakeyaml.error.YAMLException;
+import org.yaml.snakeyaml.nodes.CollectionNode;
 import org.yaml.snakeyaml.nodes.MappingNode;
 import org.yaml.snakeyaml.nodes.Node;
 import org.yaml.snakeyaml.nodes.NodeId;
@@ -47,11 +49,15 @@ import org.yaml.snakeyaml.nodes.Tag;
 
 import org.diorite.commons.arrays.DioriteArrayUtils;
 import org.diorite.commons.reflections.DioriteReflectionUtils;
-import org.diorite.commons.reflections.MethodInvoker;
+import org.diorite.config.serialization.StringDeduplicator;
+import org.diorite.config.serialization.snakeyaml.YamlConstructResolutionCache.Resolution;
 
 public class YamlConstructor extends Constructor
 {
-    private static final MethodInvoker constructDocument = DioriteReflectionUtils.getMethod(YamlConstructor.class, "constructFromNode", Node.class);
+    @Nullable private StringDeduplicator           stringDeduplicator;
+    private           YamlConstructResolutionCache resolutionCache = new YamlConstructResolutionCache();
+    private           YamlLoadLimits               loadLimits      = YamlLoadLimits.UNLIMITED;
+    private           int                          depth;
 
     public YamlConstructor()
     {
@@ -65,6 +71,51 @@ public class YamlConstructor extends Constructor
         this.yamlConstructors.put(new Tag(type), construct);
     }
 
+    /**
+     * Set string pool used to deduplicate string scalars constructed by this constructor.
+     *
+     * @param stringDeduplicator
+     *         string pool to use, or null to disable deduplication.
+     */
+    public void setStringDeduplicator(@Nullable StringDeduplicator stringDeduplicator)
+    {
+        this.stringDeduplicator = stringDeduplicator;
+    }
+
+    /**
+     * Set cache of resolved constructs, cache can be shared by constructors with the same registered constructs.
+     *
+     * @param resolutionCache
+     *         cache to use.
+     */
+    public void setResolutionCache(YamlConstructResolutionCache resolutionCache)
+    {
+        this.resolutionCache = resolutionCache;
+    }
+
+    /**
+     * Set limits enforced while constructing objects, only nesting depth is checked by constructor, other limits are checked by parser.
+     *
+     * @param loadLimits
+     *         limits to enforce.
+     */
+    public void setLoadLimits(YamlLoadLimits loadLimits)
+    {
+        this.loadLimits = loadLimits;
+    }
+
+    @Override
+    protected Object constructScalar(ScalarNode node)
+    {
+        Object value = super.constructScalar(node);
+        StringDeduplicator stringDeduplicator = this.stringDeduplicator;
+        if ((stringDeduplicator != null) && (value instanceof String) && (Tag.STR.equals(node.getTag()) || (String.class == node.getType())))
+        {
+            return stringDeduplicator.deduplicate((String) value);
+        }
+        return value;
+    }
+
     public Map<Class<?>, TypeDescription> getTypeDefinitions()
     {
         return this.typeDefinitions;
@@ -73,7 +124,7 @@ public class YamlConstructor extends Constructor
     @Nullable
     public Object constructFromNode(Node node)
     {
-        return constructDocument.invoke(this, node);
+        return this.constructDocument(node);
     }
 
     @Override
@@ -88,6 +139,12 @@ public class YamlConstructor extends Constructor
         super.constructSet2ndStep(node, set);
     }
 
+    @Override
+    public void flattenMapping(MappingNode node)
+    {
+        super.flattenMapping(node);
+    }
+
     /**
      * Construct object from the specified Node. Return existing instance if the
      * node is already constructed.
@@ -100,7 +157,92 @@ public class YamlConstructor extends Constructor
     @Override
     public Object constructObject(Node node)
     {
-        return super.constructObject(node);
+        // only collections are counted, like open collections in YamlLimitedParser, so both limits allow the same documents.
+        boolean collection = node instanceof CollectionNode;
+        if (collection && (++ this.depth > this.loadLimits.getMaxDepth()))
+        {
+            this.depth -= 1;
+            throw new YamlLoadLimitException("Constructed object is nested deeper than " + this.loadLimits.getMaxDepth() + " levels" +
+                                             ((node.getStartMark() == null) ? "" : node.getStartMark()));
+        }
+        try
+        {
+            // aliases share node instance with their anchor, so they resolve to object already constructed for that node, unless it was
+            // constructed as other type than requested now.
+            Object constructed = this.constructedObjects.get(node);
+            if ((constructed != null) && (node.getType() != null) && ! ClassUtils.primitiveToWrapper(node.getType()).isInstance(constructed))
+            {
+                this.constructedObjects.remove(node);
+            }
+            return super.constructObject(node);
+        }
+        finally
+        {
+            if (collection)
+            {
+                this.depth -= 1;
+            }
+        }
+    }
+
+    /**
+     * Returns object already constructed from given node in current document, or null if node wasn't constructed yet.
+     *
+     * @param node
+     *         node to check.
+     *
+     * @return object constructed from given node.
+     */
+    @Nullable
+    public Object getConstructed(Node node)
+    {
+        return this.constructedObjects.get(node);
+    }
+
+    /**
+     * Remember object constructed from given node outside of this constructor, so aliases of that node resolve to the same object.
+     *
+     * @param node
+     *         constructed node.
+     * @param object
+     *         object constructed from node.
+     */
+    public void putConstructed(Node node, Object object)
+    {
+        this.constructedObjects.put(node, object);
+    }
+
+    /**
+     * Forget object constructed from given node, so it will be constructed again on next use.
+     *
+     * @param node
+     *         node to forget.
+     */
+    public void forgetConstructed(Node node)
+    {
+        this.constructedObjects.remove(node);
+    }
+
+    /**
+     * Forget objects constructed from all nodes other than given ones, used to release objects of already processed parts of document.
+     *
+     * @param nodes
+     *         nodes to keep, set should compare nodes by identity.
+     */
+    public void retainConstructed(Set<Node> nodes)
+    {
+        this.constructedObjects.keySet().retainAll(nodes);
+    }
+
+    /**
+     * Ends current document, forgetting all objects constructed in it. <br>
+     * Documents constructed using {@link #constructFromNode(Node)} end automatically, this method must be called after constructing nodes of
+     * document one by one, like when deserialization data is used.
+     */
+    public void endDocument()
+    {
+        this.constructedObjects.clear();
+        this.recursiveObjects.clear();
     }
 
     @Override
@@ -118,13 +260,13 @@ public class YamlConstructor extends Constructor
     @Override
     public List<Object> createDefaultList(int initSize)
     {
-        return YamlCollectionCreator.createCollection(List.class, 10);
+        return YamlCollectionCreator.createCollection(List.class, initSize);
     }
 
     @Override
     public Set<Object> createDefaultSet(int initSize)
     {
-        return YamlCollectionCreator.createCollection(Set.class, 10);
+        return YamlCollectionCreator.createCollection(Set.class, initSize);
     }
 
     @Override
@@ -171,69 +313,93 @@ public class YamlConstructor extends Constructor
             Construct constructor = this.yamlConstructors.get(node.getTag());
             if (constructor == null)
             {
-                Class<?> nodeType;
-                if ((node.getType() == null) || Object.class.equals(node.getType()))
+                Class<?> cacheType = (node.getType() == null) ? Object.class : node.getType();
+                YamlConstructResolutionCache resolutionCache = this.resolutionCache;
+                Resolution resolution = resolutionCache.get(node.getTag(), cacheType);
+                if (resolution == null)
                 {
-                    try
-                    {
-                        nodeType = DioriteReflectionUtils.tryGetCanonicalClass(node.getTag().getClassName(), this.getClass().getClassLoader());
-                    }
-                    catch (YAMLException e)
-                    {
-                        nodeType = null;
-                    }
+                    resolution = this.resolveConstructor(node);
+                    resolutionCache.put(node.getTag(), cacheType, resolution);
                 }
-                else
+                if (resolution.multiPrefix != null)
                 {
-                    nodeType = node.getType();
+                    return this.yamlMultiConstructors.get(resolution.multiPrefix);
                 }
-                for (Entry<String, Construct> stringConstructEntry : this.yamlMultiConstructors.entrySet())
+                if (resolution.tag != null)
                 {
-                    if (node.getTag().startsWith(stringConstructEntry.getKey()))
+                    constructor = this.yamlConstructors.get(resolution.tag);
+                    if (constructor != null)
                     {
-                        return this.yamlMultiConstructors.get(stringConstructEntry.getKey());
+                        return constructor;
                     }
                 }
-                if (nodeType != null)
+                return this.yamlConstructors.get(null);
+            }
+            return constructor;
+        }
+    }
+
+    private Resolution resolveConstructor(Node node)
+    {
+        Class<?> nodeType;
+        if ((node.getType() == null) || Object.class.equals(node.getType()))
+        {
+            try
+            {
+                nodeType = DioriteReflectionUtils.tryGetCanonicalClass(node.getTag().getClassName(), this.getClass().getClassLoader());
+            }
+            catch (YAMLException e)
+            {
+                nodeType = null;
+            }
+        }
+        else
+        {
+            nodeType = node.getType();
+        }
+        for (Entry<String, Construct> stringConstructEntry : this.yamlMultiConstructors.entrySet())
+        {
+            if (node.getTag().startsWith(stringConstructEntry.getKey()))
+            {
+                return Resolution.ofMultiPrefix(stringConstructEntry.getKey());
+            }
+        }
+        if (nodeType != null)
+        {
+            Tag bestMatching = null;
+            int score = - 1;
+            for (Entry<Tag, Construct> entry : this.yamlConstructors.entrySet())
+            {
+                try
                 {
-                    Construct bestMatching = null;
-                    int score = - 1;
-                    for (Entry<Tag, Construct> entry : this.yamlConstructors.entrySet())
+                    Tag key = entry.getKey();
+                    Construct value = entry.getValue();
+                    if ((key == null) || (value == null))
                     {
-                        try
-                        {
-                            Tag key = entry.getKey();
-                            Construct value = entry.getValue();
-                            if ((key == null) || (value == null))
-                            {
-                                continue;
-                            }
-                            Class<?> type = Class.forName(key.getClassName());
-                            if (type.isAssignableFrom(nodeType))
-                            {
-                                int classScore = this.getClassScore(type, new HashSet<>(5));
-                                if (classScore > score)
-                                {
-                                    score = classScore;
-                                    bestMatching = value;
-                                }
-                            }
-                        }
-                        catch (ClassNotFoundException | YAMLException e)
-                        {
-                            // skip
-                        }
+                        continue;
                     }
-                    if (bestMatching != null)
+                    Class<?> type = Class.forName(key.getClassName());
+                    if (type.isAssignableFrom(nodeType))
                     {
-                        this.yamlConstructors.putIfAbsent(new Tag(nodeType), bestMatching);
-                        return bestMatching;
+                        int classScore = this.getClassScore(type, new HashSet<>(5));
+                        if (classScore > score)
+                        {
+                            score = classScore;
+                            bestMatching = key;
+                        }
                     }
                 }
-                return this.yamlConstructors.get(null);
+                catch (ClassNotFoundException | YAMLException e)
+                {
+                    // skip
+                }
+            }
+            if (bestMatching != null)
+            {
+                return Resolution.ofTag(bestMatching);
             }
-            return constructor;
         }
+        return Resolution.DEFAULT;
     }
 
     private int getClassScore(Class<?> type, Set<Class<?>> dup)
@@ -342,7 +508,7 @@ public class YamlConstructor extends Constructor
             collection = YamlCollectionCreator.createCollection(Map.class, node.getValue().size());
         }
         this.constructMapping2ndStep(node, (Map<Object, Object>) collection);
-        return super.constructMapping(node);
+        return (Map<Object, Object>) collection;
     }
 
     @Override
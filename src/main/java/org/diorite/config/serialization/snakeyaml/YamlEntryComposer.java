@@ -0,0 +1,183 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017. Diorite (by Bartłomiej Mazur (aka GotoFinal))
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package org.diorite.config.serialization.snakeyaml;
+
+import javax.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+import org.yaml.snakeyaml.error.YAMLException;
+import org.yaml.snakeyaml.events.AliasEvent;
+import org.yaml.snakeyaml.events.Event;
+import org.yaml.snakeyaml.events.Event.ID;
+import org.yaml.snakeyaml.events.MappingStartEvent;
+import org.yaml.snakeyaml.events.NodeEvent;
+import org.yaml.snakeyaml.nodes.MappingNode;
+import org.yaml.snakeyaml.nodes.Node;
+import org.yaml.snakeyaml.nodes.NodeTuple;
+import org.yaml.snakeyaml.nodes.ScalarNode;
+import org.yaml.snakeyaml.nodes.SequenceNode;
+import org.yaml.snakeyaml.nodes.Tag;
+import org.yaml.snakeyaml.parser.Parser;
+import org.yaml.snakeyaml.resolver.Resolver;
+
+import org.diorite.config.impl.ConfigTemplateComposer;
+
+/**
+ * Composer that reads root mapping of single document directly from parser events and composes only one top-level entry at a time, so node tree of
+ * whole document never exists in memory. <br>
+ * With {@link org.diorite.config.impl.ConfigTemplateResolver} values of top-level entries are resolved like by {@link ConfigTemplateComposer}.
+ */
+class YamlEntryComposer extends ConfigTemplateComposer
+{
+    private final Parser    parser;
+    private final Set<Node> anchoredNodes = Collections.newSetFromMap(new IdentityHashMap<>(16));
+
+    YamlEntryComposer(Parser parser, Resolver resolver)
+    {
+        super(parser, resolver);
+        this.parser = parser;
+    }
+
+    /**
+     * Returns nodes composed so far that have an anchor, they can be referenced by aliases of next entries.
+     *
+     * @return anchored nodes of document.
+     */
+    Set<Node> getAnchoredNodes()
+    {
+        return this.anchoredNodes;
+    }
+
+    @Override
+    protected Node composeNode(@Nullable Node parent)
+    {
+        Event event = this.parser.peekEvent();
+        Node node = super.composeNode(parent);
+        if ((event instanceof NodeEvent) && ! (event instanceof AliasEvent) && (((NodeEvent) event).getAnchor() != null))
+        {
+            this.anchoredNodes.add(node);
+        }
+        return node;
+    }
+
+    /**
+     * Compose each top-level entry of root mapping and pass it to given consumer, key and value nodes are not referenced by composer after consumer
+     * returns, unless they are anchored.
+     *
+     * @param consumer
+     *         consumer of composed key and value nodes.
+     */
+    void composeEntries(BiConsumer<Node, Node> consumer)
+    {
+        this.parser.getEvent(); // stream start
+        if (this.parser.checkEvent(ID.StreamEnd))
+        {
+            this.parser.getEvent();
+            return;
+        }
+        this.parser.getEvent(); // document start
+        if (this.parser.checkEvent(ID.MappingStart))
+        {
+            MappingStartEvent startEvent = (MappingStartEvent) this.parser.getEvent();
+            // placeholder parent used only for recursion detection, children are never stored in it.
+            MappingNode root = new MappingNode(Tag.MAP, true, new ArrayList<>(0), startEvent.getStartMark(), null, startEvent.getFlowStyle());
+            Set<String> explicitKeys = new HashSet<>(16);
+            while (! this.parser.checkEvent(ID.MappingEnd))
+            {
+                Node keyNode = this.composeKeyNode(root);
+                Node valueNode = this.composeValueNode(root);
+                if (keyNode.getTag().equals(Tag.MERGE))
+                {
+                    this.composeMerged(valueNode, explicitKeys, consumer);
+                    continue;
+                }
+                if (keyNode instanceof ScalarNode)
+                {
+                    explicitKeys.add(((ScalarNode) keyNode).getValue());
+                }
+                consumer.accept(keyNode, valueNode);
+            }
+            this.parser.getEvent(); // mapping end
+        }
+        else if (this.parser.checkEvent(ID.Scalar))
+        {
+            // empty document
+            this.parser.getEvent();
+        }
+        else
+        {
+            Event event = this.parser.getEvent();
+            throw new YAMLException("expected a mapping as document root, but found " + event);
+        }
+        this.parser.getEvent(); // document end
+        if (! this.parser.checkEvent(ID.StreamEnd))
+        {
+            Event event = this.parser.getEvent();
+            throw new YAMLException("expected a single document in the stream, but found another document " + event.getStartMark());
+        }
+        this.parser.getEvent();
+    }
+
+    private void composeMerged(Node valueNode, Set<String> explicitKeys, BiConsumer<Node, Node> consumer)
+    {
+        if (valueNode instanceof SequenceNode)
+        {
+            for (Node node : ((SequenceNode) valueNode).getValue())
+            {
+                this.composeMerged(node, explicitKeys, consumer);
+            }
+            return;
+        }
+        if (! (valueNode instanceof MappingNode))
+        {
+            throw new YAMLException("expected a mapping or list of mappings for merging, but found " + valueNode.getNodeId() + " " +
+                                    valueNode.getStartMark());
+        }
+        List<NodeTuple> tuples = ((MappingNode) valueNode).getValue();
+        for (NodeTuple tuple : tuples)
+        {
+            Node keyNode = tuple.getKeyNode();
+            if (keyNode.getTag().equals(Tag.MERGE))
+            {
+                this.composeMerged(tuple.getValueNode(), explicitKeys, consumer);
+                continue;
+            }
+            // explicit keys of root mapping always override merged ones.
+            if ((keyNode instanceof ScalarNode) && ! explicitKeys.add(((ScalarNode) keyNode).getValue()))
+            {
+                continue;
+            }
+            consumer.accept(keyNode, tuple.getValueNode());
+        }
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017. Diorite (by Bartłomiej Mazur (aka GotoFinal))
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package org.diorite.config.serialization.snakeyaml;
+
+import javax.annotation.Nullable;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.yaml.snakeyaml.events.AliasEvent;
+import org.yaml.snakeyaml.events.CollectionStartEvent;
+import org.yaml.snakeyaml.events.Event;
+import org.yaml.snakeyaml.events.Event.ID;
+import org.yaml.snakeyaml.events.ScalarEvent;
+import org.yaml.snakeyaml.parser.Parser;
+
+/**
+ * Parser wrapper that enforces {@link YamlLoadLimits} on each consumed event, so limits are checked before composer builds nodes. <br>
+ * Each alias counts all nodes of its anchor again, so documents with exploding aliases fail as soon as expanded size is too big.
+ */
+class YamlLimitedParser implements Parser
+{
+    private final Parser         parser;
+    private final YamlLoadLimits limits;
+
+    private final Deque<OpenCollection> open          = new ArrayDeque<>(16);
+    private final Map<String, Long>     anchorWeights = new HashMap<>(16);
+    private       long                  nodes;
+    private       int                   aliases;
+
+    YamlLimitedParser(Parser parser, YamlLoadLimits limits)
+    {
+        this.parser = parser;
+        this.limits = limits;
+    }
+
+    @Override
+    public boolean checkEvent(ID choice)
+    {
+        return this.parser.checkEvent(choice);
+    }
+
+    @Override
+    public Event peekEvent()
+    {
+        return this.parser.peekEvent();
+    }
+
+    @Override
+    public Event getEvent()
+    {
+        Event event = this.parser.getEvent();
+        if (event instanceof ScalarEvent)
+        {
+            this.addNodes(1, event);
+            this.anchor(((ScalarEvent) event).getAnchor(), 1);
+        }
+        else if (event instanceof CollectionStartEvent)
+        {
+            if (this.open.size() >= this.limits.getMaxDepth())
+            {
+                throw new YamlLoadLimitException("Document is nested deeper than " + this.limits.getMaxDepth() + " levels" + event.getStartMark());
+            }
+            this.open.push(new OpenCollection(((CollectionStartEvent) event).getAnchor(), this.nodes));
+            this.addNodes(1, event);
+        }
+        else if (event.is(ID.MappingEnd) || event.is(ID.SequenceEnd))
+        {
+            OpenCollection collection = this.open.poll();
+            if (collection != null)
+            {
+                this.anchor(collection.anchor, this.nodes - collection.startNodes);
+            }
+        }
+        else if (event instanceof AliasEvent)
+        {
+            if (++ this.aliases > this.limits.getMaxAliases())
+            {
+                throw new YamlLoadLimitException("Document contains more than " + this.limits.getMaxAliases() + " aliases" + event.getStartMark());
+            }
+            Long weight = this.anchorWeights.get(((AliasEvent) event).getAnchor());
+            this.addNodes((weight == null) ? 1 : weight, event);
+        }
+        else if (event.is(ID.DocumentEnd))
+        {
+            this.open.clear();
+            this.anchorWeights.clear();
+            this.nodes = 0;
+            this.aliases = 0;
+        }
+        return event;
+    }
+
+    private void addNodes(long amount, Event event)
+    {
+        this.nodes += amount;
+        if ((this.nodes < 0) || (this.nodes > this.limits.getMaxNodes()))
+        {
+            throw new YamlLoadLimitException("Document contains more than " + this.limits.getMaxNodes() + " nodes" + event.getStartMark());
+        }
+    }
+
+    private void anchor(@Nullable String anchor, long weight)
+    {
+        if (anchor != null)
+        {
+            this.anchorWeights.put(anchor, weight);
+        }
+    }
+
+    private static final class OpenCollection
+    {
+        @Nullable private final String anchor;
+        private final           long   startNodes;
+
+        private OpenCollection(@Nullable String anchor, long startNodes)
+        {
+            this.anchor = anchor;
+            this.startNodes = startNodes;
+        }
+    }
+}
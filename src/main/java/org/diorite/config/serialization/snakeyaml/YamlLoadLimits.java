@@ -0,0 +1,128 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017. Diorite (by Bartłomiej Mazur (aka GotoFinal))
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package org.diorite.config.serialization.snakeyaml;
+
+import org.apache.commons.lang3.builder.ToStringBuilder;
+
+/**
+ * Limits enforced while loading YAML documents, used to protect loader from oversized or malicious inputs like deeply nested documents or
+ * documents with exploding aliases. <br>
+ * Breaking any of limits fails loading with {@link YamlLoadLimitException}. Limits are immutable and can be shared between threads.
+ */
+public final class YamlLoadLimits
+{
+    /**
+     * Limits that allow any input, used by default.
+     */
+    public static final YamlLoadLimits UNLIMITED = new YamlLoadLimits(Long.MAX_VALUE, Integer.MAX_VALUE, Long.MAX_VALUE, Integer.MAX_VALUE);
+
+    private final long maxInputSize;
+    private final int  maxDepth;
+    private final long maxNodes;
+    private final int  maxAliases;
+
+    /**
+     * Create new load limits.
+     *
+     * @param maxInputSize
+     *         max amount of characters read from single input.
+     * @param maxDepth
+     *         max nesting depth of collections in single document.
+     * @param maxNodes
+     *         max amount of nodes in single document, nodes referenced by aliases are counted each time alias is used.
+     * @param maxAliases
+     *         max amount of aliases in single document.
+     */
+    public YamlLoadLimits(long maxInputSize, int maxDepth, long maxNodes, int maxAliases)
+    {
+        if ((maxInputSize <= 0) || (maxDepth <= 0) || (maxNodes <= 0) || (maxAliases < 0))
+        {
+            throw new IllegalArgumentException("Invalid load limits: " + maxInputSize + ", " + maxDepth + ", " + maxNodes + ", " + maxAliases);
+        }
+        this.maxInputSize = maxInputSize;
+        this.maxDepth = maxDepth;
+        this.maxNodes = maxNodes;
+        this.maxAliases = maxAliases;
+    }
+
+    /**
+     * Returns max amount of characters read from single input.
+     *
+     * @return max amount of characters read from single input.
+     */
+    public long getMaxInputSize()
+    {
+        return this.maxInputSize;
+    }
+
+    /**
+     * Returns max nesting depth of collections in single document.
+     *
+     * @return max nesting depth of collections in single document.
+     */
+    public int getMaxDepth()
+    {
+        return this.maxDepth;
+    }
+
+    /**
+     * Returns max amount of nodes in single document, nodes referenced by aliases are counted each time alias is used.
+     *
+     * @return max amount of nodes in single document.
+     */
+    public long getMaxNodes()
+    {
+        return this.maxNodes;
+    }
+
+    /**
+     * Returns max amount of aliases in single document.
+     *
+     * @return max amount of aliases in single document.
+     */
+    public int getMaxAliases()
+    {
+        return this.maxAliases;
+    }
+
+    /**
+     * Returns true if this limits allow any input.
+     *
+     * @return true if this limits allow any input.
+     */
+    public boolean isUnlimited()
+    {
+        return (this.maxInputSize == Long.MAX_VALUE) && (this.maxDepth == Integer.MAX_VALUE) && (this.maxNodes == Long.MAX_VALUE) &&
+               (this.maxAliases == Integer.MAX_VALUE);
+    }
+
+    @Override
+    public String toString()
+    {
+        return new ToStringBuilder(this).appendSuper(super.toString()).append("maxInputSize", this.maxInputSize).append("maxDepth", this.maxDepth)
+                                        .append("maxNodes", this.maxNodes).append("maxAliases", this.maxAliases).toString();
+    }
+}
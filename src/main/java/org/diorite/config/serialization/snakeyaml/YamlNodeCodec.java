@@ -0,0 +1,335 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017. Diorite (by Bartłomiej Mazur (aka GotoFinal))
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package org.diorite.config.serialization.snakeyaml;
+
+import javax.annotation.Nullable;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.yaml.snakeyaml.nodes.MappingNode;
+import org.yaml.snakeyaml.nodes.Node;
+import org.yaml.snakeyaml.nodes.NodeTuple;
+import org.yaml.snakeyaml.nodes.ScalarNode;
+import org.yaml.snakeyaml.nodes.SequenceNode;
+import org.yaml.snakeyaml.nodes.Tag;
+
+/**
+ * Compact binary encoding of composed yaml node trees, used to skip scanning and parsing of unchanged documents. <br>
+ * Tags are written once and then referenced by index, nodes referenced more than once (aliases, recursive structures) are written once
+ * and restored as the same node instance. Marks are not stored, so nodes read from binary form have no source positions.
+ */
+public final class YamlNodeCodec
+{
+    private static final int KIND_SCALAR    = 0;
+    private static final int KIND_SEQUENCE  = 1;
+    private static final int KIND_MAPPING   = 2;
+    private static final int KIND_REFERENCE = 3;
+
+    private static final int FLAG_RESOLVED   = 1;
+    private static final int FLAG_FLOW_STYLE = 1 << 1;
+    private static final int FLAG_FLOW       = 1 << 2;
+
+    // limits memory allocated up front for corrupted sizes, real collections grow as needed.
+    private static final int MAX_PRESIZE = 4096;
+
+    private YamlNodeCodec()
+    {
+    }
+
+    /**
+     * Write given node tree to output.
+     *
+     * @param node
+     *         root node to write.
+     * @param output
+     *         output to use.
+     *
+     * @throws IOException
+     *         if writing fails.
+     */
+    public static void write(Node node, DataOutput output) throws IOException
+    {
+        new NodeWriter(output).write(node);
+    }
+
+    /**
+     * Read node tree written by {@link #write(Node, DataOutput)}.
+     *
+     * @param input
+     *         input to use.
+     *
+     * @return read root node.
+     *
+     * @throws IOException
+     *         if reading fails or data is corrupted.
+     */
+    public static Node read(DataInput input) throws IOException
+    {
+        return new NodeReader(input).read();
+    }
+
+    static void writeVarInt(DataOutput output, int value) throws IOException
+    {
+        while ((value & ~ 0x7F) != 0)
+        {
+            output.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        output.writeByte(value);
+    }
+
+    static int readVarInt(DataInput input) throws IOException
+    {
+        int result = 0;
+        for (int shift = 0; shift < 32; shift += 7)
+        {
+            int b = input.readUnsignedByte();
+            result |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0)
+            {
+                return result;
+            }
+        }
+        throw new IOException("Malformed variable length int");
+    }
+
+    private static final class NodeWriter
+    {
+        private final DataOutput           output;
+        private final Map<String, Integer> tags  = new HashMap<>(32);
+        private final Map<Node, Integer>   nodes = new IdentityHashMap<>(64);
+
+        private NodeWriter(DataOutput output)
+        {
+            this.output = output;
+        }
+
+        private void write(Node node) throws IOException
+        {
+            Integer reference = this.nodes.get(node);
+            if (reference != null)
+            {
+                this.output.writeByte(KIND_REFERENCE);
+                writeVarInt(this.output, reference);
+                return;
+            }
+            this.nodes.put(node, this.nodes.size());
+            if (node instanceof ScalarNode)
+            {
+                ScalarNode scalarNode = (ScalarNode) node;
+                this.writeHeader(KIND_SCALAR, node, null);
+                Character style = scalarNode.getStyle();
+                this.output.writeChar((style == null) ? 0 : style);
+                this.writeString(scalarNode.getValue());
+            }
+            else if (node instanceof SequenceNode)
+            {
+                SequenceNode sequenceNode = (SequenceNode) node;
+                this.writeHeader(KIND_SEQUENCE, node, sequenceNode.getFlowStyle());
+                List<Node> values = sequenceNode.getValue();
+                writeVarInt(this.output, values.size());
+                for (Node value : values)
+                {
+                    this.write(value);
+                }
+            }
+            else if (node instanceof MappingNode)
+            {
+                MappingNode mappingNode = (MappingNode) node;
+                this.writeHeader(KIND_MAPPING, node, mappingNode.getFlowStyle());
+                List<NodeTuple> values = mappingNode.getValue();
+                writeVarInt(this.output, values.size());
+                for (NodeTuple tuple : values)
+                {
+                    this.write(tuple.getKeyNode());
+                    this.write(tuple.getValueNode());
+                }
+            }
+            else
+            {
+                throw new IOException("Unsupported node: " + node);
+            }
+        }
+
+        private void writeHeader(int kind, Node node, @Nullable Boolean flowStyle) throws IOException
+        {
+            int flags = node.isResolved() ? FLAG_RESOLVED : 0;
+            if (flowStyle != null)
+            {
+                flags |= FLAG_FLOW_STYLE;
+                if (flowStyle)
+                {
+                    flags |= FLAG_FLOW;
+                }
+            }
+            this.output.writeByte(kind);
+            this.output.writeByte(flags);
+            String tag = node.getTag().getValue();
+            Integer index = this.tags.get(tag);
+            if (index != null)
+            {
+                writeVarInt(this.output, index);
+                return;
+            }
+            index = this.tags.size();
+            this.tags.put(tag, index);
+            writeVarInt(this.output, index);
+            this.writeString(tag);
+        }
+
+        private void writeString(String string) throws IOException
+        {
+            byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+            writeVarInt(this.output, bytes.length);
+            this.output.write(bytes);
+        }
+    }
+
+    private static final class NodeReader
+    {
+        private final DataInput  input;
+        private final List<Tag>  tags  = new ArrayList<>(32);
+        private final List<Node> nodes = new ArrayList<>(64);
+
+        private NodeReader(DataInput input)
+        {
+            this.input = input;
+        }
+
+        private Node read() throws IOException
+        {
+            int kind = this.input.readUnsignedByte();
+            if (kind == KIND_REFERENCE)
+            {
+                int reference = readVarInt(this.input);
+                if ((reference < 0) || (reference >= this.nodes.size()))
+                {
+                    throw new IOException("Invalid node reference: " + reference);
+                }
+                return this.nodes.get(reference);
+            }
+            int flags = this.input.readUnsignedByte();
+            boolean resolved = (flags & FLAG_RESOLVED) != 0;
+            Boolean flowStyle = ((flags & FLAG_FLOW_STYLE) == 0) ? null : ((flags & FLAG_FLOW) != 0);
+            Tag tag = this.readTag();
+            switch (kind)
+            {
+                case KIND_SCALAR:
+                {
+                    char style = this.input.readChar();
+                    ScalarNode node = new ScalarNode(tag, resolved, this.readString(), null, null, (style == 0) ? null : style);
+                    this.nodes.add(node);
+                    return node;
+                }
+                case KIND_SEQUENCE:
+                {
+                    int size = this.readSize();
+                    List<Node> values = new ArrayList<>(Math.min(size, MAX_PRESIZE));
+                    SequenceNode node = new SequenceNode(tag, resolved, values, null, null, flowStyle);
+                    this.nodes.add(node);
+                    for (int i = 0; i < size; i++)
+                    {
+                        values.add(this.read());
+                    }
+                    return node;
+                }
+                case KIND_MAPPING:
+                {
+                    int size = this.readSize();
+                    List<NodeTuple> values = new ArrayList<>(Math.min(size, MAX_PRESIZE));
+                    MappingNode node = new MappingNode(tag, resolved, values, null, null, flowStyle);
+                    this.nodes.add(node);
+                    for (int i = 0; i < size; i++)
+                    {
+                        Node key = this.read();
+                        values.add(new NodeTuple(key, this.read()));
+                    }
+                    return node;
+                }
+                default:
+                    throw new IOException("Invalid node kind: " + kind);
+            }
+        }
+
+        private Tag readTag() throws IOException
+        {
+            int index = readVarInt(this.input);
+            if (index < this.tags.size())
+            {
+                return this.tags.get(index);
+            }
+            if (index != this.tags.size())
+            {
+                throw new IOException("Invalid tag index: " + index);
+            }
+            Tag tag = new Tag(this.readString());
+            this.tags.add(tag);
+            return tag;
+        }
+
+        private int readSize() throws IOException
+        {
+            int size = readVarInt(this.input);
+            if (size < 0)
+            {
+                throw new IOException("Invalid size: " + size);
+            }
+            return size;
+        }
+
+        private String readString() throws IOException
+        {
+            int length = this.readSize();
+            if (length <= MAX_PRESIZE)
+            {
+                byte[] bytes = new byte[length];
+                this.input.readFully(bytes);
+                return new String(bytes, StandardCharsets.UTF_8);
+            }
+            // longer strings are read in chunks, so corrupted length fails at end of input instead of allocating huge array up front.
+            ByteArrayOutputStream output = new ByteArrayOutputStream(MAX_PRESIZE * 2);
+            byte[] buffer = new byte[MAX_PRESIZE];
+            int remaining = length;
+            while (remaining > 0)
+            {
+                int chunk = Math.min(remaining, buffer.length);
+                this.input.readFully(buffer, 0, chunk);
+                output.write(buffer, 0, chunk);
+                remaining -= chunk;
+            }
+            return new String(output.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+}
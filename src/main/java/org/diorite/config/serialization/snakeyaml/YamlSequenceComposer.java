@@ -0,0 +1,190 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017. Diorite (by Bartłomiej Mazur (aka GotoFinal))
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package org.diorite.config.serialization.snakeyaml;
+
+import javax.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import org.yaml.snakeyaml.composer.Composer;
+import org.yaml.snakeyaml.error.YAMLException;
+import org.yaml.snakeyaml.events.Event;
+import org.yaml.snakeyaml.events.Event.ID;
+import org.yaml.snakeyaml.events.MappingStartEvent;
+import org.yaml.snakeyaml.nodes.MappingNode;
+import org.yaml.snakeyaml.nodes.Node;
+import org.yaml.snakeyaml.nodes.NodeTuple;
+import org.yaml.snakeyaml.nodes.ScalarNode;
+import org.yaml.snakeyaml.nodes.Tag;
+import org.yaml.snakeyaml.parser.Parser;
+import org.yaml.snakeyaml.resolver.Resolver;
+
+/**
+ * Composer that finds sequence under given top-level key of root mapping and composes its items one by one when requested. <br>
+ * Other top-level entries are skipped on event level without composing them, so items can't use aliases of anchors defined outside of that
+ * sequence.
+ */
+class YamlSequenceComposer extends Composer implements Iterator<Node>
+{
+    private final Parser parser;
+    private final String key;
+
+    // placeholder parent used only for recursion detection, children are never stored in it.
+    private MappingNode parent;
+    private boolean started;
+    private boolean finished;
+    @Nullable private Iterator<Node> mappingValues;
+
+    YamlSequenceComposer(Parser parser, Resolver resolver, String key)
+    {
+        super(parser, resolver);
+        this.parser = parser;
+        this.key = key;
+    }
+
+    @Override
+    public boolean hasNext()
+    {
+        if (! this.started)
+        {
+            this.started = true;
+            this.findSequence();
+        }
+        if (this.finished)
+        {
+            return false;
+        }
+        if (this.mappingValues != null)
+        {
+            return this.mappingValues.hasNext();
+        }
+        if (this.parser.checkEvent(ID.SequenceEnd))
+        {
+            this.finished = true;
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public Node next()
+    {
+        if (! this.hasNext())
+        {
+            throw new NoSuchElementException();
+        }
+        if (this.mappingValues != null)
+        {
+            return this.mappingValues.next();
+        }
+        return this.composeValueNode(this.parent);
+    }
+
+    private void findSequence()
+    {
+        this.parser.getEvent(); // stream start
+        if (this.parser.checkEvent(ID.StreamEnd))
+        {
+            this.finished = true;
+            return;
+        }
+        this.parser.getEvent(); // document start
+        if (! this.parser.checkEvent(ID.MappingStart))
+        {
+            if (this.parser.checkEvent(ID.Scalar))
+            {
+                // empty document
+                this.finished = true;
+                return;
+            }
+            Event event = this.parser.getEvent();
+            throw new YAMLException("expected a mapping as document root, but found " + event);
+        }
+        MappingStartEvent startEvent = (MappingStartEvent) this.parser.getEvent();
+        this.parent = new MappingNode(Tag.MAP, true, new ArrayList<>(0), startEvent.getStartMark(), null, startEvent.getFlowStyle());
+        while (! this.parser.checkEvent(ID.MappingEnd))
+        {
+            Node keyNode = this.composeKeyNode(this.parent);
+            if (! (keyNode instanceof ScalarNode) || ! this.key.equals(((ScalarNode) keyNode).getValue()))
+            {
+                this.skipNode();
+                continue;
+            }
+            if (this.parser.checkEvent(ID.SequenceStart))
+            {
+                this.parser.getEvent();
+                return;
+            }
+            Node valueNode = this.composeValueNode(this.parent);
+            if (valueNode instanceof MappingNode)
+            {
+                // like for normal collections, values of mapping are used as elements.
+                Iterator<NodeTuple> tuples = ((MappingNode) valueNode).getValue().iterator();
+                this.mappingValues = new Iterator<Node>()
+                {
+                    @Override
+                    public boolean hasNext()
+                    {
+                        return tuples.hasNext();
+                    }
+
+                    @Override
+                    public Node next()
+                    {
+                        return tuples.next().getValueNode();
+                    }
+                };
+                return;
+            }
+            if (valueNode.getTag().equals(Tag.NULL))
+            {
+                this.finished = true;
+                return;
+            }
+            throw new YAMLException("expected a sequence for key '" + this.key + "', but found " + valueNode.getNodeId() + " " + valueNode.getStartMark());
+        }
+        this.finished = true;
+    }
+
+    private void skipNode()
+    {
+        int depth = 0;
+        do
+        {
+            Event event = this.parser.getEvent();
+            if (event.is(ID.MappingStart) || event.is(ID.SequenceStart))
+            {
+                depth++;
+            }
+            else if (event.is(ID.MappingEnd) || event.is(ID.SequenceEnd))
+            {
+                depth--;
+            }
+        }
+        while (depth > 0);
+    }
+}
@@ -31,18 +31,24 @@ import org.apache.commons.lang3.builder.EqualsBuilder
 import org.apache.commons.lang3.builder.ToStringBuilder
 import org.diorite.commons.io.StringBuilderWriter
 import org.diorite.config.Config
+import org.diorite.config.ConfigChangeListener
 import org.diorite.config.ConfigPropertyValue
 import org.diorite.config.ConfigTemplate
 import org.diorite.config.SimpleConfig
 import org.diorite.config.exceptions.ConfigLoadException
 import org.diorite.config.exceptions.ConfigSaveException
+import org.diorite.config.impl.ConfigChangeDispatcher
 import org.diorite.config.impl.ConfigPropertyValueImpl
 import org.diorite.config.impl.NestedNodesHelper
 import org.diorite.config.serialization.Serialization
+import org.diorite.config.serialization.YamlDeserializationData.DetachedValue
+import org.diorite.config.serialization.snakeyaml.YamlCollectionCreator
+import org.yaml.snakeyaml.nodes.Node
 
 import java.nio.charset.CharsetDecoder
 import java.nio.charset.CharsetEncoder
 import java.nio.charset.StandardCharsets
+import java.util.concurrent.Executor
 import java.util.function.Supplier
 
 class GroovyConfigInit
@@ -62,6 +68,9 @@ abstract class AbstractConfigGroovyImpl extends AbstractConfigGroovy implements
     protected volatile Supplier<CharsetDecoder>         charsetDecoder
     protected volatile File                             bindFile
     protected volatile ClassLoader                      contextClassLoader;
+    // set only once before frozen config is published
+    protected          boolean                          frozen
+    protected volatile ConfigChangeDispatcher           changeDispatcher
 
     protected final Map<String, Object> metadata = Collections.<String, Object> synchronizedMap(new HashMap<>(3))
 
@@ -99,7 +108,141 @@ abstract class AbstractConfigGroovyImpl extends AbstractConfigGroovy implements
     @CompileStatic
     void clear()
     {
-        this.@dynamicValues.clear()
+        this.checkFrozen()
+        ConfigChangeDispatcher dispatcher = this.@changeDispatcher
+        if ((dispatcher == null) || !dispatcher.hasListeners())
+        {
+            this.@dynamicValues.clear()
+            return
+        }
+        Map<String, Object> removed
+        synchronized (this.@dynamicValues)
+        {
+            removed = new LinkedHashMap<>(this.@dynamicValues)
+            this.@dynamicValues.clear()
+        }
+        dispatcher.beginBatch()
+        try
+        {
+            for (Map.Entry<String, Object> entry : removed.entrySet())
+            {
+                dispatcher.fireChange(entry.getKey(), entry.getValue(), null)
+            }
+        }
+        finally
+        {
+            dispatcher.endBatch()
+        }
+    }
+
+    @Override
+    @CompileStatic
+    void addChangeListener(ConfigChangeListener listener)
+    {
+        this.changeDispatcher$Internal().addListener(null, listener)
+    }
+
+    @Override
+    @CompileStatic
+    void addChangeListener(String path, ConfigChangeListener listener)
+    {
+        this.changeDispatcher$Internal().addListener(path, listener)
+    }
+
+    @Override
+    @CompileStatic
+    void removeChangeListener(ConfigChangeListener listener)
+    {
+        ConfigChangeDispatcher dispatcher = this.@changeDispatcher
+        if (dispatcher != null)
+        {
+            dispatcher.removeListener(listener)
+        }
+    }
+
+    @Override
+    @CompileStatic
+    void changeListenerExecutor(Executor executor)
+    {
+        this.changeDispatcher$Internal().setExecutor(executor)
+    }
+
+    @CompileStatic
+    protected ConfigChangeDispatcher changeDispatcher$Internal()
+    {
+        ConfigChangeDispatcher dispatcher = this.@changeDispatcher
+        if (dispatcher != null)
+        {
+            return dispatcher
+        }
+        synchronized (this)
+        {
+            dispatcher = this.@changeDispatcher
+            if (dispatcher == null)
+            {
+                dispatcher = new ConfigChangeDispatcher(this)
+                this.initChangeDispatcher$Internal(dispatcher)
+                this.@changeDispatcher = dispatcher
+            }
+            return dispatcher
+        }
+    }
+
+    @CompileStatic
+    protected void initChangeDispatcher$Internal(ConfigChangeDispatcher dispatcher)
+    {}
+
+    @CompileStatic
+    protected Set<String> transferLazyValues$Internal(Config from)
+    {
+        return Collections.emptySet()
+    }
+
+    @CompileStatic
+    protected void checkFrozen()
+    {
+        if (this.@frozen)
+        {
+            throw new UnsupportedOperationException("Frozen config " + this.@template.getName() + " can't be changed.")
+        }
+    }
+
+    @Override
+    @CompileStatic
+    boolean isFrozen()
+    {
+        return this.@frozen
+    }
+
+    @Override
+    @CompileStatic
+    Config freeze()
+    {
+        if (this.@frozen)
+        {
+            return this
+        }
+        AbstractConfigGroovyImpl copy = (AbstractConfigGroovyImpl) this.clone()
+        copy.freeze$Internal()
+        return copy
+    }
+
+    @CompileStatic
+    protected void freeze$Internal()
+    {
+        for (Map.Entry<String, Object> entry : this.@dynamicValues.entrySet())
+        {
+            Object value = entry.getValue()
+            if (value instanceof Config)
+            {
+                entry.setValue(((Config) value).freeze())
+            }
+            else if ((value instanceof Collection) || (value instanceof Map))
+            {
+                entry.setValue(YamlCollectionCreator.makeUnmodifiable(value))
+            }
+        }
+        this.@frozen = true
     }
 
     @Override
@@ -295,6 +438,27 @@ abstract class AbstractConfigGroovyImpl extends AbstractConfigGroovy implements
     @Override
     @CompileStatic
     void set(String[] keys, Object value)
+    {
+        this.checkFrozen()
+        ConfigChangeDispatcher dispatcher = this.@changeDispatcher
+        if ((dispatcher == null) || !dispatcher.hasListeners() || (keys.length == 0) || this.isPredefined$Internal(keys[0]))
+        {
+            this.set$Internal(keys, value)
+            return
+        }
+        Object oldValue = this.get(keys, null, null)
+        this.set$Internal(keys, value)
+        dispatcher.fireChange(keys, oldValue, value)
+    }
+
+    @CompileStatic
+    protected boolean isPredefined$Internal(String key)
+    {
+        return false
+    }
+
+    @CompileStatic
+    protected void set$Internal(String[] keys, Object value)
     {
         if (keys.length == 0)
         {
@@ -332,6 +496,23 @@ abstract class AbstractConfigGroovyImpl extends AbstractConfigGroovy implements
     @Override
     @CompileStatic
     Object remove(String... keys)
+    {
+        this.checkFrozen()
+        ConfigChangeDispatcher dispatcher = this.@changeDispatcher
+        if ((dispatcher == null) || !dispatcher.hasListeners() || (keys.length == 0) || this.isPredefined$Internal(keys[0]))
+        {
+            return this.remove$Internal(keys)
+        }
+        Object removed = this.remove$Internal(keys)
+        if (removed != null)
+        {
+            dispatcher.fireChange(keys, removed, null)
+        }
+        return removed
+    }
+
+    @CompileStatic
+    protected Object remove$Internal(String... keys)
     {
         if (keys.length == 0)
         {
@@ -464,6 +645,54 @@ abstract class AbstractConfigGroovyImpl extends AbstractConfigGroovy implements
     @CompileStatic
     void load(Reader reader)
     {
+        ConfigTemplate<Config> template = this.@template as ConfigTemplate<Config>
+        this.load$Internal({ Serialization.getInstance().fromYaml(template, reader) as Config })
+    }
+
+    @Override
+    @CompileStatic
+    void load(Node node)
+    {
+        Class<?> configType = this.@template.getConfigType()
+        this.load$Internal({ Serialization.getInstance().fromYamlNode(node, configType) as Config })
+    }
+
+    @CompileStatic
+    protected void load$Internal(Supplier<Config> loader)
+    {
+        this.loadContext$Internal({
+            Config fromYaml = loader.get()
+            if (fromYaml == null)
+            {
+                return null
+            }
+            // not yet deserialized lazy values are moved as they are, so loading them doesn't force their deserialization.
+            Set<String> lazyKeys = this.transferLazyValues$Internal(fromYaml)
+            if (lazyKeys.isEmpty())
+            {
+                fromYaml.asMap().forEach({ String key, Object value ->
+                    this.setProperty(key, value)
+                })
+            }
+            else
+            {
+                for (String key : fromYaml.keys())
+                {
+                    if (! lazyKeys.contains(key))
+                    {
+                        this.setProperty(key, fromYaml.get(key))
+                    }
+                }
+            }
+            return null
+        } as Supplier<Object>)
+    }
+
+    // runs loading action with context class loader of this config, all changes made by it are dispatched to listeners as single batch.
+    @CompileStatic
+    protected <R> R loadContext$Internal(Supplier<R> action)
+    {
+        this.checkFrozen()
         Thread current = Thread.currentThread();
         ClassLoader oldContext = null;
         boolean customContext = false;
@@ -473,16 +702,14 @@ abstract class AbstractConfigGroovyImpl extends AbstractConfigGroovy implements
             oldContext = current.getContextClassLoader();
             current.setContextClassLoader(this.@contextClassLoader)
         }
+        ConfigChangeDispatcher dispatcher = this.@changeDispatcher
+        if (dispatcher != null)
+        {
+            dispatcher.beginBatch()
+        }
         try
         {
-            Config fromYaml = Serialization.getInstance().fromYaml(reader, this.@template.getConfigType()) as Config
-            if (fromYaml == null)
-            {
-                return
-            }
-            fromYaml.asMap().forEach({ String key, Object value ->
-                this.setProperty(key, value)
-            })
+            return action.get()
         }
         finally
         {
@@ -490,9 +717,36 @@ abstract class AbstractConfigGroovyImpl extends AbstractConfigGroovy implements
             {
                 current.setContextClassLoader(oldContext);
             }
+            if (dispatcher != null)
+            {
+                dispatcher.endBatch()
+            }
         }
     }
 
+    @Override
+    @CompileStatic
+    void loadStreaming(Reader reader)
+    {
+        Class<Config> configType = this.@template.getConfigType() as Class<Config>
+        ConfigDeserializer<Config> deserializer = new ConfigDeserializer<Config>(configType)
+        this.loadContext$Internal({
+            deserializer.loadEntries(this, reader)
+            return null
+        } as Supplier<Object>)
+    }
+
+    @Override
+    @CompileStatic
+    Set<String> loadChanges(Reader reader)
+    {
+        Class<Config> configType = this.@template.getConfigType() as Class<Config>
+        ConfigDeserializer<Config> deserializer = new ConfigDeserializer<Config>(configType)
+        return this.loadContext$Internal({
+            return deserializer.loadChanges(this, reader)
+        } as Supplier<Set<String>>)
+    }
+
     @Override
     @CompileStatic
     abstract Config clone()
@@ -591,11 +845,27 @@ abstract class ConfigBaseGroovyImpl extends AbstractConfigGroovyImpl implements
     @CompileStatic
     void clear()
     {
-        for (ConfigPropertyValueImpl<Object> propertyValue : this.@predefinedValues.values())
+        this.checkFrozen()
+        ConfigChangeDispatcher dispatcher = this.@changeDispatcher
+        if (dispatcher != null)
+        {
+            dispatcher.beginBatch()
+        }
+        try
         {
-            propertyValue.setPropertyValue(null)
+            for (ConfigPropertyValueImpl<Object> propertyValue : this.@predefinedValues.values())
+            {
+                propertyValue.setPropertyValue(null)
+            }
+            super.clear()
+        }
+        finally
+        {
+            if (dispatcher != null)
+            {
+                dispatcher.endBatch()
+            }
         }
-        super.clear()
     }
 
     @Override
@@ -694,6 +964,17 @@ abstract class ConfigBaseGroovyImpl extends AbstractConfigGroovyImpl implements
         return map
     }
 
+    @Override
+    @CompileStatic
+    protected void freeze$Internal()
+    {
+        for (Map.Entry<String, ConfigPropertyValueImpl<Object>> entry : this.@predefinedValues.entrySet())
+        {
+            entry.setValue(entry.getValue().freeze())
+        }
+        super.freeze$Internal()
+    }
+
     @CompileStatic
     protected Map<String, Object> asMap$Internal()
     {
@@ -773,7 +1054,46 @@ abstract class ConfigBaseGroovyImpl extends AbstractConfigGroovyImpl implements
     }
 
     @Override
-    void set(String[] keys, Object value)
+    @CompileStatic
+    protected boolean isPredefined$Internal(String key)
+    {
+        return this.@predefinedValues.containsKey(key)
+    }
+
+    @Override
+    @CompileStatic
+    protected void initChangeDispatcher$Internal(ConfigChangeDispatcher dispatcher)
+    {
+        for (ConfigPropertyValueImpl<Object> propertyValue : this.@predefinedValues.values())
+        {
+            propertyValue.setChangeDispatcher(dispatcher)
+        }
+    }
+
+    @Override
+    @CompileStatic
+    protected Set<String> transferLazyValues$Internal(Config from)
+    {
+        if (! (from instanceof AbstractConfigGroovy))
+        {
+            return Collections.emptySet()
+        }
+        Set<String> transferred = new HashSet<>(4)
+        for (Map.Entry<String, ConfigPropertyValueImpl<Object>> entry : ((AbstractConfigGroovy) from).predefinedValues$Internal$().entrySet())
+        {
+            DetachedValue lazyData = entry.getValue().getLazyData()
+            ConfigPropertyValueImpl<Object> propertyValue = this.@predefinedValues.get(entry.getKey())
+            if ((lazyData != null) && (propertyValue != null) && propertyValue.canDeserializeLazily())
+            {
+                propertyValue.setLazyData(lazyData)
+                transferred.add(entry.getKey())
+            }
+        }
+        return transferred
+    }
+
+    @Override
+    protected void set$Internal(String[] keys, Object value)
     {
         if (keys.length == 0)
         {
@@ -814,7 +1134,7 @@ abstract class ConfigBaseGroovyImpl extends AbstractConfigGroovyImpl implements
 
     @Override
     @CompileStatic
-    Object remove(String... keys)
+    protected Object remove$Internal(String... keys)
     {
         if (keys.length == 0)
         {
@@ -0,0 +1,140 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017. Diorite (by Bartłomiej Mazur (aka GotoFinal))
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package org.diorite.config;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import org.diorite.commons.io.StringBuilderWriter;
+import org.diorite.config.impl.CompactSimpleConfig;
+
+public class CompactSimpleConfigTest
+{
+    @Test
+    public void pathTest()
+    {
+        SimpleConfig config = new CompactSimpleConfig();
+        Assert.assertTrue(config.isEmpty());
+        Assert.assertSame(null, config.get("nope"));
+        Assert.assertEquals("def", config.get("nope.more", "def"));
+
+        config.set("a.b.c", 5);
+        config.set("a.b.d", "str");
+        config.set("a.e", Lists.newArrayList("x", "y"));
+        Assert.assertEquals(1, config.size());
+        Assert.assertTrue(config.contains("a.b.c"));
+        Assert.assertTrue(config.contains("a.e.1"));
+        Assert.assertFalse(config.contains("a.b.x"));
+        Assert.assertEquals(5, config.<Object>get("a.b.c"));
+        Assert.assertEquals("y", config.get("a.e.1"));
+
+        Object section = config.get("a.b");
+        Assert.assertTrue(section instanceof SimpleConfig);
+        Assert.assertEquals(2, ((SimpleConfig) section).size());
+        ((SimpleConfig) section).set("f", true);
+        Assert.assertEquals(true, config.get("a.b.f"));
+
+        Assert.assertEquals("str", config.remove("a.b.d"));
+        Assert.assertFalse(config.contains("a.b.d"));
+
+        for (int i = 0; i < 100; i++)
+        {
+            config.set("many.key" + i, i);
+        }
+        for (int i = 0; i < 100; i++)
+        {
+            Assert.assertEquals(i, config.<Object>get("many.key" + i));
+        }
+        Assert.assertEquals(50, config.remove("many.key50"));
+        Assert.assertSame(null, config.get("many.key50"));
+        Assert.assertEquals(51, config.<Object>get("many.key51"));
+
+        config.set("empty", null);
+        Assert.assertSame(null, config.get("empty", "def"));
+        Assert.assertEquals("def", config.get("empty.nested", "def"));
+    }
+
+    @Test
+    public void saveLoadTest()
+    {
+        SimpleConfig config = new CompactSimpleConfig();
+        config.set("some.nested.value", "test");
+        config.set("some.list", Lists.newArrayList("a", "b", "c"));
+        config.set("number", 12);
+
+        StringBuilderWriter writer = new StringBuilderWriter(200);
+        config.save(writer);
+
+        SimpleConfig loaded = new CompactSimpleConfig();
+        loaded.load(new StringReader(writer.toString()));
+        Assert.assertEquals("test", loaded.get("some.nested.value"));
+        Assert.assertEquals(ImmutableList.of("a", "b", "c"), loaded.get("some.list"));
+        Assert.assertEquals(12, loaded.<Object>get("number"));
+        Assert.assertEquals(config, loaded);
+
+        SimpleConfig clone = (SimpleConfig) config.clone();
+        Assert.assertEquals(config, clone);
+        clone.set("some.nested.other", "x");
+        Assert.assertNotEquals(config, clone);
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void freezeTest()
+    {
+        SimpleConfig config = new CompactSimpleConfig();
+        config.set("some.nested.value", "test");
+        config.set("some.list", Lists.newArrayList("a", "b", "c"));
+
+        SimpleConfig frozen = (SimpleConfig) config.freeze();
+        Assert.assertTrue(frozen.isFrozen());
+        Assert.assertEquals(config, frozen);
+        Assert.assertTrue(((SimpleConfig) frozen.get("some")).isFrozen());
+
+        frozen.set("some.nested.value", "other");
+    }
+
+    @Test
+    public void changeListenerTest()
+    {
+        SimpleConfig config = new CompactSimpleConfig();
+        config.set("some.nested.value", "a");
+
+        List<String> changes = new ArrayList<>(5);
+        config.addChangeListener("some.nested", (cfg, key, oldValue, newValue) -> changes.add(key + ":" + oldValue + "->" + newValue));
+        config.set("some.nested.value", "b");
+        config.set("some.nested.value", "b");
+        config.set("other", "c");
+        ((SimpleConfig) config.get("some")).remove("nested.value");
+        Assert.assertEquals(ImmutableList.of("some.nested.value:a->b", "some.nested.value:b->null"), changes);
+    }
+}
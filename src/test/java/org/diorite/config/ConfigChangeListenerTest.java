@@ -0,0 +1,182 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017. Diorite (by Bartłomiej Mazur (aka GotoFinal))
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package org.diorite.config;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.google.common.collect.ImmutableList;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ConfigChangeListenerTest
+{
+    private final ConfigManager configManager = ConfigManager.get();
+
+    @Test
+    public void synchronousListenersTest()
+    {
+        TestConfig config = this.configManager.getConfigFile(TestConfig.class).create();
+        List<String> changes = new ArrayList<>(4);
+        List<Object> valuesSeenByListener = new ArrayList<>(4);
+        config.addChangeListener("player-money", (cfg, key, oldValue, newValue) ->
+        {
+            changes.add(key + ":" + oldValue + "->" + newValue);
+            // whole reload is single batch, so listener is called after all values were loaded.
+            valuesSeenByListener.add(cfg.get("some-key"));
+        });
+        config.addChangeListener("some-key", (cfg, key, oldValue, newValue) -> changes.add(key + ":" + oldValue + "->" + newValue));
+
+        config.load(new StringReader("player-money: 20\nsome-key: a"));
+        Assert.assertEquals(ImmutableList.of("player-money:0.1->20.0", "some-key:null->a"), changes);
+        Assert.assertEquals(ImmutableList.of("a"), valuesSeenByListener);
+
+        changes.clear();
+        config.load(new StringReader("player-money: 20\nsome-key: b"));
+        Assert.assertEquals(ImmutableList.of("some-key:a->b"), changes);
+
+        changes.clear();
+        config.setMoney(30);
+        Assert.assertEquals(ImmutableList.of("player-money:20.0->30.0"), changes);
+
+        // keys that end up with their old value are not reported.
+        changes.clear();
+        valuesSeenByListener.clear();
+        config.loadChanges(new StringReader("player-money: 40\nsome-key: c"));
+        config.load(new StringReader("player-money: 40\nsome-key: c"));
+        Assert.assertEquals(ImmutableList.of("player-money:30.0->40.0", "some-key:b->c"), changes);
+        Assert.assertEquals(ImmutableList.of("c"), valuesSeenByListener);
+    }
+
+    @Test
+    public void executorListenersTest() throws Exception
+    {
+        TestConfig config = this.configManager.getConfigFile(TestConfig.class).create();
+        ExecutorService service = Executors.newSingleThreadExecutor();
+        try
+        {
+            AtomicInteger tasks = new AtomicInteger();
+            config.changeListenerExecutor(task ->
+            {
+                tasks.incrementAndGet();
+                service.execute(task);
+            });
+            Map<String, Object> changes = new ConcurrentHashMap<>(4);
+            Map<String, Thread> threads = new ConcurrentHashMap<>(4);
+            CountDownLatch[] latch = {new CountDownLatch(2)};
+            config.addChangeListener((cfg, key, oldValue, newValue) ->
+            {
+                if (key.equals("player-money") || key.equals("some-key"))
+                {
+                    changes.put(key, newValue);
+                    threads.put(key, Thread.currentThread());
+                    latch[0].countDown();
+                }
+            });
+
+            config.load(new StringReader("player-money: 20\nsome-key: a"));
+            Assert.assertTrue(latch[0].await(10, TimeUnit.SECONDS));
+            Assert.assertEquals(1, tasks.get());
+            Assert.assertEquals(20.0, changes.get("player-money"));
+            Assert.assertEquals("a", changes.get("some-key"));
+            Assert.assertNotSame(Thread.currentThread(), threads.get("player-money"));
+            Assert.assertNotSame(Thread.currentThread(), threads.get("some-key"));
+
+            service.submit(() -> {}).get(); // wait for end of previous dispatch.
+            latch[0] = new CountDownLatch(2);
+            config.loadChanges(new StringReader("player-money: 30\nsome-key: b"));
+            Assert.assertTrue(latch[0].await(10, TimeUnit.SECONDS));
+            Assert.assertEquals(2, tasks.get());
+            Assert.assertEquals(30.0, changes.get("player-money"));
+            Assert.assertEquals("b", changes.get("some-key"));
+        }
+        finally
+        {
+            service.shutdownNow();
+        }
+    }
+
+    @Test
+    public void failingListenerTest()
+    {
+        TestConfig config = this.configManager.getConfigFile(TestConfig.class).create();
+        List<String> changes = new ArrayList<>(4);
+        config.addChangeListener((cfg, key, oldValue, newValue) ->
+        {
+            throw new IllegalStateException("failed " + key);
+        });
+        config.addChangeListener((cfg, key, oldValue, newValue) -> changes.add(key + ":" + oldValue + "->" + newValue));
+        try
+        {
+            config.setMoney(30);
+            Assert.fail("Exception of listener should be rethrown.");
+        }
+        catch (IllegalStateException e)
+        {
+            Assert.assertEquals("failed player-money", e.getMessage());
+        }
+        // other listeners are still notified, and failure doesn't block later changes.
+        Assert.assertEquals(ImmutableList.of("player-money:0.1->30.0"), changes);
+        changes.clear();
+        try
+        {
+            config.setMoney(40);
+            Assert.fail("Exception of listener should be rethrown.");
+        }
+        catch (IllegalStateException e)
+        {
+            Assert.assertEquals("failed player-money", e.getMessage());
+        }
+        Assert.assertEquals(ImmutableList.of("player-money:30.0->40.0"), changes);
+    }
+
+    @Test
+    public void rejectingExecutorTest()
+    {
+        TestConfig config = this.configManager.getConfigFile(TestConfig.class).create();
+        config.changeListenerExecutor(task ->
+        {
+            throw new RejectedExecutionException("shut down");
+        });
+        List<Thread> threads = new ArrayList<>(4);
+        config.addChangeListener("player-money", (cfg, key, oldValue, newValue) -> threads.add(Thread.currentThread()));
+
+        // rejected changes are dispatched by thread that made them, and dispatcher isn't stuck after that.
+        config.setMoney(30);
+        config.setMoney(40);
+        Assert.assertEquals(ImmutableList.of(Thread.currentThread(), Thread.currentThread()), threads);
+    }
+}
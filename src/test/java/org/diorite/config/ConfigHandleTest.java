@@ -0,0 +1,175 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017. Diorite (by Bartłomiej Mazur (aka GotoFinal))
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package org.diorite.config;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import org.diorite.config.exceptions.ConfigLoadException;
+
+public class ConfigHandleTest
+{
+    private final ConfigTemplate<TestConfig> template = ConfigManager.get().getConfigFile(TestConfig.class);
+
+    @Test
+    public void versionTest()
+    {
+        TestConfig initial = this.template.create();
+        ConfigHandle<TestConfig> handle = new ConfigHandle<>(this.template, initial);
+        Assert.assertEquals(0, handle.getVersion());
+        Assert.assertSame(initial, handle.get());
+
+        TestConfig reloaded = handle.reload(new StringReader("player-money: 20"));
+        Assert.assertEquals(1, handle.getVersion());
+        Assert.assertSame(reloaded, handle.get());
+        Assert.assertEquals(20, reloaded.getMoney(), 0.001);
+        Assert.assertEquals(0.1, initial.getMoney(), 0.001);
+
+        TestConfig swapped = this.template.create();
+        Assert.assertSame(reloaded, handle.swap(swapped));
+        Assert.assertEquals(2, handle.getVersion());
+
+        Assert.assertFalse(handle.compareAndSwap(1, this.template.create()));
+        Assert.assertSame(swapped, handle.get());
+        TestConfig last = this.template.create();
+        Assert.assertTrue(handle.compareAndSwap(2, last));
+        ConfigHandle.Snapshot<TestConfig> snapshot = handle.getSnapshot();
+        Assert.assertSame(last, snapshot.getConfig());
+        Assert.assertEquals(3, snapshot.getVersion());
+    }
+
+    @Test
+    public void failedLoadTest()
+    {
+        ConfigHandle<TestConfig> handle = new ConfigHandle<>(this.template, this.template.create());
+        TestConfig current = handle.reload(new StringReader("player-money: 20"));
+        for (String invalid : new String[]{"player-money: [", "player-money: -5"})
+        {
+            try
+            {
+                handle.reload(new StringReader(invalid));
+                Assert.fail("Expected load failure for: " + invalid);
+            }
+            catch (RuntimeException e)
+            {
+                // expected
+            }
+            Assert.assertSame(current, handle.get());
+            Assert.assertEquals(1, handle.getVersion());
+            Assert.assertEquals(20, current.getMoney(), 0.001);
+        }
+    }
+
+    @Test
+    public void concurrentReloadTest() throws Exception
+    {
+        ConfigHandle<TestConfig> handle = new ConfigHandle<>(this.template, this.template.create());
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Reader slowReader = new Reader()
+        {
+            private final Reader delegate = new StringReader("player-money: 10");
+
+            @Override
+            public int read(char[] buffer, int offset, int length) throws IOException
+            {
+                loading.countDown();
+                try
+                {
+                    release.await();
+                }
+                catch (InterruptedException e)
+                {
+                    throw new InterruptedIOException();
+                }
+                return this.delegate.read(buffer, offset, length);
+            }
+
+            @Override
+            public void close()
+            {
+            }
+        };
+        CompletableFuture<TestConfig> slowReload = CompletableFuture.supplyAsync(() -> handle.reload(slowReader));
+        loading.await();
+        TestConfig newer = handle.reload(new StringReader("player-money: 30"));
+        release.countDown();
+        try
+        {
+            slowReload.get();
+            Assert.fail("Slower reload should not replace newer instance.");
+        }
+        catch (ExecutionException e)
+        {
+            Assert.assertTrue(e.getCause() instanceof ConfigLoadException);
+        }
+        Assert.assertSame(newer, handle.get());
+        Assert.assertEquals(1, handle.getVersion());
+        Assert.assertEquals(30, handle.get().getMoney(), 0.001);
+    }
+
+    @Test
+    public void concurrentFileReloadTest() throws Exception
+    {
+        Path directory = Paths.get("target", "config-handle");
+        Files.createDirectories(directory);
+        Path file = directory.resolve("config.yml");
+        Files.write(file, "player-money: 10".getBytes(StandardCharsets.UTF_8));
+        ConfigHandle<TestConfig> handle = ConfigHandle.load(this.template, file.toFile());
+        Assert.assertEquals(1, handle.getVersion());
+
+        // every reload of file is applied exactly once, losers of concurrent swap load file again.
+        List<CompletableFuture<Void>> futures = new ArrayList<>(4);
+        for (int i = 0; i < 4; i++)
+        {
+            futures.add(CompletableFuture.runAsync(() ->
+            {
+                for (int j = 0; j < 10; j++)
+                {
+                    handle.reload();
+                }
+            }));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[futures.size()])).get();
+        Assert.assertEquals(41, handle.getVersion());
+        Assert.assertEquals(10, handle.get().getMoney(), 0.001);
+        Assert.assertEquals(file.toFile(), handle.get().bindFile());
+    }
+}
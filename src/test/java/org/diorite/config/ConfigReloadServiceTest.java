@@ -0,0 +1,180 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017. Diorite (by Bartłomiej Mazur (aka GotoFinal))
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package org.diorite.config;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.LongSupplier;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ConfigReloadServiceTest
+{
+    private static final long DEBOUNCE = 300;
+    private static final long TIMEOUT  = 10_000;
+
+    private final ConfigTemplate<TestConfig> template = ConfigManager.get().getConfigFile(TestConfig.class);
+
+    @Test
+    public void externalChangeTest() throws Exception
+    {
+        Path file = this.createFile("external.yml", "player-money: 10");
+        TestConfig config = this.load(file);
+        try (ConfigReloadService service = new ConfigReloadService(DEBOUNCE, TimeUnit.MILLISECONDS, 1))
+        {
+            service.watch(config);
+            Files.write(file, "player-money: 20".getBytes(StandardCharsets.UTF_8));
+            awaitCount(service::getReloadCount, 1);
+            Assert.assertEquals(20, config.getMoney(), 0.001);
+
+            // edit of same size that keeps modification time still must be reloaded.
+            FileTime lastModified = Files.getLastModifiedTime(file);
+            Files.write(file, "player-money: 30".getBytes(StandardCharsets.UTF_8));
+            Files.setLastModifiedTime(file, lastModified);
+            awaitCount(service::getReloadCount, 2);
+            Assert.assertEquals(30, config.getMoney(), 0.001);
+
+            // duplicated events of the same content don't cause more reloads, as content is compared by hash.
+            Thread.sleep(DEBOUNCE * 3);
+            Assert.assertTrue(service.getReloadCount() <= 2);
+            Assert.assertEquals(0, service.getFailedReloadCount());
+        }
+    }
+
+    @Test
+    public void burstTest() throws Exception
+    {
+        Path file = this.createFile("burst.yml", "player-money: 10");
+        TestConfig config = this.load(file);
+        try (ConfigReloadService service = new ConfigReloadService(DEBOUNCE, TimeUnit.MILLISECONDS, 1))
+        {
+            service.watch(config);
+            for (int i = 1; i <= 10; i++)
+            {
+                Files.write(file, ("player-money: " + (10 + i)).getBytes(StandardCharsets.UTF_8));
+            }
+            // on slow machine or polling watch service writes can land in separate debounce windows, so burst may cause more reloads.
+            await(() -> config.getMoney() == 20.0, "last write of burst wasn't reloaded");
+            Assert.assertTrue(service.getReloadCount() >= 1);
+            Assert.assertTrue(service.getReloadCount() <= 10);
+        }
+    }
+
+    @Test
+    public void selfSaveTest() throws Exception
+    {
+        Path file = this.createFile("self-save.yml", "player-money: 10");
+        TestConfig config = this.load(file);
+        try (ConfigReloadService service = new ConfigReloadService(DEBOUNCE, TimeUnit.MILLISECONDS, 1))
+        {
+            service.watch(config);
+            config.set("player-money", 40.0);
+            config.save(file.toFile());
+            awaitCount(service::getIgnoredSelfSaveCount, 1);
+
+            config.set("player-money", 50.0);
+            config.saveAsync(file.toFile()).get();
+            awaitCount(service::getIgnoredSelfSaveCount, 2);
+
+            // self-saves are recognized by content, not by timing of events, so even late events can't cause reload.
+            Thread.sleep(DEBOUNCE * 3);
+            Assert.assertEquals(0, service.getReloadCount());
+            Assert.assertEquals(50, config.getMoney(), 0.001);
+        }
+    }
+
+    @Test
+    public void sharedFileSaveTest() throws Exception
+    {
+        Path file = this.createFile("shared.yml", "player-money: 10");
+        TestConfig saving = this.load(file);
+        TestConfig other = this.load(file);
+        try (ConfigReloadService service = new ConfigReloadService(DEBOUNCE, TimeUnit.MILLISECONDS, 1))
+        {
+            service.watch(saving);
+            service.watch(other);
+            saving.set("player-money", 40.0);
+            saving.save(file.toFile());
+
+            // only config that saved the file is up to date, other one must be reloaded.
+            await(() -> other.getMoney() == 40.0, "other config wasn't reloaded");
+            Assert.assertEquals(40, saving.getMoney(), 0.001);
+            Assert.assertEquals(0, service.getFailedReloadCount());
+        }
+    }
+
+    private Path createFile(String name, String content) throws IOException
+    {
+        Path directory = Paths.get("target", "config-reload");
+        Files.createDirectories(directory);
+        Path file = directory.resolve(name);
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    private TestConfig load(Path path)
+    {
+        File file = path.toFile();
+        TestConfig config = this.template.create();
+        config.bindFile(file);
+        config.load(file);
+        return config;
+    }
+
+    private static void await(BooleanSupplier condition, String message) throws InterruptedException
+    {
+        long deadline = System.currentTimeMillis() + TIMEOUT;
+        while (! condition.getAsBoolean())
+        {
+            if (System.currentTimeMillis() > deadline)
+            {
+                Assert.fail(message);
+            }
+            Thread.sleep(50);
+        }
+    }
+
+    private static void awaitCount(LongSupplier counter, long expected) throws InterruptedException
+    {
+        long deadline = System.currentTimeMillis() + TIMEOUT;
+        while (counter.getAsLong() < expected)
+        {
+            if (System.currentTimeMillis() > deadline)
+            {
+                Assert.fail("Expected count " + expected + ", but was " + counter.getAsLong());
+            }
+            Thread.sleep(50);
+        }
+    }
+}
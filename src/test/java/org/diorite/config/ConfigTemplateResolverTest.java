@@ -0,0 +1,124 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017. Diorite (by Bartłomiej Mazur (aka GotoFinal))
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package org.diorite.config;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import org.diorite.config.SomeConfig.TestEnum;
+
+public class ConfigTemplateResolverTest
+{
+    private final ConfigTemplate<ScalarTestConfig> template = ConfigManager.get().getConfigFile(ScalarTestConfig.class);
+
+    @Test
+    public void stringTest()
+    {
+        // values that implicit resolvers would read as boolean, number or timestamp stay strings.
+        for (String value : new String[]{"yes", "0123", "1e3", "2017-01-01", "0x1F"})
+        {
+            for (ScalarTestConfig config : this.loadAll("name: " + value))
+            {
+                Assert.assertEquals(value, config.getName());
+            }
+        }
+    }
+
+    @Test
+    public void numberTest()
+    {
+        for (ScalarTestConfig config : this.loadAll("count: 42"))
+        {
+            Assert.assertEquals(42, config.getCount());
+        }
+    }
+
+    @Test
+    public void booleanTest()
+    {
+        for (ScalarTestConfig config : this.loadAll("enabled: true"))
+        {
+            Assert.assertTrue(config.getEnabled());
+        }
+    }
+
+    @Test
+    public void enumTest()
+    {
+        for (ScalarTestConfig config : this.loadAll("mode: B"))
+        {
+            Assert.assertEquals(TestEnum.B, config.getMode());
+        }
+    }
+
+    @Test
+    public void nullTest()
+    {
+        for (String value : new String[]{"~", "null", "Null", "NULL", ""})
+        {
+            for (ScalarTestConfig config : this.loadAll("name: " + value + "\nmode: " + value))
+            {
+                Assert.assertNull(config.getName());
+                Assert.assertNull(config.getMode());
+            }
+        }
+        // quoted values are never null.
+        for (ScalarTestConfig config : this.loadAll("name: 'null'"))
+        {
+            Assert.assertEquals("null", config.getName());
+        }
+    }
+
+    @Test
+    public void mergeTest()
+    {
+        for (ScalarTestConfig config : this.loadAll("base: &base\n  name: merged\n<<: *base\ncount: 3"))
+        {
+            Assert.assertEquals("merged", config.getName());
+            Assert.assertEquals(3, config.getCount());
+        }
+    }
+
+    // loads given document using every load path that is aware of config template.
+    private List<ScalarTestConfig> loadAll(String yaml)
+    {
+        List<ScalarTestConfig> configs = new ArrayList<>(3);
+        ScalarTestConfig loaded = this.template.create();
+        loaded.load(new StringReader(yaml));
+        configs.add(loaded);
+        ScalarTestConfig streamed = this.template.create();
+        streamed.loadStreaming(new StringReader(yaml));
+        configs.add(streamed);
+        ScalarTestConfig changed = this.template.create();
+        changed.loadChanges(new StringReader(yaml));
+        configs.add(changed);
+        return configs;
+    }
+}
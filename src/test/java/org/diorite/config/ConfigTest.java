@@ -26,10 +26,14 @@ package org.diorite.config;
 
 import java.io.File;
 import java.io.StringReader;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.MalformedInputException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.StandardOpenOption;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 import com.google.common.collect.ImmutableList;
 
@@ -94,6 +98,203 @@ public class ConfigTest
         Assert.assertEquals(cfg, cfgCopy);
     }
 
+    @Test
+    public void snapshotCacheTest() throws Exception
+    {
+        SerializationTest.prepareSerialization();
+        ConfigTemplate<TypeTestConfig> configTemplate = this.configManager.getConfigFile(TypeTestConfig.class);
+        ConfigSnapshotCache snapshotCache = ConfigSnapshotCache.inDirectory(new File("target/snapshots"));
+        File file = new File("target/snapshot-test-file.yml");
+        File snapshotFile = snapshotCache.getSnapshotFile(file);
+        configTemplate.setSnapshotCache(snapshotCache);
+        try
+        {
+            TypeTestConfig cfg = configTemplate.create();
+            cfg.save(file);
+            snapshotFile.delete();
+
+            Assert.assertEquals(cfg, configTemplate.load(file));
+            Assert.assertTrue(snapshotFile.isFile());
+            Assert.assertEquals(cfg, configTemplate.load(file));
+
+            // content with the same size is still detected by its hash.
+            cfg.getNonCopyTest()[0] = 2;
+            cfg.save(file);
+            Assert.assertEquals(cfg, configTemplate.load(file));
+            Assert.assertEquals(cfg, configTemplate.load(file));
+        }
+        finally
+        {
+            configTemplate.setSnapshotCache(null);
+            snapshotFile.delete();
+        }
+    }
+
+    @Test
+    public void snapshotCacheResolutionTest() throws Exception
+    {
+        SerializationTest.prepareSerialization();
+        ConfigTemplate<ScalarTestConfig> configTemplate = this.configManager.getConfigFile(ScalarTestConfig.class);
+        ConfigSnapshotCache snapshotCache = ConfigSnapshotCache.inDirectory(new File("target/snapshots"));
+        File file = new File("target/snapshot-resolution-test-file.yml");
+        File snapshotFile = snapshotCache.getSnapshotFile(file);
+        try
+        {
+            for (String name : new String[]{"yes", "0123"})
+            {
+                Files.write(file.toPath(), ("name: " + name + "\ncount: 3\nenabled: yes\nmode: B\n").getBytes(StandardCharsets.UTF_8));
+                snapshotFile.delete();
+
+                configTemplate.setSnapshotCache(null);
+                ScalarTestConfig expected = configTemplate.load(file);
+                Assert.assertEquals(name, expected.getName());
+
+                configTemplate.setSnapshotCache(snapshotCache);
+                ScalarTestConfig written = configTemplate.load(file);
+                Assert.assertTrue(snapshotFile.isFile());
+                ScalarTestConfig read = configTemplate.load(file);
+                for (ScalarTestConfig cfg : new ScalarTestConfig[]{written, read})
+                {
+                    Assert.assertEquals(expected.getName(), cfg.getName());
+                    Assert.assertEquals(expected.getCount(), cfg.getCount());
+                    Assert.assertEquals(expected.getEnabled(), cfg.getEnabled());
+                    Assert.assertEquals(expected.getMode(), cfg.getMode());
+                }
+            }
+        }
+        finally
+        {
+            configTemplate.setSnapshotCache(null);
+            snapshotFile.delete();
+        }
+    }
+
+    @Test
+    public void asyncLoadSaveTest() throws Exception
+    {
+        SerializationTest.prepareSerialization();
+        ConfigTemplate<TypeTestConfig> configTemplate = this.configManager.getConfigFile(TypeTestConfig.class);
+        File file = new File("target/async-test-file.yml");
+
+        TypeTestConfig cfg = configTemplate.create();
+        TypeTestConfig expected = configTemplate.create();
+        CompletableFuture<Void> save = cfg.saveAsync(file);
+        // data is captured before saveAsync returns.
+        cfg.getNonCopyTest()[0] = 2;
+        CompletableFuture<TypeTestConfig> load = configTemplate.loadAsync(file);
+        save.join();
+        Assert.assertEquals(expected, load.join());
+
+        cfg.saveAsync(file);
+        TypeTestConfig loaded = configTemplate.create();
+        loaded.loadAsync(file).join();
+        Assert.assertEquals(cfg, loaded);
+    }
+
+    @Test
+    public void bytesLoadSaveTest() throws Exception
+    {
+        SerializationTest.prepareSerialization();
+        ConfigTemplate<TypeTestConfig> configTemplate = this.configManager.getConfigFile(TypeTestConfig.class);
+
+        TypeTestConfig cfg = configTemplate.create();
+        cfg.getNonCopyTest()[0] = 2;
+        StringBuilderWriter writer = new StringBuilderWriter(4096);
+        cfg.save(writer);
+        byte[] bytes = writer.toString().getBytes(StandardCharsets.UTF_8);
+
+        ByteBuffer buffer = cfg.saveToBuffer();
+        Assert.assertEquals(ByteBuffer.wrap(bytes), buffer);
+        TypeTestConfig loaded = configTemplate.create();
+        loaded.load(buffer);
+        Assert.assertFalse(buffer.hasRemaining());
+        Assert.assertEquals(cfg, loaded);
+        loaded = configTemplate.create();
+        loaded.load(bytes);
+        Assert.assertEquals(cfg, loaded);
+
+        ByteBuffer target = ByteBuffer.allocateDirect(bytes.length);
+        cfg.save(target);
+        Assert.assertFalse(target.hasRemaining());
+        try
+        {
+            cfg.save(ByteBuffer.allocate(bytes.length - 1));
+            Assert.fail("Expected buffer overflow.");
+        }
+        catch (BufferOverflowException e)
+        {
+            // expected
+        }
+
+        // multi-byte sequences, including supplementary code point split between reads.
+        String text = "a\u00e9\u20ac\ud83d\ude00z";
+        Utf8ByteBufferWriter utf8Writer = new Utf8ByteBufferWriter(ByteBuffer.allocate(1), true);
+        utf8Writer.write(text);
+        utf8Writer.close();
+        ByteBuffer encoded = utf8Writer.getBuffer();
+        encoded.flip();
+        Assert.assertEquals(ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8)), encoded);
+        Utf8ByteBufferReader utf8Reader = new Utf8ByteBufferReader(encoded);
+        StringBuilder decoded = new StringBuilder(text.length());
+        char[] chars = new char[1];
+        while (utf8Reader.read(chars, 0, 1) != - 1)
+        {
+            decoded.append(chars[0]);
+        }
+        Assert.assertEquals(text, decoded.toString());
+        try
+        {
+            new Utf8ByteBufferReader(ByteBuffer.wrap(new byte[]{(byte) 0xC0, (byte) 0x80})).read(chars, 0, 1);
+            Assert.fail("Expected malformed input.");
+        }
+        catch (MalformedInputException e)
+        {
+            // expected
+        }
+    }
+
+    @Test
+    public void streamingLoadTest()
+    {
+        ConfigTemplate<TestConfig> configTemplate = this.configManager.getConfigFile(TestConfig.class);
+        String yaml = "defaults: &defaults\n" +
+                      "  player-money: 30\n" +
+                      "  extra: merged\n" +
+                      "names: &names [a, b]\n" +
+                      "<<: *defaults\n" +
+                      "extra: explicit\n" +
+                      "other-names: *names\n";
+        TestConfig loaded = configTemplate.create();
+        TestConfig streamed = configTemplate.create();
+        for (TestConfig config : new TestConfig[]{loaded, streamed})
+        {
+            config.setMoney(50);
+            config.set("kept", "value");
+        }
+        loaded.load(new StringReader(yaml));
+        streamed.loadStreaming(new StringReader(yaml));
+        for (TestConfig config : new TestConfig[]{loaded, streamed})
+        {
+            Assert.assertEquals(30, config.getMoney(), 0.001);
+            Assert.assertEquals("explicit", config.get("extra"));
+            Assert.assertEquals("value", config.get("kept"));
+            Assert.assertEquals(ImmutableList.of("a", "b"), config.get("names"));
+            // alias in later entry resolves to the same value as its anchor.
+            Assert.assertSame(config.get("names"), config.get("other-names"));
+            Assert.assertFalse(config.contains("<<"));
+        }
+
+        // properties missing in document are reset to their default values, other keys are kept.
+        loaded.load(new StringReader("extra: other"));
+        streamed.loadStreaming(new StringReader("extra: other"));
+        for (TestConfig config : new TestConfig[]{loaded, streamed})
+        {
+            Assert.assertEquals(0.1, config.getMoney(), 0.001);
+            Assert.assertEquals("other", config.get("extra"));
+            Assert.assertEquals("value", config.get("kept"));
+        }
+    }
+
     @Test
     public void test() throws Exception
     {
@@ -172,6 +373,7 @@ public class ConfigTest
         StringBuilderWriter writer = new StringBuilderWriter(500);
         someConfig.save(writer);
         Assert.assertEquals(someConfig, configTemplate.load(new StringReader(writer.toString())));
+        Assert.assertEquals(someConfig, configTemplate.loadStreaming(new StringReader(writer.toString())));
     }
 
     private void testNicknames(SomeConfig someConfig)
@@ -24,10 +24,29 @@
 
 package org.diorite.config;
 
+import java.io.File;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.Reader;
 import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
 import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
@@ -40,6 +59,7 @@ import org.junit.Test;
 import org.junit.rules.ExpectedException;
 
 import org.diorite.commons.io.StringBuilderWriter;
+import org.diorite.config.exceptions.ConfigLoadException;
 import org.diorite.config.exceptions.ValidationException;
 import org.diorite.config.impl.groovy.GroovyImplementationProvider;
 import org.diorite.config.serialization.BeanObject;
@@ -233,4 +253,240 @@ public class SimpleConfigTest
             config.set("player-money", - 1);
         }
     }
+
+    @Test
+    public void freezeTest() throws Exception
+    {
+        ConfigTemplate<TestConfig> configTemplate = this.configManager.getConfigFile(TestConfig.class);
+        try (InputStream stream = SimpleConfigTest.class.getResourceAsStream("/simpleConfig.yml"))
+        {
+            Assert.assertNotNull(stream);
+
+            TestConfig config = configTemplate.load(stream);
+            config.set("more.A", "Some str1");
+            Assert.assertFalse(config.isFrozen());
+
+            TestConfig frozen = (TestConfig) config.freeze();
+            Assert.assertTrue(frozen.isFrozen());
+            Assert.assertSame(frozen, frozen.freeze());
+            Assert.assertEquals(config.getMoney(), frozen.getMoney(), 0.001);
+            Assert.assertEquals("Some str1", frozen.get("more.A"));
+
+            config.setMoney(20);
+            Assert.assertNotEquals(config.getMoney(), frozen.getMoney(), 0.001);
+
+            this.exception.expect(UnsupportedOperationException.class);
+            frozen.setMoney(20);
+        }
+    }
+
+    @Test
+    public void loadAllTest() throws Exception
+    {
+        Path directory = Paths.get("target", "config-load-all");
+        Files.createDirectories(directory);
+        try (InputStream stream = SimpleConfigTest.class.getResourceAsStream("/simpleConfig.yml"))
+        {
+            Assert.assertNotNull(stream);
+            Files.copy(stream, directory.resolve("config-0.yml"), StandardCopyOption.REPLACE_EXISTING);
+        }
+        for (int i = 1; i < 8; i++)
+        {
+            Files.copy(directory.resolve("config-0.yml"), directory.resolve("config-" + i + ".yml"), StandardCopyOption.REPLACE_EXISTING);
+        }
+        Files.write(directory.resolve("broken.yml"), "money: [".getBytes(StandardCharsets.UTF_8));
+        Files.write(directory.resolve("ignored.txt"), "money: [".getBytes(StandardCharsets.UTF_8));
+
+        Map<Path, ConfigLoadException> errors = new ConcurrentHashMap<>(1);
+        Map<Path, TestConfig> configs = this.configManager.loadAll(directory, TestConfig.class, ConfigManager.DEFAULT_FILES_GLOB, 4, errors::put);
+        Assert.assertEquals(8, configs.size());
+        Assert.assertEquals(1, errors.size());
+        Assert.assertTrue(errors.containsKey(directory.resolve("broken.yml")));
+        for (Entry<Path, TestConfig> entry : configs.entrySet())
+        {
+            Assert.assertEquals(entry.getKey().toFile(), entry.getValue().bindFile());
+            Assert.assertEquals(configs.get(directory.resolve("config-0.yml")), entry.getValue());
+        }
+
+        // exceptions thrown by consumer are passed to caller, and not reported as broken files.
+        errors.clear();
+        IllegalStateException consumerFailure = new IllegalStateException("consumer failure");
+        try
+        {
+            this.configManager.loadAll(directory, TestConfig.class, ConfigManager.DEFAULT_FILES_GLOB, 4, (path, config) ->
+            {
+                if (path.endsWith("config-3.yml"))
+                {
+                    throw consumerFailure;
+                }
+            }, errors::put);
+            Assert.fail("Expected consumer failure");
+        }
+        catch (IllegalStateException e)
+        {
+            Assert.assertSame(consumerFailure, e);
+        }
+        Assert.assertEquals(Collections.singleton(directory.resolve("broken.yml")), errors.keySet());
+    }
+
+    @Test
+    public void mappedLoadTest() throws Exception
+    {
+        ConfigTemplate<TestConfig> configTemplate = this.configManager.getConfigFile(TestConfig.class);
+        File file = new File("target/mapped-load-test.yml");
+        try (InputStream stream = SimpleConfigTest.class.getResourceAsStream("/simpleConfig.yml"))
+        {
+            Assert.assertNotNull(stream);
+            Files.copy(stream, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+        TestConfig streamed = configTemplate.load(file);
+        configTemplate.setFileLoadMode(FileLoadMode.MAPPED);
+        try
+        {
+            TestConfig mapped = configTemplate.load(file);
+            Assert.assertEquals(streamed, mapped);
+
+            // mapping is released when load ends, so file can be saved again right away.
+            mapped.setMoney(42);
+            mapped.save(file);
+            Assert.assertEquals(42, configTemplate.load(file).getMoney(), 0.001);
+        }
+        finally
+        {
+            configTemplate.setFileLoadMode(FileLoadMode.STREAM);
+        }
+
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ))
+        {
+            MappedByteBuffer mappedBuffer = channel.map(MapMode.READ_ONLY, 0, channel.size());
+            Assert.assertTrue(MappedBuffers.unmap(mappedBuffer));
+        }
+        Reader closedReader = new ByteBufferReader(ByteBuffer.wrap(new byte[]{'a'}), StandardCharsets.UTF_8.newDecoder(), null);
+        closedReader.close();
+        try
+        {
+            closedReader.read();
+            Assert.fail("Closed reader must not access its buffer.");
+        }
+        catch (IOException e)
+        {
+            // expected
+        }
+
+        // surrogate pairs must be returned correctly even when reading single chars.
+        String text = "a\u00f3\ud83d\ude00b";
+        ByteBuffer buffer = ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+        StringBuilder read = new StringBuilder();
+        try (Reader reader = new ByteBufferReader(buffer, StandardCharsets.UTF_8.newDecoder(), null))
+        {
+            int c;
+            while ((c = reader.read()) != - 1)
+            {
+                read.append((char) c);
+            }
+        }
+        Assert.assertEquals(text, read.toString());
+    }
+
+    @Test
+    public void loadChangesTest() throws Exception
+    {
+        ConfigTemplate<TestConfig> configTemplate = this.configManager.getConfigFile(TestConfig.class);
+        try (InputStream stream = SimpleConfigTest.class.getResourceAsStream("/simpleConfig.yml"))
+        {
+            Assert.assertNotNull(stream);
+
+            TestConfig config = configTemplate.load(stream);
+            double money = config.getMoney();
+            StringBuilderWriter writer = new StringBuilderWriter(500);
+            config.save(writer);
+            String yaml = writer.toString();
+
+            Assert.assertTrue(config.loadChanges(new StringReader(yaml)).isEmpty());
+
+            config.setMoney(3_000);
+            Set<String> changes = config.loadChanges(new StringReader(yaml));
+            Assert.assertEquals(1, changes.size());
+            Assert.assertEquals(money, config.getMoney(), 0.001);
+        }
+    }
+
+    @Test
+    public void lazyPropertyTest() throws Exception
+    {
+        ConfigTemplate<TestConfig> configTemplate = this.configManager.getConfigFile(TestConfig.class);
+        String yaml = "player-money: 10\nlazy-names: [a, b]\n";
+        TestConfig config = configTemplate.load(new StringReader(yaml));
+        Assert.assertTrue(configTemplate.getTemplateFor("lazy-names").isLazy());
+        Assert.assertFalse(configTemplate.getTemplateFor("player-money").isLazy());
+        Assert.assertEquals(10, config.getMoney(), 0.001);
+        Assert.assertEquals(ImmutableList.of("a", "b"), config.getLazyNames());
+
+        TestConfig streamed = configTemplate.loadStreaming(new StringReader(yaml));
+        StringBuilderWriter writer = new StringBuilderWriter(200);
+        streamed.save(writer);
+        Assert.assertEquals(config, configTemplate.load(new StringReader(writer.toString())));
+
+        streamed.load(new StringReader(yaml));
+        streamed.getLazyNames().add("c");
+        Assert.assertEquals(ImmutableList.of("a", "b", "c"), streamed.getLazyNames());
+    }
+
+    @Test
+    public void streamedPropertyTest() throws Exception
+    {
+        ConfigTemplate<TestConfig> configTemplate = this.configManager.getConfigFile(TestConfig.class);
+        String yaml = "streamed-ids:\n- 1\n- 2\n- 3\nplayer-money: 5\n";
+        File file = new File("target/streamed-test.yml");
+        Files.write(file.toPath(), yaml.getBytes(StandardCharsets.UTF_8));
+
+        TestConfig config = configTemplate.load(file);
+        Assert.assertTrue(configTemplate.getTemplateFor("streamed-ids").isStreamed());
+        Assert.assertTrue(config.getStreamedIds() instanceof StreamedSequence);
+        Assert.assertEquals(ImmutableList.of(1, 2, 3), ImmutableList.copyOf(config.getStreamedIds()));
+        try (Stream<Integer> stream = ((StreamedSequence<Integer>) config.getStreamedIds()).stream())
+        {
+            Assert.assertEquals(Integer.valueOf(1), stream.findFirst().orElse(null));
+        }
+        try (StreamedSequence.CloseableIterator<Integer> iterator = ((StreamedSequence<Integer>) config.getStreamedIds()).iterator())
+        {
+            Assert.assertEquals(Integer.valueOf(1), iterator.next());
+            iterator.close();
+            Assert.assertFalse(iterator.hasNext());
+        }
+
+        // only config instance loaded from file is bound to it, other configs of the same type loaded meanwhile (like nested ones) are not.
+        Object previous = StreamedSequence.enterLoad(config, file);
+        try
+        {
+            Iterable<Integer> nested = configTemplate.load(new StringReader(yaml)).getStreamedIds();
+            Assert.assertFalse(nested instanceof StreamedSequence);
+            Assert.assertEquals(ImmutableList.of(1, 2, 3), ImmutableList.copyOf(nested));
+        }
+        finally
+        {
+            StreamedSequence.exitLoad(previous);
+        }
+
+        // saving to source file of streamed values must not truncate it before they are read.
+        config.setMoney(7);
+        config.save(file);
+        TestConfig reloaded = configTemplate.load(file);
+        Assert.assertEquals(7, reloaded.getMoney(), 0.001);
+        Assert.assertEquals(ImmutableList.of(1, 2, 3), ImmutableList.copyOf(reloaded.getStreamedIds()));
+
+        // data is captured before saveAsync returns, also when streamed values are read from target file.
+        reloaded.setMoney(8);
+        CompletableFuture<Void> save = reloaded.saveAsync(file);
+        reloaded.setMoney(9);
+        save.get();
+        TestConfig savedAsync = configTemplate.load(file);
+        Assert.assertEquals(8, savedAsync.getMoney(), 0.001);
+        Assert.assertEquals(ImmutableList.of(1, 2, 3), ImmutableList.copyOf(savedAsync.getStreamedIds()));
+
+        // without file to read from, values are loaded into memory.
+        Iterable<Integer> loaded = configTemplate.load(new StringReader(yaml)).getStreamedIds();
+        Assert.assertFalse(loaded instanceof StreamedSequence);
+        Assert.assertEquals(ImmutableList.of(1, 2, 3), ImmutableList.copyOf(loaded));
+    }
 }
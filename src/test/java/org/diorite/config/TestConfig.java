@@ -24,12 +24,17 @@
 
 package org.diorite.config;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.diorite.config.annotations.Comment;
 import org.diorite.config.annotations.CustomKey;
 import org.diorite.config.annotations.Footer;
 import org.diorite.config.annotations.GroovyValidator;
 import org.diorite.config.annotations.Header;
+import org.diorite.config.annotations.Lazy;
 import org.diorite.config.annotations.PredefinedComment;
+import org.diorite.config.annotations.Streamed;
 import org.diorite.config.annotations.Validator;
 
 @Header("Test config")
@@ -117,4 +122,18 @@ public interface TestConfig extends Config
     {
         return this.getMoney() * more;
     }
+
+    @Lazy
+    @CustomKey("lazy-names")
+    default List<String> getLazyNames()
+    {
+        return new ArrayList<>(5);
+    }
+
+    @Streamed
+    @CustomKey("streamed-ids")
+    default Iterable<Integer> getStreamedIds()
+    {
+        return new ArrayList<>(5);
+    }
 }
@@ -24,9 +24,25 @@
 
 package org.diorite.config.serialization;
 
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.math.BigDecimal;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Currency;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 import com.google.common.collect.ImmutableList;
 
@@ -34,10 +50,21 @@ import org.apache.commons.lang3.builder.ToStringBuilder;
 import org.apache.commons.lang3.builder.ToStringStyle;
 import org.junit.Assert;
 import org.junit.Test;
+import org.yaml.snakeyaml.nodes.MappingNode;
+import org.yaml.snakeyaml.nodes.Node;
+import org.yaml.snakeyaml.nodes.NodeTuple;
+import org.yaml.snakeyaml.nodes.ScalarNode;
+import org.yaml.snakeyaml.nodes.SequenceNode;
+import org.yaml.snakeyaml.nodes.Tag;
 
 import org.diorite.config.ConfigManager;
 import org.diorite.config.ConfigTemplate;
 import org.diorite.config.SomeConfig;
+import org.diorite.config.StreamedSequence.CloseableIterator;
+import org.diorite.config.serialization.snakeyaml.YamlCollectionCreator;
+import org.diorite.config.serialization.snakeyaml.YamlLoadLimitException;
+import org.diorite.config.serialization.snakeyaml.YamlLoadLimits;
+import org.diorite.config.serialization.snakeyaml.YamlNodeCodec;
 
 public class SerializationTest
 {
@@ -233,4 +260,294 @@ public class SerializationTest
 
         System.out.println("\n[YAML] Objects equals!");
     }
+
+    @Test
+    public void parallelYamlTest()
+    {
+        Serialization global = prepareSerialization();
+
+        int documents = 200;
+        StringBuilder yaml = new StringBuilder(documents * 40);
+        for (int i = 0; i < documents; i++)
+        {
+            yaml.append("---\nid: ").append(i).append("\nname: entry-").append(i).append("\nvalues: [1, 2, 3]\n");
+        }
+
+        try (YamlDocumentPipeline pipeline = global.fromAllYamlParallel(new StringReader(yaml.toString()), 4, true))
+        {
+            int expected = 0;
+            while (pipeline.hasNext())
+            {
+                Map<?, ?> document = (Map<?, ?>) pipeline.next();
+                Assert.assertEquals(expected, document.get("id"));
+                Assert.assertEquals("entry-" + expected, document.get("name"));
+                expected++;
+            }
+            Assert.assertEquals(documents, expected);
+        }
+
+        Set<Object> ids = new HashSet<>(documents);
+        try (YamlDocumentPipeline pipeline = global.fromAllYamlParallel(new StringReader(yaml.toString()), 4, 4, false))
+        {
+            pipeline.forEachRemaining(document -> ids.add(((Map<?, ?>) document).get("id")));
+        }
+        Assert.assertEquals(documents, ids.size());
+
+        // pipeline can be closed before it is fully consumed.
+        try (YamlDocumentPipeline pipeline = global.fromAllYamlParallel(new StringReader(yaml.toString()), 2, true))
+        {
+            Assert.assertTrue(pipeline.hasNext());
+            Assert.assertEquals(0, ((Map<?, ?>) pipeline.next()).get("id"));
+        }
+    }
+
+    @Test
+    public void scalarConversionsTest()
+    {
+        Assert.assertEquals(TimeUnit.SECONDS, ScalarConversions.findEnum(TimeUnit.class, "SECONDS"));
+        Assert.assertEquals(TimeUnit.SECONDS, ScalarConversions.findEnum(TimeUnit.class, "seconds"));
+        Assert.assertEquals(TimeUnit.SECONDS, ScalarConversions.findEnum(TimeUnit.class, "Seconds"));
+        // class of constant with own body isn't enum class itself.
+        Assert.assertEquals(BodyEnum.SPECIAL, ScalarConversions.findEnum(BodyEnum.SPECIAL.getClass(), "special"));
+        Assert.assertEquals(BodyEnum.PLAIN, ScalarConversions.findEnum(BodyEnum.SPECIAL.getClass(), "PLAIN"));
+
+        DynamicEnumType other = DynamicEnumType.OTHER_ENUM_CONSTANT;
+        Assert.assertEquals(other, ScalarConversions.findDynamicEnum(DynamicEnumType.class, other.name()));
+        Assert.assertEquals(other, ScalarConversions.findDynamicEnum(DynamicEnumType.class, other.name().toLowerCase(Locale.ROOT)));
+        Assert.assertEquals(other, ScalarConversions.findDynamicEnum(DynamicEnumType.class, other.prettyName()));
+        Assert.assertEquals(other, ScalarConversions.findDynamicEnum(DynamicEnumType.class, String.valueOf(other.ordinal())));
+        Assert.assertNull(ScalarConversions.findDynamicEnum(DynamicEnumType.class, "missing-constant"));
+
+        Assert.assertEquals(12, ScalarConversions.parseNumber(Integer.class, "12"));
+        Assert.assertEquals((byte) - 3, ScalarConversions.parseNumber(Byte.class, "-3"));
+        Assert.assertEquals(1.5, ScalarConversions.parseNumber(Double.class, "1.5"));
+        Assert.assertNull(ScalarConversions.parseNumber(BigDecimal.class, "1"));
+    }
+
+    @Test
+    public void elementCountTest()
+    {
+        Serialization global = prepareSerialization();
+
+        List<Node> values = new ArrayList<>(3);
+        for (int i = 0; i < 3; i++)
+        {
+            values.add(new ScalarNode(Tag.INT, String.valueOf(i), null, null, null));
+        }
+        List<NodeTuple> tuples = new ArrayList<>(2);
+        tuples.add(new NodeTuple(new ScalarNode(Tag.STR, "values", null, null, null), new SequenceNode(Tag.SEQ, true, values, null, null, null)));
+        tuples.add(new NodeTuple(new ScalarNode(Tag.STR, "name", null, null, null), new ScalarNode(Tag.STR, "test", null, null, null)));
+        MappingNode root = new MappingNode(Tag.MAP, true, tuples, null, null, Boolean.FALSE);
+
+        global.withYamlDeserializationData(root, Object.class, data ->
+        {
+            Assert.assertEquals(2, data.getElementCount(""));
+            Assert.assertEquals(3, data.getElementCount("values"));
+            Assert.assertEquals(- 1, data.getElementCount("name"));
+            Assert.assertEquals(- 1, data.getElementCount("missing"));
+            Assert.assertEquals(ImmutableList.of(0, 1, 2), data.getAsList("values", Integer.class));
+        });
+
+        Assert.assertEquals(17, CollectionCapacity.hashCapacity(12));
+        Assert.assertTrue(YamlCollectionCreator.<List<?>>createCollection(List.class, - 1).isEmpty());
+    }
+
+    @Test
+    public void corruptedSnapshotStringTest()
+    {
+        // scalar node, no flags, new tag with string length of Integer.MAX_VALUE and only one byte of data.
+        byte[] bytes = {0, 0, 0, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x07, 'a'};
+        try
+        {
+            YamlNodeCodec.read(new DataInputStream(new ByteArrayInputStream(bytes)));
+            Assert.fail("Corrupted string length should fail to read.");
+        }
+        catch (IOException e)
+        {
+            // expected, before allocating whole string.
+        }
+    }
+
+    @Test
+    public void loadLimitsTest()
+    {
+        Serialization global = prepareSerialization();
+        String laughs = "a: &a [x, x, x, x, x, x, x, x, x, x]\n" +
+                        "b: &b [*a, *a, *a, *a, *a, *a, *a, *a, *a, *a]\n" +
+                        "c: &c [*b, *b, *b, *b, *b, *b, *b, *b, *b, *b]\n" +
+                        "d: &d [*c, *c, *c, *c, *c, *c, *c, *c, *c, *c]\n";
+        String nested = "a: [[[[[[1]]]]]]";
+        // root mapping and 3 sequences are exactly at depth limit, scalar leaves are not counted.
+        String boundary = "a: [[[1]]]";
+        String overBoundary = "a: [[[[1]]]]";
+        Node boundaryNode = global.composeYaml(new StringReader(boundary));
+        Node overBoundaryNode = global.composeYaml(new StringReader(overBoundary));
+        try
+        {
+            global.setLoadLimits(new YamlLoadLimits(1000, 4, 5000, 100));
+            Assert.assertNotNull(global.fromYaml("a: [1, 2, 3]"));
+            assertLoadLimit(global, laughs);
+            assertLoadLimit(global, nested);
+
+            Assert.assertNotNull(global.fromYaml(boundary));
+            Assert.assertNotNull(global.fromYamlNode(boundaryNode));
+            assertLoadLimit(global, overBoundary);
+            try
+            {
+                global.fromYamlNode(overBoundaryNode);
+                Assert.fail("Expected construction limit breach for: " + overBoundary);
+            }
+            catch (YamlLoadLimitException e)
+            {
+                // expected
+            }
+            assertLoadLimit(global, "a: '" + String.join("", Collections.nCopies(1000, "x")) + "'");
+
+            global.setLoadLimits(YamlLoadLimits.UNLIMITED);
+            Assert.assertNotNull(global.fromYaml(laughs));
+            Assert.assertNotNull(global.fromYaml(nested));
+        }
+        finally
+        {
+            global.setLoadLimits(YamlLoadLimits.UNLIMITED);
+        }
+    }
+
+    @Test
+    public void enginePoolTest() throws Exception
+    {
+        Serialization global = prepareSerialization();
+        YamlEnginePool pool = global.getYamlEnginePool();
+        int maxIdle = pool.getMaxIdle();
+        try
+        {
+            pool.setMaxIdle(2);
+            pool.resetMetrics();
+            for (int i = 0; i < 10; i++)
+            {
+                Assert.assertEquals(Collections.singletonMap("a", i), global.fromYaml("a: " + i));
+            }
+            Assert.assertTrue(pool.getCreated() <= 1);
+            Assert.assertTrue(pool.getReused() >= 9);
+
+            List<Thread> threads = new ArrayList<>(8);
+            for (int i = 0; i < 8; i++)
+            {
+                Thread thread = new Thread(() ->
+                                           {
+                                               for (int j = 0; j < 50; j++)
+                                               {
+                                                   global.toYaml(Collections.singletonMap("a", j));
+                                               }
+                                           });
+                threads.add(thread);
+                thread.start();
+            }
+            for (Thread thread : threads)
+            {
+                thread.join();
+            }
+            Assert.assertEquals(0, pool.getActive());
+            Assert.assertTrue(pool.getIdle() <= 2);
+            Assert.assertTrue(pool.getPeakActive() >= 1);
+            Assert.assertEquals(pool.getBorrowed(), pool.getCreated() + pool.getReused());
+
+            global.cleanup();
+            Assert.assertEquals(0, pool.getIdle());
+        }
+        finally
+        {
+            pool.setMaxIdle(maxIdle);
+        }
+    }
+
+    @Test
+    public void leasedEnginesTest()
+    {
+        Serialization global = prepareSerialization();
+        YamlEnginePool pool = global.getYamlEnginePool();
+        global.toYaml(Collections.singletonMap("a", 1)); // ensure that there is pooled engine.
+        int idle = pool.getIdle();
+        pool.resetMetrics();
+
+        // exhausted iterator returns its engine.
+        List<Object> documents = new ArrayList<>(3);
+        global.fromAllYaml("a: 1\n---\na: 2\n---\na: 3").forEach(documents::add);
+        Assert.assertEquals(3, documents.size());
+        Assert.assertEquals(idle, pool.getIdle());
+
+        // closed iterator returns its engine, even if it isn't exhausted.
+        try (CloseableIterator<Integer> iterator = global.fromYamlSequence(new StringReader("values: [1, 2, 3]"), "values", Integer.class))
+        {
+            Assert.assertEquals(Integer.valueOf(1), iterator.next());
+            Assert.assertEquals(idle - 1, pool.getIdle());
+        }
+        Assert.assertEquals(idle, pool.getIdle());
+        Assert.assertEquals(2, pool.getLeased());
+        Assert.assertEquals(0, pool.getCreated());
+    }
+
+    @Test
+    public void incrementalRegistrationTest()
+    {
+        Serialization global = prepareSerialization();
+        YamlEnginePool pool = global.getYamlEnginePool();
+        global.toYaml(Collections.singletonMap("a", 1)); // ensure that there is pooled engine.
+        pool.resetMetrics();
+
+        global.registerStringSerializer(StringSerializer.of(Currency.class, c -> "currency-" + c.getCurrencyCode(), s -> Currency.getInstance(s.substring(9))));
+        String yaml = global.toYaml(Collections.singletonMap("a", Currency.getInstance("EUR")));
+        Assert.assertTrue(yaml, yaml.contains("currency-EUR"));
+        Assert.assertEquals(0, pool.getCreated());
+        Assert.assertEquals(1, pool.getUpdated());
+
+        // registering the same type again replaces previous registration, also in engines that skipped it.
+        global.registerStringSerializer(StringSerializer.of(Currency.class, c -> "money-" + c.getCurrencyCode(), s -> Currency.getInstance(s.substring(6))));
+        yaml = global.toYaml(Collections.singletonMap("a", Currency.getInstance("EUR")));
+        Assert.assertTrue(yaml, yaml.contains("money-EUR"));
+    }
+
+    @Test
+    public void sharedReferencesTest()
+    {
+        Serialization global = prepareSerialization();
+        MetaObject metaObject = new MetaObject("shared", new MetaValue("meta", 3));
+        String yaml = global.toYaml(Arrays.asList(metaObject, metaObject));
+        Assert.assertTrue(yaml, yaml.contains("&id001") && yaml.contains("*id001"));
+        List<?> list = (List<?>) global.fromYaml(yaml);
+        Assert.assertEquals(metaObject, list.get(0));
+        Assert.assertSame(list.get(0), list.get(1));
+
+        Map<String, MetaObject> entries = new HashMap<>(4);
+        global.fromYamlEntries(new StringReader("a: &meta\n  name: shared\n  value: meta:3\nb: 5\nc: *meta"), Object.class,
+                               (key, data) -> entries.put(key, data.get(key, MetaObject.class)));
+        Assert.assertEquals(metaObject, entries.get("a"));
+        Assert.assertSame(entries.get("a"), entries.get("c"));
+    }
+
+    private static void assertLoadLimit(Serialization serialization, String yaml)
+    {
+        try
+        {
+            serialization.fromYaml(yaml);
+            Assert.fail("Expected load limit breach for: " + yaml);
+        }
+        catch (YamlLoadLimitException e)
+        {
+            // expected
+        }
+    }
+
+    enum BodyEnum
+    {
+        PLAIN,
+        SPECIAL
+        {
+            @Override
+            public String toString()
+            {
+                return "special";
+            }
+        }
+    }
 }
@@ -0,0 +1,95 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017. Diorite (by Bartłomiej Mazur (aka GotoFinal))
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package org.diorite.config.serialization;
+
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+
+public class StringDeduplicatorTest
+{
+    @Test
+    @SuppressWarnings("unchecked")
+    public void loadedStringsTest()
+    {
+        Serialization global = Serialization.getInstance();
+        StringDeduplicator deduplicator = new StringDeduplicator(1024, 64);
+        global.setStringDeduplicator(deduplicator);
+        try
+        {
+            Map<String, Map<String, String>> loaded = (Map<String, Map<String, String>>) global.fromYaml("first:\n  key: value\nsecond:\n  key: value");
+            Entry<String, String> first = loaded.get("first").entrySet().iterator().next();
+            Entry<String, String> second = loaded.get("second").entrySet().iterator().next();
+            Assert.assertEquals("key", first.getKey());
+            Assert.assertSame(first.getKey(), second.getKey());
+            Assert.assertEquals("value", first.getValue());
+            Assert.assertSame(first.getValue(), second.getValue());
+
+            // first, key, value and second are pooled on first use, second key and value are returned from pool.
+            Assert.assertEquals(6, deduplicator.getLookups());
+            Assert.assertEquals(2, deduplicator.getHits());
+            Assert.assertEquals(2 / 6.0, deduplicator.getHitRate(), 0.0001);
+            Assert.assertTrue(deduplicator.getBytesSaved() > 0);
+
+            deduplicator.resetMetrics();
+            Assert.assertEquals(0, deduplicator.getLookups());
+            Assert.assertEquals(0, deduplicator.getHits());
+        }
+        finally
+        {
+            global.setStringDeduplicator(null);
+        }
+    }
+
+    @Test
+    public void clearedReferencesTest()
+    {
+        StringDeduplicator deduplicator = new StringDeduplicator(16, 64);
+        String pooled = new String(new char[]{'a', 'b', 'c'});
+        Assert.assertSame(pooled, deduplicator.deduplicate(pooled));
+        WeakReference<String> reference = new WeakReference<>(pooled);
+        pooled = null;
+        for (int i = 0; (i < 20) && (reference.get() != null); i++)
+        {
+            System.gc();
+        }
+        Assume.assumeTrue("pooled string wasn't collected", reference.get() == null);
+
+        String fresh = new String(new char[]{'a', 'b', 'c'});
+        Assert.assertSame(fresh, deduplicator.deduplicate(fresh));
+        Assert.assertEquals(0, deduplicator.getHits());
+        Assert.assertSame(fresh, deduplicator.deduplicate(new String(new char[]{'a', 'b', 'c'})));
+        Assert.assertEquals(1, deduplicator.getHits());
+
+        deduplicator.clear();
+        String afterClear = new String(new char[]{'a', 'b', 'c'});
+        Assert.assertSame(afterClear, deduplicator.deduplicate(afterClear));
+    }
+}